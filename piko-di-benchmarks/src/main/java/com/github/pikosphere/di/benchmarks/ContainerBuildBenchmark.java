@@ -0,0 +1,67 @@
+package com.github.pikosphere.di.benchmarks;
+
+import com.github.pikosphere.di.PikoDI;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how {@link PikoDI#create(Class[])} scales with the number of providers and the depth of the graph.
+ * <p>
+ * PikoDI caches the scan of every module class, so {@link #create()} scans the modules only on its first invocation
+ * and then measures merging the cached scans and validating the graph. {@link #createColdScan(ColdModules)} and
+ * {@link #createColdParallelScan(ColdModules)} load the modules in a new class loader before every invocation, so
+ * they also measure scanning them, sequentially and on the common fork join pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContainerBuildBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int providers;
+
+    @Param({"2", "10", "50"})
+    private int depth;
+
+    private SyntheticModules syntheticModules;
+    private Class[] modules;
+
+    @Setup
+    public void setup() {
+        syntheticModules = SyntheticModules.generate(providers, depth, 3, 100);
+        modules = syntheticModules.getModules();
+    }
+
+    @Benchmark
+    public PikoDI create() {
+        return PikoDI.create(modules);
+    }
+
+    @Benchmark
+    public PikoDI createColdScan(ColdModules coldModules) {
+        return PikoDI.create(coldModules.modules);
+    }
+
+    @Benchmark
+    public PikoDI createColdParallelScan(ColdModules coldModules) {
+        return PikoDI.builder().parallelScanning().create(coldModules.modules);
+    }
+
+    /**
+     * The modules loaded again before every invocation, which PikoDI has not scanned yet
+     */
+    @State(Scope.Thread)
+    public static class ColdModules {
+
+        private Class[] modules;
+
+        @Setup(Level.Invocation)
+        public void load(ContainerBuildBenchmark benchmark) {
+            modules = benchmark.syntheticModules.loadModules();
+        }
+    }
+}
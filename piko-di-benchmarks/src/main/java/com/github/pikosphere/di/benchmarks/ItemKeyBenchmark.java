@@ -0,0 +1,90 @@
+package com.github.pikosphere.di.benchmarks;
+
+import com.github.pikosphere.di.ItemKey;
+import org.openjdk.jmh.annotations.*;
+
+import javax.inject.Named;
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures constructing, hashing and comparing {@link ItemKey}s, which every lookup does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemKeyBenchmark {
+
+    private static final String NAME = "n42";
+
+    private Annotation namedAnnotation;
+
+    private ItemKey<SyntheticNode> classKey;
+    private ItemKey<SyntheticNode> namedKey;
+    private ItemKey<SyntheticNode> equalNamedKey;
+
+    private Map<ItemKey, Object> keyToValueMap;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        namedAnnotation = ItemKeyBenchmark.class.getDeclaredMethod("named").getAnnotation(Named.class);
+
+        classKey = new ItemKey<>(SyntheticNode.class);
+        namedKey = new ItemKey<>(SyntheticNode.class, NAME);
+        equalNamedKey = new ItemKey<>(SyntheticNode.class, NAME);
+
+        keyToValueMap = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            keyToValueMap.put(new ItemKey<>(SyntheticNode.class, "n" + i), i);
+        }
+    }
+
+    @Named(NAME)
+    private static void named() {
+    }
+
+    @Benchmark
+    public ItemKey<SyntheticNode> constructClassKey() {
+        return new ItemKey<>(SyntheticNode.class);
+    }
+
+    @Benchmark
+    public ItemKey<SyntheticNode> constructNamedKey() {
+        return new ItemKey<>(SyntheticNode.class, NAME);
+    }
+
+    @Benchmark
+    public ItemKey<SyntheticNode> constructAnnotationKey() {
+        return new ItemKey<>(SyntheticNode.class, namedAnnotation);
+    }
+
+    @Benchmark
+    public int hashClassKey() {
+        return classKey.hashCode();
+    }
+
+    @Benchmark
+    public int hashNamedKey() {
+        return namedKey.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsNamedKey() {
+        return namedKey.equals(equalNamedKey);
+    }
+
+    @Benchmark
+    public Object lookupExistingKey() {
+        return keyToValueMap.get(namedKey);
+    }
+
+    @Benchmark
+    public Object lookupNewKey() {
+        return keyToValueMap.get(new ItemKey<>(SyntheticNode.class, NAME));
+    }
+}
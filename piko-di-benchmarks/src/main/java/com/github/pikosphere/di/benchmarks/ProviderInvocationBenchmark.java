@@ -0,0 +1,72 @@
+package com.github.pikosphere.di.benchmarks;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.benchmarks.ServiceGraphModule.Cache;
+import com.github.pikosphere.di.benchmarks.ServiceGraphModule.Controller;
+import com.github.pikosphere.di.benchmarks.ServiceGraphModule.Repository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways of calling a provider method, i.e. Method.invoke (the reflective path) against the spread
+ * MethodHandle PikoDI compiles every provider method into, as well as resolving a whole non singleton graph
+ * through PikoDI against calling the provider methods by hand.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProviderInvocationBenchmark {
+
+    private static final ItemKey<Controller> CONTROLLER_KEY = new ItemKey<>(Controller.class);
+
+    private PikoDI pikoDI;
+
+    private Method providerMethod;
+    private MethodHandle providerHandle;
+    private Object[] providerParams;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        pikoDI = PikoDI.create(ServiceGraphModule.class);
+
+        providerMethod = ServiceGraphModule.class.getMethod("provideDao", Repository.class, Cache.class);
+        //the same handle shape PikoDI compiles a provider method into
+        providerHandle = MethodHandles.publicLookup().unreflect(providerMethod)
+                .asSpreader(Object[].class, providerMethod.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        providerParams = new Object[]{new Repository(), new Cache()};
+    }
+
+    @Benchmark
+    public Object providerMethodInvoke() throws ReflectiveOperationException {
+        return providerMethod.invoke(null, providerParams);
+    }
+
+    @Benchmark
+    public Object providerHandleInvoke() throws Throwable {
+        return (Object) providerHandle.invokeExact(providerParams);
+    }
+
+    @Benchmark
+    public Controller graphHandWritten() {
+        return ServiceGraphModule.provideController(
+                ServiceGraphModule.provideService(
+                        ServiceGraphModule.provideDao(ServiceGraphModule.provideRepository(), ServiceGraphModule.provideCache()),
+                        ServiceGraphModule.provideValidator()),
+                ServiceGraphModule.provideAuditor());
+    }
+
+    @Benchmark
+    public Controller graphPikoDI() {
+        return pikoDI.getInstanceOf(CONTROLLER_KEY);
+    }
+}
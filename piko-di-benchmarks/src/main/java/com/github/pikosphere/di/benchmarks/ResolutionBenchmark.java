@@ -0,0 +1,81 @@
+package com.github.pikosphere.di.benchmarks;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PikoDI#getInstanceOf(ItemKey)} for the root of differently shaped graphs, with and without
+ * singletons, from a single thread and from several threads sharing the same injector, and through a compiled {@link PikoDI.Key}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionBenchmark {
+
+    @Param({"SHALLOW", "DEEP", "WIDE"})
+    private Shape shape;
+
+    @Param({"false", "true"})
+    private boolean singletons;
+
+    private PikoDI pikoDI;
+    private ItemKey<SyntheticNode> rootKey;
+    private PikoDI.Key<SyntheticNode> compiledRootKey;
+
+    @Setup
+    public void setup() {
+        SyntheticModules syntheticModules = SyntheticModules.generate(shape.providers, shape.depth, shape.fanOut, 100, singletons);
+        pikoDI = PikoDI.create(syntheticModules.getModules());
+        rootKey = syntheticModules.getRootKeys().get(0);
+        compiledRootKey = pikoDI.key(rootKey);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public SyntheticNode resolve() {
+        return pikoDI.getInstanceOf(rootKey);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public SyntheticNode resolveCompiledKey() {
+        return compiledRootKey.get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SyntheticNode resolveConcurrently() {
+        return pikoDI.getInstanceOf(rootKey);
+    }
+
+    public enum Shape {
+        /**
+         * a root with 8 direct dependencies
+         */
+        SHALLOW(16, 2, 8),
+        /**
+         * a chain of 50 providers
+         */
+        DEEP(50, 50, 1),
+        /**
+         * a root with 64 direct dependencies
+         */
+        WIDE(128, 2, 64);
+
+        private final int providers;
+        private final int depth;
+        private final int fanOut;
+
+        Shape(int providers, int depth, int fanOut) {
+            this.providers = providers;
+            this.depth = depth;
+            this.fanOut = fanOut;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.pikosphere.di.benchmarks;
+
+/**
+ * A small, non singleton service graph resembling a typical request handler wiring.
+ * <pre>
+ * Controller -> Service -> Dao -> Repository
+ *            |          |      -> Cache
+ *            |          -> Validator
+ *            -> Auditor
+ * </pre>
+ */
+public class ServiceGraphModule {
+
+    public static Repository provideRepository() {
+        return new Repository();
+    }
+
+    public static Cache provideCache() {
+        return new Cache();
+    }
+
+    public static Dao provideDao(Repository repository, Cache cache) {
+        return new Dao(repository, cache);
+    }
+
+    public static Validator provideValidator() {
+        return new Validator();
+    }
+
+    public static Service provideService(Dao dao, Validator validator) {
+        return new Service(dao, validator);
+    }
+
+    public static Auditor provideAuditor() {
+        return new Auditor();
+    }
+
+    public static Controller provideController(Service service, Auditor auditor) {
+        return new Controller(service, auditor);
+    }
+
+    public static class Repository {
+    }
+
+    public static class Cache {
+    }
+
+    public static class Validator {
+    }
+
+    public static class Auditor {
+    }
+
+    public static class Dao {
+        private final Repository repository;
+        private final Cache cache;
+
+        Dao(Repository repository, Cache cache) {
+            this.repository = repository;
+            this.cache = cache;
+        }
+    }
+
+    public static class Service {
+        private final Dao dao;
+        private final Validator validator;
+
+        Service(Dao dao, Validator validator) {
+            this.dao = dao;
+            this.validator = validator;
+        }
+    }
+
+    public static class Controller {
+        private final Service service;
+        private final Auditor auditor;
+
+        Controller(Service service, Auditor auditor) {
+            this.service = service;
+            this.auditor = auditor;
+        }
+    }
+}
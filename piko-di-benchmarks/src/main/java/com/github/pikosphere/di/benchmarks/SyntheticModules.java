@@ -0,0 +1,196 @@
+package com.github.pikosphere.di.benchmarks;
+
+import com.github.pikosphere.di.ItemKey;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates, compiles and loads module classes with any number of providers, for the benchmarks which need graphs
+ * larger than what is sensible to write by hand.
+ * <p>
+ * The providers are spread over {@code depth} layers. Every provider in a layer depends on {@code fanOut}
+ * distinct, randomly picked providers of the layer below it, so the graphs are wide and full of diamonds.
+ * Every provider provides a {@link SyntheticNode} qualified with {@code @Named("n<index>")}, optionally as a
+ * {@code @Singleton}.
+ * The random picks are seeded, so the same parameters always generate the same graph.
+ * <p>
+ * PikoDI caches the scan of every module class, so only the first injector created from {@link #getModules()} scans
+ * them. {@link #loadModules()} loads the compiled classes again, for measuring the scan itself.
+ */
+public final class SyntheticModules {
+
+    private static final String PACKAGE_NAME = "com.github.pikosphere.di.benchmarks.synthetic";
+
+    private final Path classesDir;
+    private final int moduleCount;
+    private final Class[] modules;
+    private final List<ItemKey<SyntheticNode>> rootKeys;
+
+    private SyntheticModules(Path classesDir, int moduleCount, List<ItemKey<SyntheticNode>> rootKeys) {
+        this.classesDir = classesDir;
+        this.moduleCount = moduleCount;
+        this.modules = loadModules();
+        this.rootKeys = rootKeys;
+    }
+
+    public static SyntheticModules generate(int providerCount, int depth, int fanOut, int providersPerModule) {
+        return generate(providerCount, depth, fanOut, providersPerModule, false);
+    }
+
+    public static SyntheticModules generate(int providerCount, int depth, int fanOut, int providersPerModule,
+                                            boolean singletons) {
+        if (depth < 1 || providerCount < depth) {
+            throw new IllegalArgumentException(String.format("Cannot spread %d providers over %d layers", providerCount, depth));
+        }
+
+        //layer l holds the providers [layerStarts[l], layerStarts[l + 1])
+        int[] layerStarts = new int[depth + 1];
+        for (int layer = 0; layer <= depth; layer++) {
+            layerStarts[layer] = (int) ((long) providerCount * layer / depth);
+        }
+
+        Random random = new Random(providerCount * 31L + depth * 17L + fanOut);
+        List<String> sources = new ArrayList<>();
+        StringBuilder source = null;
+        int moduleCount = 0;
+
+        for (int layer = 0; layer < depth; layer++) {
+            for (int index = layerStarts[layer]; index < layerStarts[layer + 1]; index++) {
+                if (index % providersPerModule == 0) {
+                    if (source != null) {
+                        sources.add(source.append("}\n").toString());
+                    }
+                    source = new StringBuilder()
+                            .append("package ").append(PACKAGE_NAME).append(";\n\n")
+                            .append("import ").append(SyntheticNode.class.getName()).append(";\n")
+                            .append("import javax.inject.Named;\n")
+                            .append("import javax.inject.Singleton;\n\n")
+                            .append("public class SyntheticModule").append(moduleCount++).append(" {\n");
+                }
+
+                List<Integer> dependencies = new ArrayList<>();
+                if (layer > 0) {
+                    List<Integer> candidates = new ArrayList<>();
+                    for (int candidate = layerStarts[layer - 1]; candidate < layerStarts[layer]; candidate++) {
+                        candidates.add(candidate);
+                    }
+                    Collections.shuffle(candidates, random);
+                    dependencies = candidates.subList(0, Math.min(fanOut, candidates.size()));
+                }
+
+                appendProvider(source, index, dependencies, singletons);
+            }
+        }
+        sources.add(source.append("}\n").toString());
+
+        List<ItemKey<SyntheticNode>> rootKeys = new ArrayList<>();
+        for (int index = layerStarts[depth - 1]; index < providerCount; index++) {
+            rootKeys.add(new ItemKey<>(SyntheticNode.class, "n" + index));
+        }
+
+        return new SyntheticModules(compile(sources), sources.size(), rootKeys);
+    }
+
+    private static void appendProvider(StringBuilder source, int index, List<Integer> dependencies, boolean singleton) {
+        if (singleton) {
+            source.append("    @Singleton\n");
+        }
+        source.append("    @Named(\"n").append(index).append("\")\n")
+                .append("    public static SyntheticNode provideN").append(index).append("(");
+        for (int i = 0; i < dependencies.size(); i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            source.append("@Named(\"n").append(dependencies.get(i)).append("\") SyntheticNode d").append(i);
+        }
+        source.append(") {\n        return new SyntheticNode(");
+        for (int i = 0; i < dependencies.size(); i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            source.append("d").append(i);
+        }
+        source.append(");\n    }\n\n");
+    }
+
+    /**
+     * @return the directory the classes of the modules are compiled to
+     */
+    private static Path compile(List<String> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Generating the synthetic modules requires a JDK");
+        }
+
+        try {
+            Path sourceDir = Files.createTempDirectory("piko-synthetic-src");
+            Path classesDir = Files.createTempDirectory("piko-synthetic-classes");
+
+            List<String> arguments = new ArrayList<>();
+            arguments.add("-nowarn");
+            arguments.add("-proc:none");
+            arguments.add("-classpath");
+            arguments.add(System.getProperty("java.class.path"));
+            arguments.add("-d");
+            arguments.add(classesDir.toString());
+
+            for (int i = 0; i < sources.size(); i++) {
+                Path sourceFile = sourceDir.resolve("SyntheticModule" + i + ".java");
+                Files.write(sourceFile, sources.get(i).getBytes(StandardCharsets.UTF_8));
+                arguments.add(sourceFile.toString());
+            }
+
+            if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+                throw new IllegalStateException("Failed to compile the synthetic modules in " + sourceDir);
+            }
+            return classesDir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads the module classes in a new class loader, so they are distinct classes which PikoDI has not scanned yet.
+     */
+    public Class[] loadModules() {
+        try {
+            ClassLoader classLoader = new URLClassLoader(new URL[]{classesDir.toUri().toURL()},
+                    SyntheticModules.class.getClassLoader());
+            Class[] loadedModules = new Class[moduleCount];
+            for (int i = 0; i < loadedModules.length; i++) {
+                loadedModules[i] = classLoader.loadClass(PACKAGE_NAME + ".SyntheticModule" + i);
+            }
+            return loadedModules;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The module classes, loaded once.
+     */
+    public Class[] getModules() {
+        return modules;
+    }
+
+    /**
+     * The keys of the providers in the top most layer, i.e. the ones nothing depends on.
+     */
+    public List<ItemKey<SyntheticNode>> getRootKeys() {
+        return rootKeys;
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.pikosphere.di.benchmarks;
+
+/**
+ * The type provided by every provider of the {@link SyntheticModules}, which are told apart by their qualifiers.
+ */
+public class SyntheticNode {
+
+    private final SyntheticNode[] dependencies;
+
+    public SyntheticNode(SyntheticNode... dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    public SyntheticNode[] getDependencies() {
+        return dependencies;
+    }
+}
@@ -0,0 +1,428 @@
+package com.github.pikosphere.di.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Generates a PrecompiledInjector for every type annotated with {@code @PikoInjector}.
+ * <p>
+ * The provider methods of the listed module classes are found the same way PikoDI.create finds them at runtime
+ * (public static methods, named provide*, with a non void return type) and validated with the same checks, see
+ * {@link ProviderGraph}. Validation failures are compilation errors. The generated injector, named
+ * {@code <AnnotatedType>_PikoInjector}, calls every provider method directly and is registered in
+ * META-INF/services, so that PikoDI.create picks it up instead of scanning the modules with reflection.
+ * <p>
+ * If a module or a parameter type is not accessible from the package of the annotated type, or a provider method is
+ * {@code @RequestScoped} or {@code @Pooled}, no injector is generated (with a warning), and PikoDI keeps using
+ * reflection for those modules.
+ */
+@SupportedAnnotationTypes(PikoInjectorProcessor.PIKO_INJECTOR_ANNOTATION)
+public class PikoInjectorProcessor extends AbstractProcessor {
+
+    static final String PIKO_INJECTOR_ANNOTATION = "com.github.pikosphere.di.PikoInjector";
+
+    static final String GENERATED_INJECTOR_SUFFIX = "_PikoInjector";
+
+    private static final String PRECOMPILED_INJECTOR = "com.github.pikosphere.di.PrecompiledInjector";
+    private static final String PROVIDER_METHOD_NAME_PREFIX = "provide";
+    private static final String QUALIFIER_ANNOTATION = "javax.inject.Qualifier";
+    private static final String SINGLETON_ANNOTATION = "javax.inject.Singleton";
+    private static final String REQUEST_SCOPED_ANNOTATION = "com.github.pikosphere.di.RequestScoped";
+    private static final String POOLED_ANNOTATION = "com.github.pikosphere.di.Pooled";
+    private static final String INTO_SET_ANNOTATION = "com.github.pikosphere.di.IntoSet";
+    private static final String INTO_MAP_ANNOTATION = "com.github.pikosphere.di.IntoMap";
+    private static final String PROVIDER_TYPE = "javax.inject.Provider";
+    private static final String LAZY_TYPE = "com.github.pikosphere.di.Lazy";
+    private static final String COMPLETABLE_FUTURE_TYPE = "java.util.concurrent.CompletableFuture";
+    private static final String GENERATED_ANNOTATION = "javax.annotation.processing.Generated";
+
+    private final Set<String> generatedInjectors = new TreeSet<>();
+
+    private Elements elements;
+    private Types types;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+
+        TypeElement pikoInjectorAnnotation = elements.getTypeElement(PIKO_INJECTOR_ANNOTATION);
+        if (pikoInjectorAnnotation != null) {
+            for (TypeElement injectorType : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(pikoInjectorAnnotation))) {
+                processInjector(injectorType);
+            }
+        }
+
+        if (roundEnv.processingOver() && !generatedInjectors.isEmpty()) {
+            writeServiceFile();
+        }
+
+        return true;
+    }
+
+    private void processInjector(TypeElement injectorType) {
+        List<TypeElement> modules = getModules(injectorType);
+
+        List<ProviderMethod> scannedProviderMethods = new ArrayList<>();
+        for (TypeElement module : modules) {
+            for (ExecutableElement method : ElementFilter.methodsIn(module.getEnclosedElements())) {
+                if (isProviderMethod(method)) {
+                    scannedProviderMethods.add(getProviderMethod(module, method));
+                }
+            }
+        }
+
+        //checked before the graph, which would take the contributions to the same collection for duplicates
+        for (ProviderMethod providerMethod : scannedProviderMethods) {
+            if (hasAnnotation(providerMethod.getMethod(), INTO_SET_ANNOTATION)
+                    || hasAnnotation(providerMethod.getMethod(), INTO_MAP_ANNOTATION)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        String.format("No injector generated, contributing provider %s is not supported by precompiled injectors. PikoDI will use reflection for these modules.",
+                                providerMethod), injectorType);
+                return;
+            }
+        }
+
+        ProviderGraph providerGraph = new ProviderGraph(scannedProviderMethods);
+        Optional<String> error = providerGraph.validate();
+        if (error.isPresent()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, error.get(), injectorType);
+            return;
+        }
+
+        String packageName = elements.getPackageOf(injectorType).getQualifiedName().toString();
+        Optional<String> inaccessibleType = findInaccessibleType(modules, providerGraph.getProviderMethods(), packageName);
+        if (inaccessibleType.isPresent()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    String.format("No injector generated, %s is not accessible from package '%s'. PikoDI will use reflection for these modules.",
+                            inaccessibleType.get(), packageName), injectorType);
+            return;
+        }
+
+        for (ProviderMethod providerMethod : providerGraph.getProviderMethods()) {
+            if (hasAnnotation(providerMethod.getMethod(), REQUEST_SCOPED_ANNOTATION)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        String.format("No injector generated, request scoped provider %s is not supported by precompiled injectors. PikoDI will use reflection for these modules.",
+                                providerMethod), injectorType);
+                return;
+            }
+            if (hasAnnotation(providerMethod.getMethod(), POOLED_ANNOTATION)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        String.format("No injector generated, pooled provider %s is not supported by precompiled injectors. PikoDI will use reflection for these modules.",
+                                providerMethod), injectorType);
+                return;
+            }
+        }
+
+        writeInjector(injectorType, packageName, modules, providerGraph.getProviderMethods());
+    }
+
+    private List<TypeElement> getModules(TypeElement injectorType) {
+        List<TypeElement> modules = new ArrayList<>();
+        for (AnnotationMirror annotationMirror : injectorType.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(PIKO_INJECTOR_ANNOTATION)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotationMirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        for (Object moduleValue : (List<?>) entry.getValue().getValue()) {
+                            TypeMirror moduleType = (TypeMirror) ((AnnotationValue) moduleValue).getValue();
+                            modules.add((TypeElement) types.asElement(moduleType));
+                        }
+                    }
+                }
+            }
+        }
+        return modules;
+    }
+
+    private boolean isProviderMethod(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        return modifiers.contains(Modifier.STATIC)
+                && modifiers.contains(Modifier.PUBLIC)
+                && method.getSimpleName().toString().startsWith(PROVIDER_METHOD_NAME_PREFIX)
+                && method.getReturnType().getKind() != TypeKind.VOID;
+    }
+
+    private ProviderMethod getProviderMethod(TypeElement module, ExecutableElement method) {
+        //like at runtime, a provider returning a CompletableFuture<T> provides T asynchronously
+        TypeMirror futureType = getTypeArgument(method.getReturnType(), COMPLETABLE_FUTURE_TYPE);
+        ProvisionKey key = getKey(method, futureType != null ? futureType : method.getReturnType());
+
+        List<ProvisionKey> dependencyKeys = new ArrayList<>();
+        List<String> dependencyKinds = new ArrayList<>();
+        List<String> parameterTypeNames = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            dependencyKeys.add(getKey(parameter, getDependencyType(parameter)));
+            dependencyKinds.add(getDependencyKind(parameter));
+            parameterTypeNames.add(getTypeName(parameter.asType()));
+        }
+
+        return new ProviderMethod(module, method, key, dependencyKeys, dependencyKinds, parameterTypeNames,
+                hasAnnotation(method, SINGLETON_ANNOTATION), futureType != null);
+    }
+
+    /**
+     * Mirrors PikoDI.create: a Provider or Lazy parameter with a class (or parameterized type) argument is a
+     * deferred dependency on that type, any other parameter is a dependency on its own type.
+     *
+     * @return the name of the PrecompiledInjector.DependencyKind of the parameter
+     */
+    private String getDependencyKind(VariableElement parameter) {
+        if (getTypeArgument(parameter.asType(), PROVIDER_TYPE, LAZY_TYPE) != null) {
+            String typeName = getTypeName(parameter.asType());
+            return typeName.equals(PROVIDER_TYPE) ? ProviderMethod.PROVIDER : ProviderMethod.LAZY;
+        }
+        return ProviderMethod.INSTANCE;
+    }
+
+    private TypeMirror getDependencyType(VariableElement parameter) {
+        TypeMirror typeArgument = getTypeArgument(parameter.asType(), PROVIDER_TYPE, LAZY_TYPE);
+        return typeArgument != null ? typeArgument : parameter.asType();
+    }
+
+    /**
+     * @return the type argument of the type if it is one of the given generic types, or null if it is none of them
+     * or the argument is not a class or array type
+     */
+    private TypeMirror getTypeArgument(TypeMirror type, String... genericTypeNames) {
+        String typeName = getTypeName(type);
+        if (type.getKind() == TypeKind.DECLARED && Arrays.asList(genericTypeNames).contains(typeName)) {
+            List<? extends TypeMirror> typeArguments = ((DeclaredType) type).getTypeArguments();
+            if (typeArguments.size() == 1 && (typeArguments.get(0).getKind() == TypeKind.DECLARED
+                    || typeArguments.get(0).getKind() == TypeKind.ARRAY)) {
+                return typeArguments.get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Only qualifiers retained at runtime are considered, since only those are seen by PikoDI.create.
+     * If there is more than one, the first one declared is used.
+     */
+    private ProvisionKey getKey(Element element, TypeMirror type) {
+        String typeName = getTypeName(type);
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            Retention retention = annotationType.getAnnotation(Retention.class);
+
+            if (hasAnnotation(annotationType, QUALIFIER_ANNOTATION) && retention != null
+                    && retention.value() == RetentionPolicy.RUNTIME) {
+                if (annotationType.getQualifiedName().contentEquals(ProvisionKey.NAMED_ANNOTATION)) {
+                    String name = "";
+                    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                            elements.getElementValuesWithDefaults(annotationMirror).entrySet()) {
+                        if (entry.getKey().getSimpleName().contentEquals("value")) {
+                            name = (String) entry.getValue().getValue();
+                        }
+                    }
+                    return ProvisionKey.named(typeName, name);
+                }
+                return ProvisionKey.qualified(typeName, annotationType.getQualifiedName().toString(),
+                        elements.getBinaryName(annotationType).toString());
+            }
+        }
+        return ProvisionKey.of(typeName);
+    }
+
+    private boolean hasAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the source name of the erasure of the type
+     */
+    private String getTypeName(TypeMirror type) {
+        TypeMirror erasure = types.erasure(type);
+        switch (erasure.getKind()) {
+            case ARRAY:
+                return getTypeName(((ArrayType) erasure).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) erasure).asElement()).getQualifiedName().toString();
+            default:
+                return erasure.getKind().name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private Optional<String> findInaccessibleType(List<TypeElement> modules, List<ProviderMethod> providerMethods, String packageName) {
+        for (TypeElement module : modules) {
+            if (!isAccessible(module, packageName)) {
+                return Optional.of(module.getQualifiedName().toString());
+            }
+        }
+        for (ProviderMethod providerMethod : providerMethods) {
+            for (VariableElement parameter : providerMethod.getMethod().getParameters()) {
+                //the type of the parameter is used in a cast and the type of the dependency in its key
+                for (TypeMirror parameterType : Arrays.asList(parameter.asType(), getDependencyType(parameter))) {
+                    TypeMirror type = types.erasure(parameterType);
+                    while (type.getKind() == TypeKind.ARRAY) {
+                        type = ((ArrayType) type).getComponentType();
+                    }
+                    if (type.getKind() == TypeKind.DECLARED && !isAccessible(types.asElement(type), packageName)) {
+                        return Optional.of(type.toString());
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean isAccessible(Element typeElement, String packageName) {
+        boolean samePackage = elements.getPackageOf(typeElement).getQualifiedName().contentEquals(packageName);
+        for (Element element = typeElement; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || !(modifiers.contains(Modifier.PUBLIC) || samePackage)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeInjector(TypeElement injectorType, String packageName, List<TypeElement> modules,
+                               List<ProviderMethod> providerMethods) {
+        String simpleName = getFlatName(injectorType) + GENERATED_INJECTOR_SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        if (elements.getTypeElement(GENERATED_ANNOTATION) != null) {
+            source.append("@").append(GENERATED_ANNOTATION).append("(\"").append(getClass().getName()).append("\")\n");
+        }
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(simpleName).append(" implements ").append(PRECOMPILED_INJECTOR).append(" {\n\n");
+
+        source.append("    private static final java.util.List<Class<?>> MODULES = java.util.Collections.unmodifiableList(java.util.Arrays.<Class<?>>asList(");
+        for (int i = 0; i < modules.size(); i++) {
+            source.append(i == 0 ? "\n            " : ",\n            ").append(modules.get(i).getQualifiedName()).append(".class");
+        }
+        source.append("));\n\n");
+
+        source.append("    @Override\n")
+                .append("    public java.util.List<Class<?>> getModules() {\n")
+                .append("        return MODULES;\n")
+                .append("    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public java.util.List<Provision> getProvisions() {\n")
+                .append("        return java.util.Arrays.<Provision>asList(");
+        for (int i = 0; i < providerMethods.size(); i++) {
+            source.append(i == 0 ? "\n" : ",\n");
+            appendProvision(source, providerMethods.get(i));
+        }
+        source.append(");\n")
+                .append("    }\n")
+                .append("}\n");
+
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedName, injectorType);
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(source.toString());
+            }
+            generatedInjectors.add(qualifiedName);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    String.format("Unable to write injector %s: %s", qualifiedName, e.getMessage()), injectorType);
+        }
+    }
+
+    private void appendProvision(StringBuilder source, ProviderMethod providerMethod) {
+        List<ProvisionKey> dependencyKeys = providerMethod.getDependencyKeys();
+
+        source.append("                new Provision(").append(providerMethod.getKey().toSource()).append(",\n")
+                .append("                        java.util.Arrays.<com.github.pikosphere.di.ItemKey<?>>asList(");
+        for (int i = 0; i < dependencyKeys.size(); i++) {
+            source.append(i == 0 ? "" : ", ").append(dependencyKeys.get(i).toSource());
+        }
+        source.append("),\n")
+                .append("                        java.util.Arrays.<DependencyKind>asList(");
+        List<String> dependencyKinds = providerMethod.getDependencyKinds();
+        for (int i = 0; i < dependencyKinds.size(); i++) {
+            source.append(i == 0 ? "" : ", ").append("DependencyKind.").append(dependencyKinds.get(i));
+        }
+        source.append("),\n")
+                .append("                        ").append(providerMethod.isSingleton()).append(", ")
+                .append(providerMethod.isAsync()).append(",\n")
+                .append("                        args -> ").append(providerMethod.getModule().getQualifiedName())
+                .append(".").append(providerMethod.getMethod().getSimpleName()).append("(");
+        List<String> parameterTypeNames = providerMethod.getParameterTypeNames();
+        for (int i = 0; i < parameterTypeNames.size(); i++) {
+            source.append(i == 0 ? "" : ", ").append("(").append(parameterTypeNames.get(i)).append(") args[").append(i).append("]");
+        }
+        source.append("))");
+    }
+
+    private String getFlatName(TypeElement typeElement) {
+        String name = typeElement.getSimpleName().toString();
+        for (Element enclosing = typeElement.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name = enclosing.getSimpleName() + "_" + name;
+        }
+        return name;
+    }
+
+    /**
+     * Registers the generated injectors as services, keeping the ones registered by earlier (incremental) runs.
+     */
+    private void writeServiceFile() {
+        String resourceName = "META-INF/services/" + PRECOMPILED_INJECTOR;
+        Set<String> serviceNames = new TreeSet<>(generatedInjectors);
+
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        serviceNames.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            //nothing registered yet
+        }
+
+        try {
+            FileObject serviceFile = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+            try (Writer writer = new OutputStreamWriter(serviceFile.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String serviceName : serviceNames) {
+                    writer.write(serviceName);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    String.format("Unable to register the generated injectors %s: %s", generatedInjectors, e.getMessage()));
+        }
+    }
+}
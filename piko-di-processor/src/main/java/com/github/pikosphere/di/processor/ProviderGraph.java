@@ -0,0 +1,156 @@
+package com.github.pikosphere.di.processor;
+
+import java.util.*;
+
+/**
+ * Validates the provider methods of an injector at compile time with the same checks, in the same order and with
+ * the same error codes as PikoDI.create does at runtime: DUPLICATE_ITEMS, INVALID_IDENTIFIER, NO_PROVIDERS and
+ * CYCLIC_DEPENDENCY_ITEMS.
+ */
+final class ProviderGraph {
+
+    static final String DUPLICATE_ITEMS = "DUPLICATE_ITEMS";
+    static final String INVALID_IDENTIFIER = "INVALID_IDENTIFIER";
+    static final String NO_PROVIDERS = "NO_PROVIDERS";
+    static final String CYCLIC_DEPENDENCY_ITEMS = "CYCLIC_DEPENDENCY_ITEMS";
+
+    private static final String ERROR_ON_INJECTOR_BUILD = "Unable to build injector due to error: %s , error data: %s";
+
+    private static final Set<String> qualifierMandatoryTypes = new HashSet<>(Arrays.asList(
+            "java.lang.String",
+            "java.lang.Integer",
+            "java.lang.Float",
+            "java.lang.Double",
+            "java.lang.Long",
+            "java.util.Map",
+            "java.util.Set",
+            "java.util.List"
+    ));
+
+    private final List<ProviderMethod> providerMethods = new ArrayList<>();
+    private final List<ProviderMethod> duplicateProviderMethods = new ArrayList<>();
+    private final Map<ProvisionKey, Integer> keyToIdMap = new HashMap<>();
+
+    ProviderGraph(List<ProviderMethod> scannedProviderMethods) {
+        for (ProviderMethod providerMethod : scannedProviderMethods) {
+            if (providerMethod.getDependencyKeys().contains(providerMethod.getKey())) {
+                //provides and requires the same item, which PikoDI reports along with the duplicates
+                duplicateProviderMethods.add(providerMethod);
+            } else if (keyToIdMap.putIfAbsent(providerMethod.getKey(), providerMethods.size()) == null) {
+                providerMethods.add(providerMethod);
+            } else {
+                duplicateProviderMethods.add(providerMethod);
+            }
+        }
+    }
+
+    List<ProviderMethod> getProviderMethods() {
+        return providerMethods;
+    }
+
+    /**
+     * @return the error message of the first failing check, if any
+     */
+    Optional<String> validate() {
+        if (!duplicateProviderMethods.isEmpty()) {
+            return error(DUPLICATE_ITEMS, duplicateProviderMethods);
+        }
+
+        List<ProviderMethod> invalidIdentifiers = new ArrayList<>();
+        for (ProviderMethod providerMethod : providerMethods) {
+            ProvisionKey key = providerMethod.getKey();
+            if (key.hasEmptyName() || (!key.isQualified() && qualifierMandatoryTypes.contains(key.getTypeName()))) {
+                invalidIdentifiers.add(providerMethod);
+            }
+        }
+        if (!invalidIdentifiers.isEmpty()) {
+            return error(INVALID_IDENTIFIER, invalidIdentifiers);
+        }
+
+        Set<ProvisionKey> keysWithNoProviders = new LinkedHashSet<>();
+        for (ProviderMethod providerMethod : providerMethods) {
+            for (ProvisionKey dependencyKey : providerMethod.getDependencyKeys()) {
+                if (!keyToIdMap.containsKey(dependencyKey)) {
+                    keysWithNoProviders.add(dependencyKey);
+                }
+            }
+        }
+        if (!keysWithNoProviders.isEmpty()) {
+            return error(NO_PROVIDERS, keysWithNoProviders);
+        }
+
+        List<List<ProvisionKey>> cycles = findCycles();
+        if (!cycles.isEmpty()) {
+            return error(CYCLIC_DEPENDENCY_ITEMS, cycles);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Iterative depth first search, every edge back into the current path closes a cycle. Like at runtime, the
+     * deferred (Provider and Lazy) dependencies are not followed, so they can break a cycle.
+     */
+    private List<List<ProvisionKey>> findCycles() {
+        int size = providerMethods.size();
+        int[][] adjacency = new int[size][];
+        for (int id = 0; id < size; id++) {
+            ProviderMethod providerMethod = providerMethods.get(id);
+            List<ProvisionKey> dependencyKeys = providerMethod.getDependencyKeys();
+            int[] edges = new int[dependencyKeys.size()];
+            int edgeCount = 0;
+            for (int position = 0; position < dependencyKeys.size(); position++) {
+                if (!providerMethod.isDeferredDependency(position)) {
+                    edges[edgeCount++] = keyToIdMap.get(dependencyKeys.get(position));
+                }
+            }
+            adjacency[id] = Arrays.copyOf(edges, edgeCount);
+        }
+
+        List<List<ProvisionKey>> cycles = new ArrayList<>();
+        //0 - not visited, 1 - on the current path, 2 - done
+        int[] state = new int[size];
+        int[] edgeCursor = new int[size];
+        int[] path = new int[size];
+
+        for (int root = 0; root < size; root++) {
+            if (state[root] != 0) {
+                continue;
+            }
+            int pathSize = 0;
+            path[pathSize++] = root;
+            state[root] = 1;
+
+            while (pathSize > 0) {
+                int node = path[pathSize - 1];
+                if (edgeCursor[node] < adjacency[node].length) {
+                    int next = adjacency[node][edgeCursor[node]++];
+                    if (state[next] == 0) {
+                        state[next] = 1;
+                        path[pathSize++] = next;
+                    } else if (state[next] == 1) {
+                        List<ProvisionKey> cycle = new ArrayList<>();
+                        int start = pathSize - 1;
+                        while (path[start] != next) {
+                            start--;
+                        }
+                        for (int i = start; i < pathSize; i++) {
+                            cycle.add(providerMethods.get(path[i]).getKey());
+                        }
+                        cycle.add(providerMethods.get(next).getKey());
+                        cycles.add(cycle);
+                    }
+                } else {
+                    state[node] = 2;
+                    pathSize--;
+                }
+            }
+        }
+
+        return cycles;
+    }
+
+    private static Optional<String> error(String errorCode, Object errorData) {
+        return Optional.of(String.format("[%s] " + ERROR_ON_INJECTOR_BUILD, errorCode, errorCode, errorData));
+    }
+}
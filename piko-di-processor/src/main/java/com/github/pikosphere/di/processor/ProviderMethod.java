@@ -0,0 +1,90 @@
+package com.github.pikosphere.di.processor;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import java.util.List;
+
+/**
+ * A provider method of a module class, as found by the processor.
+ */
+final class ProviderMethod {
+
+    //the names of the PrecompiledInjector.DependencyKind constants
+    static final String INSTANCE = "INSTANCE";
+    static final String PROVIDER = "PROVIDER";
+    static final String LAZY = "LAZY";
+
+    private final TypeElement module;
+    private final ExecutableElement method;
+    private final ProvisionKey key;
+    private final List<ProvisionKey> dependencyKeys;
+    private final List<String> dependencyKinds;
+    private final List<String> parameterTypeNames;
+    private final boolean singleton;
+    private final boolean async;
+
+    ProviderMethod(TypeElement module, ExecutableElement method, ProvisionKey key, List<ProvisionKey> dependencyKeys,
+                   List<String> dependencyKinds, List<String> parameterTypeNames, boolean singleton, boolean async) {
+        this.module = module;
+        this.method = method;
+        this.key = key;
+        this.dependencyKeys = dependencyKeys;
+        this.dependencyKinds = dependencyKinds;
+        this.parameterTypeNames = parameterTypeNames;
+        this.singleton = singleton;
+        this.async = async;
+    }
+
+    TypeElement getModule() {
+        return module;
+    }
+
+    ExecutableElement getMethod() {
+        return method;
+    }
+
+    ProvisionKey getKey() {
+        return key;
+    }
+
+    List<ProvisionKey> getDependencyKeys() {
+        return dependencyKeys;
+    }
+
+    /**
+     * @return the kind of each of the dependency keys
+     */
+    List<String> getDependencyKinds() {
+        return dependencyKinds;
+    }
+
+    /**
+     * @return whether the dependency at the given position is a Provider or Lazy one, i.e. not built up front
+     */
+    boolean isDeferredDependency(int position) {
+        return !INSTANCE.equals(dependencyKinds.get(position));
+    }
+
+    /**
+     * @return the erased parameter types, as used for the casts in the generated source
+     */
+    List<String> getParameterTypeNames() {
+        return parameterTypeNames;
+    }
+
+    boolean isSingleton() {
+        return singleton;
+    }
+
+    /**
+     * @return whether the method returns a CompletableFuture of the item it provides
+     */
+    boolean isAsync() {
+        return async;
+    }
+
+    @Override
+    public String toString() {
+        return module.getQualifiedName() + "." + method.getSimpleName();
+    }
+}
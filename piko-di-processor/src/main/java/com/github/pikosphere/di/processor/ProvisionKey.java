@@ -0,0 +1,90 @@
+package com.github.pikosphere.di.processor;
+
+import java.util.Objects;
+
+/**
+ * The compile time counterpart of an ItemKey, i.e. the erased type of a provided (or required) item and its
+ * qualifier, identified the same way as ItemKey does at runtime.
+ */
+final class ProvisionKey {
+
+    static final String NAMED_ANNOTATION = "javax.inject.Named";
+
+    private static final String namedAnnotationFormat = "%s[%s]";
+
+    private final String typeName;
+    private final String namedValue;
+    private final String qualifierTypeName;
+    private final String qualifier;
+
+    private ProvisionKey(String typeName, String namedValue, String qualifierTypeName, String qualifier) {
+        this.typeName = typeName;
+        this.namedValue = namedValue;
+        this.qualifierTypeName = qualifierTypeName;
+        this.qualifier = qualifier;
+    }
+
+    static ProvisionKey of(String typeName) {
+        return new ProvisionKey(typeName, null, null, null);
+    }
+
+    static ProvisionKey named(String typeName, String name) {
+        String trimmedName = name.trim();
+        return new ProvisionKey(typeName, trimmedName, null, String.format(namedAnnotationFormat, NAMED_ANNOTATION, trimmedName));
+    }
+
+    /**
+     * @param qualifierTypeName the canonical name of the qualifier annotation, used in the generated source
+     * @param qualifierBinaryName the binary name of the qualifier annotation, which is what identifies it at runtime
+     */
+    static ProvisionKey qualified(String typeName, String qualifierTypeName, String qualifierBinaryName) {
+        return new ProvisionKey(typeName, null, qualifierTypeName, qualifierBinaryName);
+    }
+
+    String getTypeName() {
+        return typeName;
+    }
+
+    boolean isQualified() {
+        return qualifier != null;
+    }
+
+    boolean hasEmptyName() {
+        return namedValue != null && namedValue.isEmpty();
+    }
+
+    /**
+     * @return a source code expression creating the equivalent ItemKey
+     */
+    String toSource() {
+        StringBuilder source = new StringBuilder("new com.github.pikosphere.di.ItemKey<Object>(")
+                .append(typeName).append(".class");
+        if (namedValue != null) {
+            source.append(", ").append(Sources.stringLiteral(namedValue));
+        } else if (qualifierTypeName != null) {
+            source.append(", ").append(qualifierTypeName).append(".class");
+        }
+        return source.append(")").toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProvisionKey)) return false;
+        ProvisionKey that = (ProvisionKey) o;
+        return typeName.equals(that.typeName) && Objects.equals(qualifier, that.qualifier);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(typeName, qualifier);
+    }
+
+    @Override
+    public String toString() {
+        return "ItemKey{" +
+                "itemClass=" + typeName +
+                ", annotation=" + qualifier +
+                '}';
+    }
+}
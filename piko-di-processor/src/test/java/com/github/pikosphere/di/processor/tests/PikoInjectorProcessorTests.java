@@ -0,0 +1,156 @@
+package com.github.pikosphere.di.processor.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.processor.PikoInjectorProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import javax.inject.Inject;
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class PikoInjectorProcessorTests {
+
+    @Test
+    void testInjectorIsGeneratedAndUsed() throws Exception {
+        CompilationResult result = compile("valid");
+        assertTrue(result.success, String.format("Compilation failed with %s", result.diagnostics));
+
+        assertTrue(Files.exists(result.classesDir.resolve("fixtures/valid/AppInjector_PikoInjector.class")),
+                "Injector was not generated");
+        String services = new String(Files.readAllBytes(
+                result.classesDir.resolve("META-INF/services/com.github.pikosphere.di.PrecompiledInjector")));
+        assertEquals("fixtures.valid.AppInjector_PikoInjector", services.trim());
+
+        try (URLClassLoader classLoader = result.newClassLoader()) {
+            Class module = classLoader.loadClass("fixtures.valid.GreetingModule");
+            Class greeterClass = classLoader.loadClass("fixtures.valid.Greeter");
+
+            //the module class is not public, which only the generated injector can deal with
+            PikoDI pikoDI = PikoDI.create(module);
+            Supplier<String> greeter = (Supplier<String>) pikoDI.getInstanceOf(new ItemKey<>(greeterClass));
+            assertEquals("Hello World", greeter.get());
+            assertSame(greeter, pikoDI.getInstanceOf(new ItemKey<>(greeterClass)), "Singleton flag was not carried over");
+        }
+    }
+
+    @Test
+    void testReflectionIsUsedForOtherModuleSets() throws Exception {
+        CompilationResult result = compile("valid");
+        assertTrue(result.success, String.format("Compilation failed with %s", result.diagnostics));
+
+        try (URLClassLoader classLoader = result.newClassLoader()) {
+            Class module = classLoader.loadClass("fixtures.valid.GreetingModule");
+            Class otherModule = classLoader.loadClass("fixtures.valid.OtherModule");
+            Class greeterClass = classLoader.loadClass("fixtures.valid.Greeter");
+
+            PikoDI pikoDI = PikoDI.create(module, otherModule);
+            PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> pikoDI.getInstanceOf(new ItemKey<>(greeterClass)));
+            assertEquals("INSTANTIATION_FAILURE", exception.getErrorCode(), "Exception error codes do not match");
+        }
+    }
+
+    @Test
+    void testDeferredDependenciesInGeneratedInjector() throws Exception {
+        CompilationResult result = compile("deferred");
+        assertTrue(result.success, String.format("Compilation failed with %s", result.diagnostics));
+
+        try (URLClassLoader classLoader = result.newClassLoader()) {
+            Class module = classLoader.loadClass("fixtures.deferred.DeferredModule");
+
+            //the module class is not public, so this only works through the generated injector
+            PikoDI pikoDI = PikoDI.create(module);
+            Supplier<Thread> threadSupplier = pikoDI.getInstanceOf(new ItemKey<>(Supplier.class));
+            assertNotSame(threadSupplier.get(), threadSupplier.get(), "Provider must resolve on every call");
+            assertEquals("Thread", pikoDI.getInstanceOf(new ItemKey<>(String.class, "threadName")));
+            assertEquals("Thread,Thread", pikoDI.getInstanceOf(new ItemKey<>(String.class, "threadNames")),
+                    "Repeated parameters were not all passed");
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "duplicates, DUPLICATE_ITEMS",
+            "unqualified, INVALID_IDENTIFIER",
+            "missing, NO_PROVIDERS",
+            "cyclic, CYCLIC_DEPENDENCY_ITEMS"
+    })
+    void testValidationErrors(String fixture, String errorCode) throws Exception {
+        CompilationResult result = compile(fixture);
+        assertFalse(result.success, "Compilation should have failed");
+
+        List<String> errors = result.diagnostics.stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+                .collect(Collectors.toList());
+        log.info("Errors for fixture {}: {}", fixture, errors);
+        assertEquals(1, errors.size(), String.format("Expected exactly one error but got %s", errors));
+        assertTrue(errors.get(0).startsWith("[" + errorCode + "]"), String.format("Unexpected error %s", errors.get(0)));
+    }
+
+    private CompilationResult compile(String fixture) throws Exception {
+        Path sourceDir = Paths.get(getClass().getResource("/fixtures/" + fixture).toURI());
+        Path classesDir = Files.createTempDirectory("piko-processor-" + fixture);
+
+        List<File> sourceFiles;
+        try (Stream<Path> paths = Files.walk(sourceDir)) {
+            sourceFiles = paths.filter(path -> path.toString().endsWith(".java")).map(Path::toFile).collect(Collectors.toList());
+        }
+
+        String classPath = Stream.of(PikoDI.class, Inject.class)
+                .map(clz -> clz.getProtectionDomain().getCodeSource().getLocation())
+                .map(PikoInjectorProcessorTests::toPath)
+                .collect(Collectors.joining(File.pathSeparator));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-classpath", classPath, "-d", classesDir.toString()), null,
+                    fileManager.getJavaFileObjectsFromFiles(sourceFiles));
+            task.setProcessors(Collections.singletonList(new PikoInjectorProcessor()));
+            boolean success = task.call();
+            return new CompilationResult(success, diagnostics.getDiagnostics(), classesDir);
+        }
+    }
+
+    private static String toPath(URL url) {
+        try {
+            return Paths.get(url.toURI()).toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CompilationResult {
+        private final boolean success;
+        private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+        private final Path classesDir;
+
+        CompilationResult(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics, Path classesDir) {
+            this.success = success;
+            this.diagnostics = diagnostics;
+            this.classesDir = classesDir;
+        }
+
+        URLClassLoader newClassLoader() throws IOException {
+            return new URLClassLoader(new URL[]{classesDir.toUri().toURL()}, PikoInjectorProcessorTests.class.getClassLoader());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package fixtures.cyclic;
+
+import com.github.pikosphere.di.PikoInjector;
+
+@PikoInjector({CyclicModule.class})
+public interface CyclicInjector {
+}
@@ -0,0 +1,12 @@
+package fixtures.cyclic;
+
+public class CyclicModule {
+
+    public static Runnable provideRunnable(Thread thread) {
+        return thread;
+    }
+
+    public static Thread provideThread(Runnable runnable) {
+        return new Thread(runnable);
+    }
+}
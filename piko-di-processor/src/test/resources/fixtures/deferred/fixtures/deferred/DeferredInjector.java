@@ -0,0 +1,7 @@
+package fixtures.deferred;
+
+import com.github.pikosphere.di.PikoInjector;
+
+@PikoInjector({DeferredModule.class})
+interface DeferredInjector {
+}
@@ -0,0 +1,35 @@
+package fixtures.deferred;
+
+import com.github.pikosphere.di.Lazy;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.function.Supplier;
+
+/**
+ * Not public, so PikoDI can only call the provider methods through the generated injector.
+ * Thread and Supplier depend on each other, the cycle is broken by the Provider.
+ * The thread names take the same key twice.
+ */
+class DeferredModule {
+
+    @Singleton
+    public static Supplier provideThreadSupplier(Provider<Thread> threadProvider) {
+        return threadProvider::get;
+    }
+
+    public static Thread provideThread(Supplier threadSupplier) {
+        return new Thread();
+    }
+
+    @Named("threadName")
+    public static String provideThreadName(Lazy<Thread> thread) {
+        return thread.get().getClass().getSimpleName();
+    }
+
+    @Named("threadNames")
+    public static String provideThreadNames(@Named("threadName") String first, @Named("threadName") String second) {
+        return first + "," + second;
+    }
+}
@@ -0,0 +1,7 @@
+package fixtures.duplicates;
+
+import com.github.pikosphere.di.PikoInjector;
+
+@PikoInjector({DuplicatesModule.class})
+public interface DuplicatesInjector {
+}
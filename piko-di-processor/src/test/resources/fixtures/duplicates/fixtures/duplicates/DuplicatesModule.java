@@ -0,0 +1,12 @@
+package fixtures.duplicates;
+
+public class DuplicatesModule {
+
+    public static Thread provideThread() {
+        return new Thread();
+    }
+
+    public static Thread provideOtherThread() {
+        return new Thread();
+    }
+}
@@ -0,0 +1,7 @@
+package fixtures.missing;
+
+import com.github.pikosphere.di.PikoInjector;
+
+@PikoInjector({MissingModule.class})
+public interface MissingInjector {
+}
@@ -0,0 +1,8 @@
+package fixtures.missing;
+
+public class MissingModule {
+
+    public static Thread provideThread(Runnable runnable) {
+        return new Thread(runnable);
+    }
+}
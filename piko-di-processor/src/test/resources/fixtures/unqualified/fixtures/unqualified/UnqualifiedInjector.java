@@ -0,0 +1,7 @@
+package fixtures.unqualified;
+
+import com.github.pikosphere.di.PikoInjector;
+
+@PikoInjector({UnqualifiedModule.class})
+public interface UnqualifiedInjector {
+}
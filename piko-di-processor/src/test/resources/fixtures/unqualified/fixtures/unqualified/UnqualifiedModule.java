@@ -0,0 +1,8 @@
+package fixtures.unqualified;
+
+public class UnqualifiedModule {
+
+    public static String provideString() {
+        return "value";
+    }
+}
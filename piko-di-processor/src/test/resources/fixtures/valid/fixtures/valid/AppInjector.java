@@ -0,0 +1,7 @@
+package fixtures.valid;
+
+import com.github.pikosphere.di.PikoInjector;
+
+@PikoInjector({GreetingModule.class})
+interface AppInjector {
+}
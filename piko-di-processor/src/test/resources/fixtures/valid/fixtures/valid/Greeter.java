@@ -0,0 +1,19 @@
+package fixtures.valid;
+
+import java.util.function.Supplier;
+
+public class Greeter implements Supplier<String> {
+
+    private final String greeting;
+    private final String name;
+
+    Greeter(String greeting, String name) {
+        this.greeting = greeting;
+        this.name = name;
+    }
+
+    @Override
+    public String get() {
+        return greeting + " " + name;
+    }
+}
@@ -0,0 +1,27 @@
+package fixtures.valid;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Not public, so PikoDI can only call the provider methods through the generated injector.
+ */
+class GreetingModule {
+
+    @Singleton
+    public static Greeter provideGreeter(@Named("greeting") String greeting, @Named("name") String name) {
+        return new Greeter(greeting, name);
+    }
+
+    @Named("greeting")
+    public static String provideGreeting() {
+        return "Hello";
+    }
+
+    //provides the String asynchronously
+    @Named("name")
+    public static CompletableFuture<String> provideName() {
+        return CompletableFuture.completedFuture("World");
+    }
+}
@@ -0,0 +1,8 @@
+package fixtures.valid;
+
+public class OtherModule {
+
+    public static Object provideObject() {
+        return new Object();
+    }
+}
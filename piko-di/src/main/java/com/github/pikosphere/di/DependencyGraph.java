@@ -0,0 +1,202 @@
+package com.github.pikosphere.di;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A read-only view of the dependency graph of an injector, see {@link PikoDI#getDependencyGraph()}, e.g. to find
+ * what a change to a provider affects:
+ * <pre>
+ * Set&lt;ItemKey&lt;?&gt;&gt; affected = pikoDI.getDependencyGraph().getTransitiveDependents(new ItemKey&lt;&gt;(Connection.class));
+ * </pre>
+ * The dependencies include the deferred ones ({@link javax.inject.Provider}, {@link Lazy}), since changing an item
+ * changes what the Providers of it provide. The topological order and the depths only follow the dependencies which
+ * are built before their dependents, which have no cycles.
+ * <p>
+ * The graph works on the forward and reverse adjacency arrays of the injector. Every transitive closure is computed
+ * on its first query, in time linear in the size of the closure, and kept. For a child injector, the dependencies on
+ * the items of its parent are followed into the graph of the parent, while the dependents are only the items of the
+ * child.
+ */
+public final class DependencyGraph {
+
+    private final ItemKey<?>[] itemKeys;
+    private final Map<ItemKey, Integer> keyToIdMap;
+    private final int[][] dependencyIds;
+    private final int[][] dependentIds;
+    private final int[] topologicalOrder;
+    private final int[] depths;
+
+    //the key and the graph of every item of a parent injector the items depend on, indexed like PikoDI#parentKeys
+    private final ItemKey<?>[] parentItemKeys;
+    private final DependencyGraph[] parentGraphs;
+
+    private final AtomicReferenceArray<Set<ItemKey<?>>> transitiveDependencies;
+    private final AtomicReferenceArray<Set<ItemKey<?>>> transitiveDependents;
+
+    DependencyGraph(ItemKey<?>[] itemKeys, Map<ItemKey, Integer> keyToIdMap, int[][] dependencyIds,
+                    int[][] dependentIds, int[][] eagerDependencyIds, int[] topologicalOrder,
+                    ItemKey<?>[] parentItemKeys, DependencyGraph[] parentGraphs) {
+        this.itemKeys = itemKeys;
+        this.keyToIdMap = keyToIdMap;
+        this.dependencyIds = dependencyIds;
+        this.dependentIds = dependentIds;
+        this.topologicalOrder = topologicalOrder;
+        this.parentItemKeys = parentItemKeys;
+        this.parentGraphs = parentGraphs;
+        this.transitiveDependencies = new AtomicReferenceArray<>(itemKeys.length);
+        this.transitiveDependents = new AtomicReferenceArray<>(itemKeys.length);
+
+        //the dependencies come first in the order, so their depths are known when an item is reached
+        this.depths = new int[itemKeys.length];
+        for (int id : topologicalOrder) {
+            for (int dependencyId : eagerDependencyIds[id]) {
+                int dependencyDepth = dependencyId >= 0 ? depths[dependencyId]
+                        : parentGraphs[-dependencyId - 1].getDepth(parentItemKeys[-dependencyId - 1]);
+                depths[id] = Math.max(depths[id], dependencyDepth + 1);
+            }
+        }
+    }
+
+    /**
+     * @return the keys of the items of the injector, not including the ones of its parent
+     */
+    public Set<ItemKey<?>> getItemKeys() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(itemKeys)));
+    }
+
+    public boolean contains(ItemKey<?> itemKey) {
+        return keyToIdMap.containsKey(itemKey);
+    }
+
+    /**
+     * @return the keys the item depends on directly, in the order of the parameters of its provider
+     * @throws IllegalArgumentException if the key is not provided by the injector itself
+     */
+    public Set<ItemKey<?>> getDependencies(ItemKey<?> itemKey) {
+        Set<ItemKey<?>> dependencies = new LinkedHashSet<>();
+        for (int dependencyId : dependencyIds[getId(itemKey)]) {
+            dependencies.add(getItemKey(dependencyId));
+        }
+        return Collections.unmodifiableSet(dependencies);
+    }
+
+    /**
+     * @return the keys of the items which depend on the item directly
+     * @throws IllegalArgumentException if the key is not provided by the injector itself
+     */
+    public Set<ItemKey<?>> getDependents(ItemKey<?> itemKey) {
+        Set<ItemKey<?>> dependents = new LinkedHashSet<>();
+        for (int dependentId : dependentIds[getId(itemKey)]) {
+            dependents.add(itemKeys[dependentId]);
+        }
+        return Collections.unmodifiableSet(dependents);
+    }
+
+    /**
+     * @return the keys the item depends on, directly or not, nearest first
+     * @throws IllegalArgumentException if the key is not provided by the injector itself
+     */
+    public Set<ItemKey<?>> getTransitiveDependencies(ItemKey<?> itemKey) {
+        int id = getId(itemKey);
+        Set<ItemKey<?>> closure = transitiveDependencies.get(id);
+        if (closure == null) {
+            closure = getClosure(id, dependencyIds, true);
+            transitiveDependencies.compareAndSet(id, null, closure);
+        }
+        return closure;
+    }
+
+    /**
+     * @return the keys of the items which depend on the item, directly or not, nearest first, i.e. the items a
+     * change to its provider affects
+     * @throws IllegalArgumentException if the key is not provided by the injector itself
+     */
+    public Set<ItemKey<?>> getTransitiveDependents(ItemKey<?> itemKey) {
+        int id = getId(itemKey);
+        Set<ItemKey<?>> closure = transitiveDependents.get(id);
+        if (closure == null) {
+            closure = getClosure(id, dependentIds, false);
+            transitiveDependents.compareAndSet(id, null, closure);
+        }
+        return closure;
+    }
+
+    /**
+     * @return the keys of the items of the injector, every one after the ones it has to be built after
+     */
+    public List<ItemKey<?>> getTopologicalOrder() {
+        List<ItemKey<?>> order = new ArrayList<>(topologicalOrder.length);
+        for (int id : topologicalOrder) {
+            order.add(itemKeys[id]);
+        }
+        return Collections.unmodifiableList(order);
+    }
+
+    /**
+     * @return the length of the longest chain of dependencies built before the item, 0 for an item without any
+     * @throws IllegalArgumentException if the key is not provided by the injector itself
+     */
+    public int getDepth(ItemKey<?> itemKey) {
+        return depths[getId(itemKey)];
+    }
+
+    /**
+     * A breadth first search from the item, which follows the dependencies on the items of a parent injector into
+     * (the memoized closures of) the graph of the parent.
+     */
+    private Set<ItemKey<?>> getClosure(int startId, int[][] adjacency, boolean intoParents) {
+        Set<ItemKey<?>> closure = new LinkedHashSet<>();
+        boolean[] visited = new boolean[itemKeys.length];
+        visited[startId] = true;
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(startId);
+        List<Integer> parentKeyIndices = new ArrayList<>();
+
+        while (!queue.isEmpty()) {
+            for (int nextId : adjacency[queue.poll()]) {
+                if (nextId < 0) {
+                    if (intoParents && closure.add(parentItemKeys[-nextId - 1])) {
+                        parentKeyIndices.add(-nextId - 1);
+                    }
+                } else if (!visited[nextId]) {
+                    visited[nextId] = true;
+                    closure.add(itemKeys[nextId]);
+                    queue.add(nextId);
+                }
+            }
+        }
+
+        for (int parentKeyIndex : parentKeyIndices) {
+            closure.addAll(parentGraphs[parentKeyIndex].getTransitiveDependencies(parentItemKeys[parentKeyIndex]));
+        }
+        return Collections.unmodifiableSet(closure);
+    }
+
+    private ItemKey<?> getItemKey(int id) {
+        return id >= 0 ? itemKeys[id] : parentItemKeys[-id - 1];
+    }
+
+    private int getId(ItemKey<?> itemKey) {
+        Integer id = keyToIdMap.get(itemKey);
+        if (id == null) {
+            throw new IllegalArgumentException(String.format("ItemKey %s is not provided by the injector itself", itemKey));
+        }
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "DependencyGraph{" +
+                "items=" + itemKeys.length +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.pikosphere.di;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a provider method which contributes an entry to a {@link java.util.Map} with String keys, instead of
+ * providing its item on its own. The qualifier of the method names the map, e.g.
+ * <pre>
+ * &#64;IntoMap("json")
+ * &#64;Named("codecs")
+ * public static Codec provideJsonCodec() { ... }
+ * </pre>
+ * contributes to the map injected as {@code @Named("codecs") Map<String, Codec> codecs}. Works like
+ * {@link IntoSet}, the keys must be unique within a map.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface IntoMap {
+
+    /**
+     * @return the key of the contributed entry
+     */
+    String value();
+}
@@ -0,0 +1,25 @@
+package com.github.pikosphere.di;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a provider method which contributes an element to a {@link java.util.Set}, instead of providing its item on
+ * its own. The qualifier of the method names the set, e.g.
+ * <pre>
+ * &#64;IntoSet
+ * &#64;Named("handlers")
+ * public static Handler provideHealthHandler() { ... }
+ * </pre>
+ * contributes to the set injected as {@code @Named("handlers") Set<Handler> handlers} (or looked up with
+ * {@code new ItemKey<>(Set.class, "handlers")}). The contributions from all the modules of an injector are merged
+ * into one immutable set, which is built once, like a singleton, in the order of the modules and their methods.
+ * <p>
+ * The contributions of a child injector make up a set of its own, which overrides the one of its parent.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface IntoSet {
+}
@@ -3,58 +3,132 @@ package com.github.pikosphere.di;
 import javax.inject.Named;
 import javax.inject.Qualifier;
 import java.lang.annotation.Annotation;
-import java.util.Objects;
-
-public class ItemKey<T> {
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Identifies an item by its class and optional qualifier. Keys are immutable and compare by identity of their parts:
+ * <ul>
+ * <li>a {@link Named} qualifier is identified by its (trimmed) value. The values of the qualifier annotations scanned
+ * from the modules are interned in {@link #namedQualifiers}, and a key built from a name reuses the interned value
+ * if there is one</li>
+ * <li>any other qualifier is identified by its annotation class</li>
+ * </ul>
+ * so equality is mostly a couple of reference checks, the hash is computed once and looking up a key allocates
+ * nothing but the key itself (and the trimmed name, if it is not trimmed already).
+ */
+public final class ItemKey<T> {
 
     private static final String namedAnnotationFormat = "%s[%s]";
-    private Class<? extends T> itemClass;
-    private String annotation;
+    private static final String contributionFormat = "contribution of %s.%s";
+
+    //canonical instances of the names used by the @Named qualifiers of the provider methods. Only the annotations
+    //add to it, never the names callers look keys up with, so it stays as small as the set of names in the modules
+    private static final ConcurrentMap<String, String> namedQualifiers = new ConcurrentHashMap<>();
+
+    private final Class<? extends T> itemClass;
+
+    //null, a @Named value (interned if it is one of the modules), the class of any other qualifier annotation or
+    //the provider method of a contribution to a multibound collection
+    private final Object qualifier;
+
+    private final int hash;
 
 
     public ItemKey(Class<? extends T> itemClass, String name) {
-        assert itemClass != null : "itemClass cannot tbe null";
-        this.itemClass = itemClass;
-        if (name != null && !name.trim().isEmpty()) {
-            this.annotation = String.format(namedAnnotationFormat, Named.class.getName(), name);
-        }
+        this(itemClass, (Object) (name != null && !name.trim().isEmpty() ? getCanonicalName(name) : null));
     }
 
     public ItemKey(Class<? extends T> itemClass) {
-        assert itemClass != null : "itemClass cannot tbe null";
-        this.itemClass = itemClass;
+        this(itemClass, (Object) null);
     }
 
 
     public ItemKey(Class<? extends T> itemClass, Annotation qualifierAnnotation) {
-        assert itemClass != null : "itemClass cannot tbe null";
-        this.itemClass = itemClass;
-        if (qualifierAnnotation != null) {
-            assert qualifierAnnotation.annotationType().isAnnotationPresent(Qualifier.class) :
-                    String.format("Annotation %s is not a valid annotation of type %s or one annotated with %s",
-                            qualifierAnnotation, Named.class.getName(), Qualifier.class.getName());
-
-            if (qualifierAnnotation instanceof Named) {
-                Named tempNamedAnnotation = (Named) qualifierAnnotation;
-                assert !(tempNamedAnnotation.value().trim().isEmpty()) :
-                        String.format("Annotation %s cannot have an empty value!", qualifierAnnotation.annotationType());
-                this.annotation = String.format(namedAnnotationFormat, Named.class.getName(), tempNamedAnnotation.value().trim());
-            } else {
-                this.annotation = qualifierAnnotation.annotationType().getName();
-            }
-        }
+        this(itemClass, getQualifier(qualifierAnnotation));
     }
 
     public ItemKey(Class<? extends T> itemClass, Class<? extends Annotation> annotationClass) {
+        this(itemClass, getQualifier(annotationClass));
+    }
+
+    private ItemKey(Class<? extends T> itemClass, Object qualifier) {
         assert itemClass != null : "itemClass cannot tbe null";
         this.itemClass = itemClass;
+        this.qualifier = qualifier;
+        this.hash = 31 * itemClass.hashCode() + (qualifier == null ? 0 : qualifier.hashCode());
+    }
+
+    /**
+     * The key of a contribution of an {@link IntoSet} or {@link IntoMap} provider method, which cannot be looked up
+     * on its own, only through the collection it is contributed to.
+     */
+    static <T> ItemKey<T> contributionKey(Class<? extends T> itemClass, Method method) {
+        return new ItemKey<>(itemClass, (Object) method);
+    }
+
+    /**
+     * The key of a {@link Named} item of a module, whose name is interned like the ones of the scanned annotations.
+     */
+    static <T> ItemKey<T> namedKey(Class<? extends T> itemClass, String name) {
+        return new ItemKey<>(itemClass, (Object) internName(name));
+    }
 
-        if (annotationClass != null) {
-            assert annotationClass.isAnnotationPresent(Qualifier.class) :
-                    String.format("Annotation class %s is not a valid annotation of type %s or one annotated with %s",
-                            annotationClass.getName(), Named.class.getName(), Qualifier.class.getName());
-            this.annotation = annotationClass.getName();
+    private static String internName(String name) {
+        String trimmedName = name.trim();
+        String internedName = namedQualifiers.putIfAbsent(trimmedName, trimmedName);
+        return internedName == null ? trimmedName : internedName;
+    }
+
+    /**
+     * @return the interned instance of the trimmed name, or the trimmed name itself if it is not interned
+     */
+    private static String getCanonicalName(String name) {
+        String trimmedName = name.trim();
+        String internedName = namedQualifiers.get(trimmedName);
+        return internedName == null ? trimmedName : internedName;
+    }
+
+    private static Object getQualifier(Annotation qualifierAnnotation) {
+        if (qualifierAnnotation == null) {
+            return null;
+        }
+
+        assert qualifierAnnotation.annotationType().isAnnotationPresent(Qualifier.class) :
+                String.format("Annotation %s is not a valid annotation of type %s or one annotated with %s",
+                        qualifierAnnotation, Named.class.getName(), Qualifier.class.getName());
+
+        if (qualifierAnnotation instanceof Named) {
+            Named tempNamedAnnotation = (Named) qualifierAnnotation;
+            assert !(tempNamedAnnotation.value().trim().isEmpty()) :
+                    String.format("Annotation %s cannot have an empty value!", qualifierAnnotation.annotationType());
+            return internName(tempNamedAnnotation.value());
+        }
+        return qualifierAnnotation.annotationType();
+    }
+
+    private static Object getQualifier(Class<? extends Annotation> annotationClass) {
+        if (annotationClass == null) {
+            return null;
         }
+
+        assert annotationClass.isAnnotationPresent(Qualifier.class) :
+                String.format("Annotation class %s is not a valid annotation of type %s or one annotated with %s",
+                        annotationClass.getName(), Named.class.getName(), Qualifier.class.getName());
+        return annotationClass;
+    }
+
+    Class<? extends T> getItemClass() {
+        return itemClass;
+    }
+
+    /**
+     * @return null, the name of a {@link Named} qualifier, the class of any other qualifier annotation or
+     * the provider method of a contribution
+     */
+    Object getQualifier() {
+        return qualifier;
     }
 
     @Override
@@ -63,26 +137,31 @@ public class ItemKey<T> {
         if (!(o instanceof ItemKey)) return false;
         ItemKey<?> itemKey = (ItemKey<?>) o;
 
-        boolean classesEqualCheck = itemClass.equals(itemKey.itemClass);
-
-        boolean annotationEqualsCheck = false;
-
-        if (annotation == null && itemKey.annotation == null) {
-            annotationEqualsCheck = true;
-        } else if (annotation != null && itemKey.annotation != null) {
-            annotationEqualsCheck = annotation.equals(itemKey.annotation);
-        }
-        return classesEqualCheck &&
-                annotationEqualsCheck;
+        //the parts are canonical instances, but for the names which are not interned, so they are compared by
+        //reference first
+        return hash == itemKey.hash &&
+                itemClass == itemKey.itemClass &&
+                (qualifier == itemKey.qualifier
+                        || (qualifier instanceof String && qualifier.equals(itemKey.qualifier)));
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(itemClass, annotation);
+        return hash;
     }
 
     @Override
     public String toString() {
+        String annotation = null;
+        if (qualifier instanceof String) {
+            annotation = String.format(namedAnnotationFormat, Named.class.getName(), qualifier);
+        } else if (qualifier instanceof Method) {
+            Method method = (Method) qualifier;
+            annotation = String.format(contributionFormat, method.getDeclaringClass().getName(), method.getName());
+        } else if (qualifier != null) {
+            annotation = ((Class<?>) qualifier).getName();
+        }
+
         return "ItemKey{" +
                 "itemClass=" + itemClass +
                 ", annotation=" + annotation +
@@ -0,0 +1,107 @@
+package com.github.pikosphere.di;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A {@link PikoDIListener} which emits JDK Flight Recorder events, so that the injector shows up in recordings next
+ * to the rest of the application. The events are named {@code com.github.pikosphere.di.Phase},
+ * {@code com.github.pikosphere.di.Instantiation} and {@code com.github.pikosphere.di.CacheLookup}, the last one is
+ * disabled by default as there is one per lookup of a cached item.
+ * <p>
+ * Needs the {@code jdk.jfr} module, i.e. a JDK 11 or later runtime. This class is only loaded when it is used, so
+ * the injector itself still runs without it.
+ */
+public class JfrPikoDIListener implements PikoDIListener {
+
+    @Override
+    public void onPhase(Phase phase, long durationNanos) {
+        PhaseEvent event = new PhaseEvent();
+        if (event.shouldCommit()) {
+            event.phase = phase.name();
+            event.elapsed = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onInstantiation(ItemKey<?> itemKey, long durationNanos) {
+        commitInstantiation(itemKey, durationNanos, true);
+    }
+
+    @Override
+    public void onInstantiationFailure(ItemKey<?> itemKey, long durationNanos, Throwable error) {
+        commitInstantiation(itemKey, durationNanos, false);
+    }
+
+    @Override
+    public void onCacheLookup(ItemKey<?> itemKey, boolean hit) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        if (event.shouldCommit()) {
+            event.itemKey = itemKey.toString();
+            event.hit = hit;
+            event.commit();
+        }
+    }
+
+    private static void commitInstantiation(ItemKey<?> itemKey, long durationNanos, boolean succeeded) {
+        InstantiationEvent event = new InstantiationEvent();
+        if (event.shouldCommit()) {
+            event.itemKey = itemKey.toString();
+            event.elapsed = durationNanos;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    @Name("com.github.pikosphere.di.Phase")
+    @Label("Injector Build Phase")
+    @Category("PikoDI")
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Elapsed")
+        @Timespan
+        long elapsed;
+    }
+
+    @Name("com.github.pikosphere.di.Instantiation")
+    @Label("Instantiation")
+    @Description("An instance built by a provider, the elapsed time includes resolving its dependencies")
+    @Category("PikoDI")
+    static class InstantiationEvent extends Event {
+
+        @Label("Item Key")
+        String itemKey;
+
+        @Label("Elapsed")
+        @Timespan
+        long elapsed;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("com.github.pikosphere.di.CacheLookup")
+    @Label("Cache Lookup")
+    @Category("PikoDI")
+    @StackTrace(false)
+    @Enabled(false)
+    static class CacheLookupEvent extends Event {
+
+        @Label("Item Key")
+        String itemKey;
+
+        @Label("Hit")
+        boolean hit;
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.pikosphere.di;
+
+/**
+ * A dependency which is only built when it is first asked for, and then remembered.
+ * <p>
+ * A provider method can declare a parameter of type {@code Lazy<T>} instead of {@code T} (with the same qualifier)
+ * to defer building the T until {@link #get()} is called, if ever. Unlike a {@link javax.inject.Provider}, which
+ * resolves T on every call, every {@code Lazy<T>} instance resolves it at most once.
+ */
+@FunctionalInterface
+public interface Lazy<T> {
+
+    T get();
+}
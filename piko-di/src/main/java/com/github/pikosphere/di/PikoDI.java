@@ -1,24 +1,93 @@
 package com.github.pikosphere.di;
 
 
+import com.github.pikosphere.di.PrecompiledInjector.DependencyKind;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.inject.Provider;
 import javax.inject.Qualifier;
+import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Slf4j
-public class PikoDI {
+public class PikoDI implements AutoCloseable {
 
     private static final String ERROR_ON_INJECTOR_BUILD = "Unable to build injector due to error: %s , error data: %s";
 
     private static final String PROVIDER_METHOD_NAME_PREFIX = "provide";
 
+    //the uniform type every provider method is adapted to, so that it can be called with invokeExact
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    //the type every reset hook of a pooled item is adapted to
+    private static final MethodType RESET_TYPE = MethodType.methodType(void.class, Object.class);
+
+    private static final MethodHandle REFLECTIVE_INVOKE;
+
+    private static final MethodHandle PRECOMPILED_FACTORY_CREATE;
+
+    //the factories of the multibound collections, which take the contributions as the resolved dependencies
+    private static final MethodHandle NEW_CONTRIBUTED_SET;
+    private static final MethodHandle NEW_CONTRIBUTED_MAP;
+
+    private static final Object[] NO_PARAMS = new Object[0];
+
+    private static final Duration DEFAULT_CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    static {
+        try {
+            REFLECTIVE_INVOKE = MethodHandles.lookup().findVirtual(Method.class, "invoke",
+                    MethodType.methodType(Object.class, Object.class, Object[].class));
+            PRECOMPILED_FACTORY_CREATE = MethodHandles.publicLookup().findVirtual(PrecompiledInjector.Factory.class,
+                    "create", FACTORY_TYPE);
+            NEW_CONTRIBUTED_SET = MethodHandles.lookup().findStatic(PikoDI.class, "newContributedSet", FACTORY_TYPE);
+            NEW_CONTRIBUTED_MAP = MethodHandles.lookup().findStatic(PikoDI.class, "newContributedMap",
+                    MethodType.methodType(Object.class, String[].class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private static final List<Class> qualifierMandatoryTypes = Arrays.asList(
             String.class,
             Integer.class,
@@ -47,15 +116,180 @@ public class PikoDI {
                 && !(Void.TYPE.isAssignableFrom(returnType)));
     };
 
-    private Set<Item> eligibleItems;
-    private Map<ItemKey, Item> keyToItemMap;
+    /**
+     * The precompiled injectors registered (as services) in the class loader of a module class, which include
+     * that module class. Computed once per module class, without keeping the class loader from being collected.
+     */
+    private static final ClassValue<List<PrecompiledInjector>> precompiledInjectors = new ClassValue<List<PrecompiledInjector>>() {
+        @Override
+        protected List<PrecompiledInjector> computeValue(Class<?> module) {
+            List<PrecompiledInjector> injectors = new ArrayList<>();
+            try {
+                for (PrecompiledInjector injector : ServiceLoader.load(PrecompiledInjector.class, module.getClassLoader())) {
+                    if (injector.getModules().contains(module)) {
+                        injectors.add(injector);
+                    }
+                }
+            } catch (ServiceConfigurationError e) {
+                log.warn("Unable to load the precompiled injectors for module {}, falling back to reflection", module, e);
+                injectors.clear();
+            }
+            return injectors;
+        }
+    };
+
+    /**
+     * The items scanned from the provider methods of a module class. Items are immutable, so they are scanned once
+     * per module class and shared by all the injectors created from it, without keeping the class loader of the
+     * module from being collected.
+     */
+    private static final ClassValue<ModuleScan> moduleScans = new ClassValue<ModuleScan>() {
+        @Override
+        protected ModuleScan computeValue(Class<?> module) {
+            return scanModule(module);
+        }
+    };
 
-    private PikoDI(Set<Item> items) {
-        this.eligibleItems = items;
-        this.keyToItemMap = getKeyToItemMap(items);
+    //the injector a child injector was created from, null for the others. A dependency on an item of the parent
+    //(or one of its ancestors) is the negative id -(i + 1), where i is the index of its compiled key in parentKeys
+    private final PikoDI parent;
+    private final Key<?>[] parentKeys;
+
+    //the modules the items of this injector are scanned from, not including the ones of the parent
+    private final Class[] modules;
+
+    //the resolved graph, indexed by the dense id every item got in the ItemIndex. Lookups hash the ItemKey once
+    //to find the id and then only index into these arrays, all the way down the dependencies
+    private final Item[] items;
+    //the argument resolvers of every item, the id and kind of the dependency for each parameter of its provider
+    private final int[][] dependencyIds;
+    //the dependencies built before an item, i.e. without the Provider and Lazy ones. This graph has no cycles
+    private final int[][] eagerDependencyIds;
+    //the reverse of dependencyIds, the items of this injector depending on every item
+    private final int[][] dependentIds;
+    //the ids in the order of eagerDependencyIds, every item after its dependencies
+    private final int[] topologicalOrder;
+    private final DependencyKind[][] dependencyKinds;
+    private final MethodHandle[] factories;
+
+    //the Provider of every item which is a deferred dependency of another item and null for the rest. A Provider
+    //holds no state of its own, so one instance per item is shared by all its dependents
+    private final Provider<?>[] providers;
+
+    //holders for the items provided by @Singleton provider methods and null for the rest. Neither the array nor
+    //the id map is modified after the constructor, so lookups on them need no synchronization
+    private final SingletonHolder[] singletonHolders;
+
+    //the pools of the items provided by @Pooled provider methods and null for the rest
+    private final Pool[] pools;
+
+    //whether every item is request scoped or depends on a request scoped item, directly or not
+    private final boolean[] requestScopeDependents;
+
+    //like requestScopeDependents, only through the dependencies which are built before the item
+    private final boolean[] eagerRequestScopeDependents;
+
+    //the slot of every @RequestScoped item in the storage of a Scope, and -1 for the rest
+    private final int[] scopeSlots;
+    private final int scopeSlotCount;
+    private final Map<ItemKey, Integer> keyToIdMap;
+
+    //null unless one is registered, so that the lookups only pay for the timing when it is used
+    private final PikoDIListener listener;
+
+    //the time spent in each provider, null unless the injector is built with profiling
+    private final ProviderTimes providerTimes;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    //built on the first call to getDependencyGraph
+    private volatile DependencyGraph dependencyGraph;
+
+    private PikoDI(ItemIndex itemIndex, Class[] modules, PikoDIListener listener, boolean profiling) {
+        this.listener = listener;
+        this.modules = modules == null ? new Class[0] : modules.clone();
+        this.parent = itemIndex.parent;
+        this.parentKeys = itemIndex.parentKeys.toArray(new Key<?>[0]);
+        this.items = itemIndex.items.toArray(new Item[0]);
+        this.dependencyIds = itemIndex.getAdjacency();
+        this.eagerDependencyIds = itemIndex.getEagerAdjacency();
+        this.dependentIds = getDependentIds(dependencyIds);
+        this.topologicalOrder = getTopologicalOrder(eagerDependencyIds);
+        this.dependencyKinds = new DependencyKind[items.length][];
+        this.factories = new MethodHandle[items.length];
+        this.providers = new Provider<?>[items.length];
+        this.singletonHolders = new SingletonHolder[items.length];
+        this.pools = new Pool[items.length];
+        this.scopeSlots = new int[items.length];
+        int scopeSlot = 0;
+        for (int id = 0; id < items.length; id++) {
+            dependencyKinds[id] = new DependencyKind[dependencyIds[id].length];
+            int position = 0;
+            for (Dependency dependency : items[id].dependencies) {
+                dependencyKinds[id][position] = dependency.kind;
+                if (dependency.kind.isDeferred() && dependencyIds[id][position] >= 0
+                        && providers[dependencyIds[id][position]] == null) {
+                    providers[dependencyIds[id][position]] = new InstanceProvider(this, dependencyIds[id][position]);
+                }
+                position++;
+            }
+            factories[id] = items[id].factoryHandle;
+            int previousId = itemIndex.previous == null ? -1 : itemIndex.previousIds[id];
+            if (previousId >= 0) {
+                //provided the same way as in the injector this one swaps modules of, so its instances are kept, and
+                //closed by this injector from now on
+                singletonHolders[id] = itemIndex.previous.singletonHolders[previousId];
+                pools[id] = itemIndex.previous.pools[previousId];
+                if (singletonHolders[id] != null) {
+                    singletonHolders[id].owner = this;
+                }
+                if (pools[id] != null) {
+                    pools[id].owner = this;
+                }
+            } else {
+                if (items[id].singleton) {
+                    singletonHolders[id] = new SingletonHolder(this);
+                }
+                if (items[id].pooling != null) {
+                    pools[id] = new Pool(items[id].pooling, this);
+                }
+            }
+            scopeSlots[id] = items[id].requestScoped ? scopeSlot++ : -1;
+        }
+        this.scopeSlotCount = scopeSlot;
+        this.requestScopeDependents = getRequestScopeDependents(itemIndex, false);
+        this.eagerRequestScopeDependents = getRequestScopeDependents(itemIndex, true);
+        this.keyToIdMap = itemIndex.keyToIdMap;
+        this.providerTimes = profiling ? new ProviderTimes(items.length) : null;
     }
 
     public static PikoDI create(Class... modules) {
+        return create(null, false, null, modules);
+    }
+
+    /**
+     * @return a builder for an injector with options, like a {@link PikoDIListener}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static PikoDI create(PikoDIListener listener, boolean profiling, ForkJoinPool scanPool,
+                                 Class... modules) {
+        long start = startPhase(listener);
+
+        //Use the injector generated at compile time for exactly these modules if there is one, it is already validated
+        Optional<PrecompiledInjector> precompiledInjectorOption = findPrecompiledInjector(modules);
+
+        if (precompiledInjectorOption.isPresent()) {
+            ItemIndex itemIndex = new ItemIndex(getItemsForPrecompiledInjector(precompiledInjectorOption.get()));
+            endPhase(listener, PikoDIListener.Phase.SCAN, start);
+            return new PikoDI(itemIndex, modules, listener, profiling);
+        }
+
+        if (scanPool != null) {
+            scanModulesInParallel(modules, scanPool);
+        }
 
         //Find the eligible classes from the set of provided ones
         //Ignores the Classes without any public static methods
@@ -65,32 +299,270 @@ public class PikoDI {
 
             //We will be here if there are some eligible module classes
 
-            //Sort the items into ones with duplicate and not duplicates
-            Map<ItemCategory, Set<Item>> categorizedItemMap = sortUniqueItems(eligibleClassesOption.get());
+            //Scan the items from the classes and sort them into the ones depending on themselves and the rest
+            Map<ItemCategory, List<Item>> scannedItemMap = scanItems(eligibleClassesOption.get(), listener);
+
+            //Index the items by their keys once, all the validation phases below work on this index
+            ItemIndex itemIndex = new ItemIndex(scannedItemMap.get(ItemCategory.ELIGIBLE_ITEMS));
+            endPhase(listener, PikoDIListener.Phase.SCAN, start);
+
+            validate(scannedItemMap, itemIndex, listener);
+
+            //return the PikoDI instance with the final set of Items
+            return new PikoDI(itemIndex, modules, listener, profiling);
+        } else {
+            endPhase(listener, PikoDIListener.Phase.SCAN, start);
+            return new PikoDI(new ItemIndex(Collections.emptyList()), modules, listener, profiling);
+        }
+    }
 
-            //throw Exception if there are any duplicate items with contextual data in the exception
-            throwErrorOnInEligibleItems(categorizedItemMap, ErrorType.DUPLICATE_ITEMS);
+    private static PikoDI createWithSnapshot(Path snapshotFile, PikoDIListener listener, boolean profiling,
+                                             ForkJoinPool scanPool, Class... modules) {
+        Optional<byte[]> fingerprint = Snapshot.getFingerprint(modules);
+        if (!fingerprint.isPresent()) {
+            return create(listener, profiling, scanPool, modules);
+        }
 
-            Map<ItemCategory, Set<Item>> eligibleIdentifiableItemMap = sortValidIdentifiableItems(categorizedItemMap.get(ItemCategory.ELIGIBLE_ITEMS));
+        long start = startPhase(listener);
+        Optional<ItemIndex> snapshotIndex = Snapshot.read(snapshotFile, fingerprint.get(), modules);
+        if (snapshotIndex.isPresent()) {
+            //the graph in the snapshot is already validated
+            endPhase(listener, PikoDIListener.Phase.SCAN, start);
+            return new PikoDI(snapshotIndex.get(), modules, listener, profiling);
+        }
 
-            //throw Exception if there are any item with improper identifiers
-            throwErrorOnInEligibleItems(eligibleIdentifiableItemMap, ErrorType.INVALID_IDENTIFIER);
+        PikoDI pikoDI = create(listener, profiling, scanPool, modules);
+        Snapshot.write(snapshotFile, fingerprint.get(), modules, pikoDI);
+        return pikoDI;
+    }
 
-            Set<ItemKey> itemKeysWithNoProviders = findItemKeysWithNoProviders(eligibleIdentifiableItemMap.get(ItemCategory.ELIGIBLE_ITEMS));
+    /**
+     * Creates an injector for the given modules on top of this one. Only the items of the given modules are
+     * scanned and validated, the keys they depend on which they do not provide themselves are looked up in this
+     * injector (and its ancestors), so building a child costs in proportion to its own modules.
+     * <p>
+     * The child shares the items of this injector, including their singleton instances. It can also provide keys
+     * this injector provides, which overrides them for lookups through the child and for the items of the child,
+     * but not for the items of this injector, which keep resolving within it.
+     */
+    public PikoDI createChild(Class... modules) {
+        long start = startPhase(listener);
+        Optional<Set<Class>> eligibleClassesOption = getEligibleClasses(modules);
 
-            throwErrorOnItemKeys(itemKeysWithNoProviders, ErrorType.NO_PROVIDERS);
+        if (eligibleClassesOption.isPresent() && !eligibleClassesOption.get().isEmpty()) {
+            Map<ItemCategory, List<Item>> scannedItemMap = scanItems(eligibleClassesOption.get(), listener);
 
+            //index the new items only, with this injector to fall back on for the keys they do not provide
+            ItemIndex itemIndex = new ItemIndex(scannedItemMap.get(ItemCategory.ELIGIBLE_ITEMS), this);
+            endPhase(listener, PikoDIListener.Phase.SCAN, start);
 
-            Map<ItemCategory, Set<Item>> cyclicItemMap = sortItemsWithCycles(eligibleIdentifiableItemMap.get(ItemCategory.ELIGIBLE_ITEMS));
+            validate(scannedItemMap, itemIndex, listener);
 
-            //throw Exception if there are any cyclic items with contextual data in the exception
-            throwErrorOnInEligibleItems(cyclicItemMap, ErrorType.CYCLIC_DEPENDENCY_ITEMS);
+            return new PikoDI(itemIndex, modules, listener, providerTimes != null);
+        } else {
+            endPhase(listener, PikoDIListener.Phase.SCAN, start);
+            return new PikoDI(new ItemIndex(Collections.emptyList(), this), modules, listener, providerTimes != null);
+        }
+    }
 
-            //return the PikoDI instance with the final set of Items
-            return new PikoDI(cyclicItemMap.get(ItemCategory.ELIGIBLE_ITEMS));
+    /**
+     * Creates an injector with the given module of this injector replaced, see {@link #swapModules(Class[])}.
+     *
+     * @throws IllegalArgumentException if the module is not one of the modules of this injector
+     */
+    public PikoDI replaceModule(Class module, Class replacement) {
+        List<Class> newModules = new ArrayList<>(Arrays.asList(modules));
+        int position = newModules.indexOf(module);
+        if (position < 0) {
+            throw new IllegalArgumentException(String.format("Module %s is not one of the modules %s of the injector",
+                    module, newModules));
+        }
+        newModules.set(position, replacement);
+        return swapModules(newModules.toArray(new Class[0]));
+    }
+
+    /**
+     * Creates an injector with the given modules added to the ones of this injector, see
+     * {@link #swapModules(Class[])}.
+     */
+    public PikoDI addModules(Class... addedModules) {
+        List<Class> newModules = new ArrayList<>(Arrays.asList(modules));
+        newModules.addAll(Arrays.asList(addedModules));
+        return swapModules(newModules.toArray(new Class[0]));
+    }
+
+    /**
+     * Creates an injector for the given modules which carries over what it can from this injector. The modules
+     * kept are not scanned again (see {@link #moduleScans}), and only the items which changed, and the ones which
+     * depended on the keys no longer provided, are validated again.
+     * <p>
+     * The new injector shares the cached instances (singletons and pools) of this injector, except the ones of the
+     * items which changed and of the items depending on them, directly or not, which are built again on their next
+     * lookup. This injector is left as it is, so the new graph is published by replacing the reference to the
+     * injector (e.g. in a volatile field or an AtomicReference): callers see either the whole old graph or the whole
+     * new one.
+     * <p>
+     * The shared instances move to the new injector, which closes them, while closing this injector only closes
+     * the instances which are not shared, so this one can be closed once the new one is published.
+     */
+    public PikoDI swapModules(Class... newModules) {
+        long start = startPhase(listener);
+        Optional<Set<Class>> eligibleClassesOption = getEligibleClasses(newModules);
+
+        Map<ItemCategory, List<Item>> scannedItemMap;
+        if (eligibleClassesOption.isPresent() && !eligibleClassesOption.get().isEmpty()) {
+            scannedItemMap = scanItems(eligibleClassesOption.get(), listener);
         } else {
-            return new PikoDI(Collections.EMPTY_SET);
+            scannedItemMap = new EnumMap<>(ItemCategory.class);
+            scannedItemMap.put(ItemCategory.ELIGIBLE_ITEMS, Collections.emptyList());
+            scannedItemMap.put(ItemCategory.IN_ELIGIBLE_ITEMS, Collections.emptyList());
+        }
+        ItemIndex itemIndex = new ItemIndex(scannedItemMap.get(ItemCategory.ELIGIBLE_ITEMS), parent);
+        int size = itemIndex.items.size();
+
+        //the id in this injector of every item which is provided the same way, -1 for the items which changed
+        int[] previousIds = new int[size];
+        List<Integer> affectedIds = new ArrayList<>();
+        for (int id = 0; id < size; id++) {
+            Item item = itemIndex.items.get(id);
+            Integer previousId = keyToIdMap.get(item.ownItemKey);
+            if (previousId != null && items[previousId].isSameProvisionAs(item)) {
+                previousIds[id] = previousId;
+            } else {
+                previousIds[id] = -1;
+                affectedIds.add(id);
+            }
+        }
+
+        //the items depending on the keys no longer provided have to find other providers for them
+        for (int previousId = 0; previousId < items.length; previousId++) {
+            if (itemIndex.contains(items[previousId].ownItemKey)) {
+                continue;
+            }
+            for (int dependentId : dependentIds[previousId]) {
+                Integer id = itemIndex.keyToIdMap.get(items[dependentId].ownItemKey);
+                if (id != null && previousIds[id] >= 0) {
+                    affectedIds.add(id);
+                }
+            }
+        }
+        endPhase(listener, PikoDIListener.Phase.SCAN, start);
+
+        validate(scannedItemMap, itemIndex, affectedIds.stream().mapToInt(Integer::intValue).distinct().toArray(),
+                listener);
+
+        //the cached instances of the changed items and of their (transitive) dependents are not carried over
+        int[][] newDependentIds = getDependentIds(itemIndex.getAdjacency());
+        Deque<Integer> invalidatedIds = new ArrayDeque<>();
+        for (int id = 0; id < size; id++) {
+            if (previousIds[id] < 0) {
+                invalidatedIds.add(id);
+            }
+        }
+        while (!invalidatedIds.isEmpty()) {
+            for (int dependentId : newDependentIds[invalidatedIds.poll()]) {
+                if (previousIds[dependentId] >= 0) {
+                    previousIds[dependentId] = -1;
+                    invalidatedIds.add(dependentId);
+                }
+            }
+        }
+
+        itemIndex.previous = this;
+        itemIndex.previousIds = previousIds;
+        return new PikoDI(itemIndex, newModules, listener, providerTimes != null);
+    }
+
+    /**
+     * Runs all the validation phases on the scanned and indexed items, throws an {@link Exception} for the first
+     * one which fails.
+     */
+    private static void validate(Map<ItemCategory, List<Item>> scannedItemMap, ItemIndex itemIndex,
+                                 PikoDIListener listener) {
+        validate(scannedItemMap, itemIndex, IntStream.range(0, itemIndex.items.size()).toArray(), listener);
+    }
+
+    /**
+     * Like {@link #validate(Map, ItemIndex, PikoDIListener)}, but only checks the identifiers, the providers and
+     * the cycles of the given items, all the others being known to be valid. Duplicates are always checked, as
+     * indexing the items finds them, and so are the scopes of the cached items.
+     */
+    private static void validate(Map<ItemCategory, List<Item>> scannedItemMap, ItemIndex itemIndex, int[] ids,
+                                 PikoDIListener listener) {
+        long start = startPhase(listener);
+
+        //throw Exception if there are any duplicate (or self dependent) items with contextual data in the exception
+        List<Item> duplicateItems = new ArrayList<>(scannedItemMap.get(ItemCategory.IN_ELIGIBLE_ITEMS));
+        duplicateItems.addAll(itemIndex.duplicateItems);
+        start = endPhase(listener, PikoDIListener.Phase.DUPLICATES, start);
+        throwErrorOnInEligibleItems(duplicateItems, ErrorType.DUPLICATE_ITEMS);
+
+        //throw Exception if there are any item with improper identifiers
+        List<Item> itemsWithInvalidIdentifiers = findItemsWithInvalidIdentifiers(itemIndex, ids);
+        start = endPhase(listener, PikoDIListener.Phase.IDENTIFIERS, start);
+        throwErrorOnInEligibleItems(itemsWithInvalidIdentifiers, ErrorType.INVALID_IDENTIFIER);
+
+        Set<ItemKey> itemKeysWithNoProviders = findItemKeysWithNoProviders(itemIndex, ids);
+        start = endPhase(listener, PikoDIListener.Phase.MISSING_PROVIDERS, start);
+
+        throwErrorOnItemKeys(itemKeysWithNoProviders, ErrorType.NO_PROVIDERS);
+
+        List<List<ItemKey>> cyclicDependencyPaths = findCyclicDependencyPaths(itemIndex, ids);
+        start = endPhase(listener, PikoDIListener.Phase.CYCLES, start);
+
+        //throw Exception if there are any cyclic items with the cycles as contextual data in the exception
+        throwErrorOnCyclicDependencies(cyclicDependencyPaths);
+
+        Set<ItemKey> cachedItemKeysInRequestScope = findCachedItemsInRequestScope(itemIndex);
+        endPhase(listener, PikoDIListener.Phase.SCOPES, start);
+
+        throwErrorOnItemKeys(cachedItemKeysInRequestScope, ErrorType.SCOPE_MISMATCH);
+    }
+
+    private static long startPhase(PikoDIListener listener) {
+        return listener == null ? 0L : System.nanoTime();
+    }
+
+    /**
+     * Reports the phase started at the given time to the listener, if any
+     *
+     * @return the start of the next phase
+     */
+    private static long endPhase(PikoDIListener listener, PikoDIListener.Phase phase, long start) {
+        if (listener == null) {
+            return 0L;
+        }
+        long end = System.nanoTime();
+        listener.onPhase(phase, end - start);
+        return end;
+    }
+
+    private static Optional<PrecompiledInjector> findPrecompiledInjector(Class[] modules) {
+        if (modules == null || modules.length == 0 || modules[0] == null) {
+            return Optional.empty();
+        }
+
+        Set<Class> moduleSet = new HashSet<>(Arrays.asList(modules));
+        for (PrecompiledInjector injector : precompiledInjectors.get(modules[0])) {
+            if (moduleSet.equals(new HashSet<>(injector.getModules()))) {
+                log.debug("Using precompiled injector {} for modules {}", injector.getClass().getName(), moduleSet);
+                return Optional.of(injector);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static List<Item> getItemsForPrecompiledInjector(PrecompiledInjector injector) {
+        List<Item> items = new ArrayList<>();
+        for (PrecompiledInjector.Provision provision : injector.getProvisions()) {
+            MethodHandle factoryHandle = PRECOMPILED_FACTORY_CREATE.bindTo(provision.getFactory());
+            Dependency[] dependencies = new Dependency[provision.getDependencyKeys().size()];
+            for (int i = 0; i < dependencies.length; i++) {
+                dependencies[i] = new Dependency(provision.getDependencyKeys().get(i), provision.getDependencyKinds().get(i));
+            }
+            items.add(new Item(provision.getItemKey(), dependencies, factoryHandle, provision.isSingleton(), provision.isAsync()));
         }
+        return items;
     }
 
     private static void throwErrorOnItemKeys(Set<ItemKey> itemKeysWithNoProviders, ErrorType errorType) {
@@ -104,65 +576,100 @@ public class PikoDI {
         }
     }
 
-    private static Set<ItemKey> findItemKeysWithNoProviders(Set<Item> items) {
-        Set<ItemKey> allDeps = getAllDependencies(items);
-        return getItemkeysWithNoProviders(allDeps, items);
-    }
-
-    private static Set<ItemKey> getItemkeysWithNoProviders(Set<ItemKey> allDeps, Set<Item> items) {
-        Set<ItemKey> itemKeysWithNoProviders = new HashSet<>();
+    private static Set<ItemKey> findItemKeysWithNoProviders(ItemIndex itemIndex, int[] ids) {
+        Set<ItemKey> itemKeysWithNoProviders = new LinkedHashSet<>();
 
-        for (ItemKey itemKey : allDeps) {
-            boolean hasProvider = false;
-            for (Item item : items) {
-                if (item.ownItemKey.equals(itemKey)) {
-                    hasProvider = true;
-                    break;
+        for (int id : ids) {
+            Item item = itemIndex.items.get(id);
+            //deferred dependencies need a provider as much as the others do
+            for (Dependency dependency : item.dependencies) {
+                if (!itemIndex.isProvided(dependency.itemKey)) {
+                    itemKeysWithNoProviders.add(dependency.itemKey);
                 }
             }
-
-            if (!hasProvider) {
-                itemKeysWithNoProviders.add(itemKey);
-            }
         }
 
         return itemKeysWithNoProviders;
     }
 
-    private static Set<ItemKey> getAllDependencies(Set<Item> items) {
-        Set<ItemKey> allDeps = new HashSet<>();
-        for (Item item : items) {
-            if (item.dependentItemKeys != null && !item.dependentItemKeys.isEmpty()) {
-                allDeps.addAll(item.dependentItemKeys);
+    /**
+     * Finds the cached items which would keep the request scoped instances of the scope they were built in:
+     * <ul>
+     * <li>the pooled items which depend on a request scoped item, directly or not and through any kind of
+     * dependency, as their instances go back to the pool and are handed to other borrowers</li>
+     * <li>the singletons which depend on a request scoped item through dependencies built before them, directly or
+     * not, as their instances are shared by every scope. A {@link Provider} or {@link Lazy} of the request scoped
+     * item is resolved when it is called instead.</li>
+     * </ul>
+     * All the items are checked, as a change to any item can bring a request scoped one under a cached one.
+     */
+    private static Set<ItemKey> findCachedItemsInRequestScope(ItemIndex itemIndex) {
+        Set<ItemKey> cachedItemKeys = new LinkedHashSet<>();
+
+        boolean[] requestScopeDependents = getRequestScopeDependents(itemIndex, false);
+        boolean[] eagerRequestScopeDependents = getRequestScopeDependents(itemIndex, true);
+        for (int id = 0; id < requestScopeDependents.length; id++) {
+            Item item = itemIndex.items.get(id);
+            if ((item.pooling != null && requestScopeDependents[id])
+                    || (item.singleton && eagerRequestScopeDependents[id])) {
+                cachedItemKeys.add(item.ownItemKey);
             }
         }
 
-        return allDeps;
+        return cachedItemKeys;
     }
 
-    private static Map<ItemCategory, Set<Item>> sortValidIdentifiableItems(Set<Item> items) {
-        Set<Item> eligibleItems = new HashSet<>();
-        Set<Item> inEligibleItems = new HashSet<>();
+    /**
+     * @param eager whether to only follow the dependencies which are built before the item
+     * @return for every indexed item, whether it is request scoped or depends on a request scoped item (of this
+     * index or of the parent injectors), directly or not and through any kind of dependency, or only the eager ones
+     */
+    private static boolean[] getRequestScopeDependents(ItemIndex itemIndex, boolean eager) {
+        int[][] adjacency = eager ? itemIndex.getEagerAdjacency() : itemIndex.getAdjacency();
+        boolean[] requestScopeDependents = new boolean[adjacency.length];
+        Deque<Integer> queue = new ArrayDeque<>();
+
+        for (int id = 0; id < adjacency.length; id++) {
+            boolean dependent = itemIndex.items.get(id).requestScoped;
+            for (int dependencyId : adjacency[id]) {
+                if (dependencyId < 0) {
+                    Key<?> parentKey = itemIndex.parentKeys.get(-dependencyId - 1);
+                    dependent |= eager ? parentKey.pikoDI.eagerRequestScopeDependents[parentKey.id]
+                            : parentKey.pikoDI.requestScopeDependents[parentKey.id];
+                }
+            }
+            if (dependent) {
+                requestScopeDependents[id] = true;
+                queue.add(id);
+            }
+        }
 
-        for (Item item : items) {
-            if (hasValidIdentifier(item)) {
-                eligibleItems.add(item);
-            } else {
-                inEligibleItems.add(item);
+        //the dependents of a request scope dependent are too, which also goes through the cycles broken by a
+        //Provider or Lazy when following every dependency, as every item is only queued once
+        int[][] dependentIds = getDependentIds(adjacency);
+        while (!queue.isEmpty()) {
+            for (int dependentId : dependentIds[queue.poll()]) {
+                if (!requestScopeDependents[dependentId]) {
+                    requestScopeDependents[dependentId] = true;
+                    queue.add(dependentId);
+                }
             }
         }
 
-        Map<ItemCategory, Set<Item>> itemCategorySetMap = new HashMap<>();
+        return requestScopeDependents;
+    }
 
-        if (!eligibleItems.isEmpty()) {
-            itemCategorySetMap.put(ItemCategory.ELIGIBLE_ITEMS, eligibleItems);
-        }
+    private static List<Item> findItemsWithInvalidIdentifiers(ItemIndex itemIndex, int[] ids) {
+        List<Item> inEligibleItems = new ArrayList<>();
 
-        if (!inEligibleItems.isEmpty()) {
-            itemCategorySetMap.put(ItemCategory.IN_ELIGIBLE_ITEMS, inEligibleItems);
+        for (int id : ids) {
+            Item item = itemIndex.items.get(id);
+            if (!hasValidIdentifier(item)) {
+                inEligibleItems.add(item);
+            }
         }
 
-        return itemCategorySetMap;
+        return inEligibleItems;
     }
 
     private static boolean hasValidIdentifier(Item newItem) {
@@ -171,6 +678,27 @@ public class PikoDI {
         Class itemClass = newItem.itemClass;
         Annotation qualifierAnnotation = newItem.qualifierAnnotation;
 
+        // 2. a contribution to a collection has a qualifier, which names the collection
+        if (newItem.contribution != null && qualifierAnnotation == null) {
+            log.warn("Item type {} from provider method {}.{} is contributed to a {} and requires a qualifier annotation {} or derivatives naming it",
+                    itemClass,
+                    newItem.factoryMethod.getDeclaringClass(),
+                    newItem.factoryMethod.getName(),
+                    newItem.contribution.collectionClass,
+                    Qualifier.class);
+            return false;
+        }
+
+        // 3. the reset hook of a pooled item is a method of its module which takes the item
+        if (newItem.pooling != null && newItem.pooling.reset == null && !newItem.pooling.resetName.isEmpty()) {
+            log.warn("Item type {} from provider method {}.{} is pooled with the reset hook {}, which is not a public static void method of the module taking the item",
+                    itemClass,
+                    newItem.factoryMethod.getDeclaringClass(),
+                    newItem.factoryMethod.getName(),
+                    newItem.pooling.resetName);
+            return false;
+        }
+
         //validating rule 1 mentioned above
         if (isQualifierMandatoryType(itemClass) && (qualifierAnnotation == null)) {
 
@@ -185,211 +713,284 @@ public class PikoDI {
         return true;
     }
 
-    private static Map<ItemCategory, Set<Item>> sortItemsWithCycles(Set<Item> items) {
-        Map<ItemCategory, Set<Item>> finalItemMap = new HashMap<>();
+    private static void throwErrorOnCyclicDependencies(List<List<ItemKey>> cyclicDependencyPaths) {
+        if (cyclicDependencyPaths != null && !cyclicDependencyPaths.isEmpty()) {
+            ErrorType errorType = ErrorType.CYCLIC_DEPENDENCY_ITEMS;
+            String message = String.format(ERROR_ON_INJECTOR_BUILD, errorType.toString(), cyclicDependencyPaths);
+            String errorCode = errorType.name();
+            Map<String, Object> errorData = new HashMap<>();
+            errorData.put(errorCode, cyclicDependencyPaths);
+            throw new Exception(message, errorCode, errorData);
+        }
+    }
 
+    /**
+     * Finds the dependency cycles amongst the given items in a single O(V+E) pass.
+     * <p>
+     * Only the dependencies which are built up front are followed, so a cycle broken by a {@link Provider} or
+     * {@link Lazy} dependency is allowed. Every strongly connected component with more than one item is a cycle
+     * (self dependencies are already rejected while scanning). For each of them one dependency path is reported,
+     * which starts and ends with the same key, e.g. [A, B, C, A].
+     * <p>
+     * Only the cycles reachable from the given items are found, which are all of them when the other items are
+     * known not to be part of one.
+     */
+    private static List<List<ItemKey>> findCyclicDependencyPaths(ItemIndex itemIndex, int[] ids) {
+        List<List<ItemKey>> cyclicDependencyPaths = new ArrayList<>();
 
-        Map<ItemKey, Item> keyToItemMap = getKeyToItemMap(items);
+        int[][] adjacency = itemIndex.getEagerAdjacency();
 
-        for (Item item : items) {
-            List<ItemKey> visitedItemKeyList = new ArrayList<>();
-            //add the current item to the list first
-            visitedItemKeyList.add(item.ownItemKey);
-            Set<ItemKey> resolvedDependenciesForItem = getResolvedDependenciesForItem(item, items, keyToItemMap, visitedItemKeyList);
-
-            if (resolvedDependenciesForItem.contains(item.ownItemKey)) {
-                //if this happens we have a cycle
-                Set<Item> inEligibleItems;
-                if (finalItemMap.containsKey(ItemCategory.IN_ELIGIBLE_ITEMS)) {
-                    inEligibleItems = finalItemMap.get(ItemCategory.IN_ELIGIBLE_ITEMS);
-                } else {
-                    inEligibleItems = new LinkedHashSet<>();
-                }
-                inEligibleItems.add(item);
-                finalItemMap.put(ItemCategory.IN_ELIGIBLE_ITEMS, inEligibleItems);
-            } else {
-                Set<Item> eligibleItems;
-                if (finalItemMap.containsKey(ItemCategory.ELIGIBLE_ITEMS)) {
-                    eligibleItems = finalItemMap.get(ItemCategory.ELIGIBLE_ITEMS);
-                } else {
-                    eligibleItems = new LinkedHashSet<>();
+        for (int[] component : getStronglyConnectedComponents(adjacency, ids)) {
+            if (component.length > 1) {
+                List<ItemKey> cyclicDependencyPath = new ArrayList<>();
+                for (int id : getCyclePath(adjacency, component)) {
+                    cyclicDependencyPath.add(itemIndex.items.get(id).ownItemKey);
                 }
-                eligibleItems.add(item);
-                finalItemMap.put(ItemCategory.ELIGIBLE_ITEMS, eligibleItems);
+                cyclicDependencyPaths.add(cyclicDependencyPath);
             }
         }
 
+        return cyclicDependencyPaths;
+    }
 
-        return finalItemMap;
+    /**
+     * Iterative Tarjan's algorithm, so that deep dependency chains do not overflow the stack. Negative ids (items
+     * of a parent injector) are ignored.
+     * The components are returned in reverse topological order, i.e. a component comes after all the
+     * components it depends on.
+     */
+    private static List<int[]> getStronglyConnectedComponents(int[][] adjacency) {
+        return getStronglyConnectedComponents(adjacency, IntStream.range(0, adjacency.length).toArray());
     }
 
-    private static Map<ItemKey, Item> getKeyToItemMap(Set<Item> items) {
-        Map<ItemKey, Item> keyItemMap = new HashMap<>();
-        if (items != null && !items.isEmpty()) {
-            for (Item item : items) {
-                keyItemMap.put(item.ownItemKey, item);
+    /**
+     * Like {@link #getStronglyConnectedComponents(int[][])}, for the components reachable from the given roots.
+     */
+    private static List<int[]> getStronglyConnectedComponents(int[][] adjacency, int[] roots) {
+        int size = adjacency.length;
+        int[] index = new int[size];
+        int[] lowLink = new int[size];
+        int[] edgeCursor = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] componentStack = new int[size];
+        int[] dfsStack = new int[size];
+        int componentStackSize = 0;
+        int nextIndex = 1;
+
+        List<int[]> components = new ArrayList<>();
+
+        for (int root : roots) {
+            if (index[root] != 0) {
+                continue;
             }
-        }
 
-        return keyItemMap;
-    }
+            int dfsStackSize = 0;
+            dfsStack[dfsStackSize++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            componentStack[componentStackSize++] = root;
+            onStack[root] = true;
 
-    private static Set<ItemKey> getResolvedDependenciesForItem(Item item, Set<Item> items, Map<ItemKey, Item> keyToItemMap, List<ItemKey> visitedItemKeys) {
-        Set<ItemKey> resolvedDependenciesForItem = new LinkedHashSet<>();
-        if (item.dependentItemKeys != null && !item.dependentItemKeys.isEmpty()) {
-            for (ItemKey dependentItemKey : item.dependentItemKeys) {
+            while (dfsStackSize > 0) {
+                int node = dfsStack[dfsStackSize - 1];
 
-                //check if there is a cycle
-                if (visitedItemKeys.contains(dependentItemKey)) {
-                    Map<String, Object> data = new HashMap<>();
-                    String errorCode = ErrorType.CYCLIC_DEPENDENCY_ITEMS.name();
-                    String message = String.format("Cyclic dependency identified for key %s", dependentItemKey);
-                    List<ItemKey> newCyclicDepList = new ArrayList<>(visitedItemKeys);
-                    //add the key with the cycle as well
-                    newCyclicDepList.add(dependentItemKey);
-                    data.put(errorCode, newCyclicDepList);
-                    throw new PikoDI.Exception(message, errorCode, data);
-                }
+                if (edgeCursor[node] < adjacency[node].length) {
+                    int next = adjacency[node][edgeCursor[node]++];
+                    if (next < 0) {
+                        //an item of the parent injector, which cannot depend back on this one's items
+                        continue;
+                    }
+                    if (index[next] == 0) {
+                        //not visited yet, so descend into it
+                        index[next] = lowLink[next] = nextIndex++;
+                        componentStack[componentStackSize++] = next;
+                        onStack[next] = true;
+                        dfsStack[dfsStackSize++] = next;
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                } else {
+                    //all the edges of the node are done
+                    dfsStackSize--;
+                    if (dfsStackSize > 0) {
+                        int parent = dfsStack[dfsStackSize - 1];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
 
-                Item dependentItem = keyToItemMap.get(dependentItemKey);
-                visitedItemKeys.add(dependentItemKey);
-                Set<ItemKey> resolvedDependenciesForDepItem = getResolvedDependenciesForItem(dependentItem, items, keyToItemMap, visitedItemKeys);
-                //just add the dependentkey to this resolved list
-                resolvedDependenciesForDepItem.add(dependentItemKey);
+                    if (lowLink[node] == index[node]) {
+                        //node is the root of a component, pop it off the stack
+                        int componentStart = componentStackSize;
+                        do {
+                            componentStart--;
+                            onStack[componentStack[componentStart]] = false;
+                        } while (componentStack[componentStart] != node);
 
-                //then add this to the main set and continue to the next dep key
-                resolvedDependenciesForItem.addAll(resolvedDependenciesForDepItem);
+                        components.add(Arrays.copyOfRange(componentStack, componentStart, componentStackSize));
+                        componentStackSize = componentStart;
+                    }
+                }
             }
-
         }
-        return resolvedDependenciesForItem;
-    }
 
-    private static void throwErrorOnInEligibleItems(Map<ItemCategory, Set<Item>> categorizedItemMap,
-                                                    ErrorType errorType) {
-        if (categorizedItemMap.containsKey(ItemCategory.IN_ELIGIBLE_ITEMS)) {
-            Set<Item> itemSet = categorizedItemMap.get(ItemCategory.IN_ELIGIBLE_ITEMS);
+        return components;
+    }
 
-            if (itemSet != null && !itemSet.isEmpty()) {
-                String message = String.format(ERROR_ON_INJECTOR_BUILD, errorType.toString(), itemSet);
-                String errorCode = errorType.name();
-                Map<String, Object> errorData = new HashMap<>();
-                errorData.put(errorCode, itemSet);
-                throw new Exception(message, errorCode, errorData);
+    /**
+     * @return the ids of the given acyclic graph in topological order, i.e. every id comes after all the ids it
+     * depends on
+     */
+    private static int[] getTopologicalOrder(int[][] adjacency) {
+        int[] order = new int[adjacency.length];
+        int position = 0;
+        for (int[] component : getStronglyConnectedComponents(adjacency)) {
+            for (int id : component) {
+                order[position++] = id;
             }
         }
+        return order;
     }
 
-    private static Map<ItemCategory, Set<Item>> sortUniqueItems(Set<Class> eligibleClasses) {
-        Map<ItemCategory, Set<Item>> itemCategorySetMap = new HashMap<>();
-        if (eligibleClasses != null && !eligibleClasses.isEmpty()) {
-            for (Class clz : eligibleClasses) {
-                //for each class get the items
-                Map<ItemCategory, Set<Item>> categorizedMap = getItemMapForClass(clz);
-
-                Set<Item> newIneligibleItems = null;
-
-                if (categorizedMap.containsKey(ItemCategory.ELIGIBLE_ITEMS)) {
-                    Set<Item> eligibleSet;
-                    if (itemCategorySetMap.containsKey(ItemCategory.ELIGIBLE_ITEMS)) {
-                        eligibleSet = itemCategorySetMap.get(ItemCategory.ELIGIBLE_ITEMS);
-                    } else {
-                        eligibleSet = new HashSet<>();
-                    }
-
-                    Set<Item> newEligibleItems = categorizedMap.get(ItemCategory.ELIGIBLE_ITEMS);
-
-                    Map<ItemCategory, Set<Item>> uniqueItemsMap = getComparativeEligibleItemMap(newEligibleItems, eligibleSet);
+    /**
+     * Finds the shortest cycle through the first node of the (cyclic) component with a breadth first search
+     * restricted to the component, returned as [first, ..., first].
+     */
+    private static List<Integer> getCyclePath(int[][] adjacency, int[] component) {
+        Set<Integer> componentNodes = new HashSet<>();
+        for (int node : component) {
+            componentNodes.add(node);
+        }
 
-                    if (uniqueItemsMap.containsKey(ItemCategory.IN_ELIGIBLE_ITEMS) && !uniqueItemsMap.get(ItemCategory.IN_ELIGIBLE_ITEMS).isEmpty()) {
-                        newIneligibleItems = uniqueItemsMap.get(ItemCategory.IN_ELIGIBLE_ITEMS);
-                    } else {
-                        //add the new eligible items to the existing ones
-                        eligibleSet.addAll(uniqueItemsMap.get(ItemCategory.ELIGIBLE_ITEMS));
-                        itemCategorySetMap.put(ItemCategory.ELIGIBLE_ITEMS, eligibleSet);
-                    }
+        int start = component[0];
+        Map<Integer, Integer> predecessors = new HashMap<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+
+        //the node through which the search got back to the start
+        int last = -1;
+        while (last < 0 && !queue.isEmpty()) {
+            int node = queue.poll();
+            for (int next : adjacency[node]) {
+                if (next == start) {
+                    last = node;
+                    break;
                 }
-
-                if (categorizedMap.containsKey(ItemCategory.IN_ELIGIBLE_ITEMS)) {
-                    Set<Item> inEligibleSet;
-                    if (itemCategorySetMap.containsKey(ItemCategory.IN_ELIGIBLE_ITEMS)) {
-                        inEligibleSet = itemCategorySetMap.get(ItemCategory.IN_ELIGIBLE_ITEMS);
-                    } else {
-                        inEligibleSet = new HashSet<>();
-                    }
-                    inEligibleSet.addAll(categorizedMap.get(ItemCategory.IN_ELIGIBLE_ITEMS));
-                    if (newIneligibleItems != null && !newIneligibleItems.isEmpty()) {
-                        //add the ineligible items from the eligible set here
-                        inEligibleSet.addAll(categorizedMap.get(ItemCategory.IN_ELIGIBLE_ITEMS));
-                    }
-                    itemCategorySetMap.put(ItemCategory.IN_ELIGIBLE_ITEMS, inEligibleSet);
-                } else {
-                    //Though the original map for a given class did not have in eligible items, we should on inbetween
-                    //just add the new ineligible set to a new set
-                    if (newIneligibleItems != null && !newIneligibleItems.isEmpty()) {
-                        //add the ineligible items from the eligible set here
-                        itemCategorySetMap.put(ItemCategory.IN_ELIGIBLE_ITEMS, newIneligibleItems);
-                    }
+                if (next >= 0 && componentNodes.contains(next) && !predecessors.containsKey(next)) {
+                    predecessors.put(next, node);
+                    queue.add(next);
                 }
             }
         }
-        return itemCategorySetMap;
-    }
 
-    private static Map<ItemCategory, Set<Item>> getComparativeEligibleItemMap(Set<Item> newEligibleItems,
-                                                                              Set<Item> eligibleSet) {
+        LinkedList<Integer> cyclePath = new LinkedList<>();
+        cyclePath.addFirst(start);
+        for (int node = last; node != start; node = predecessors.get(node)) {
+            cyclePath.addFirst(node);
+        }
+        cyclePath.addFirst(start);
 
-        Map<ItemCategory, Set<Item>> uniqueItemMap = new HashMap<>();
+        return cyclePath;
+    }
 
-        for (Item newEligibleItem : newEligibleItems) {
-            if (eligibleSet.contains(newEligibleItem)) {
-                //means this is a duplicate. There are more than one provider for a ItemKey
-                Set<Item> inEligibleSet;
+    private static void throwErrorOnInEligibleItems(List<Item> inEligibleItems, ErrorType errorType) {
+        if (inEligibleItems != null && !inEligibleItems.isEmpty()) {
+            String message = String.format(ERROR_ON_INJECTOR_BUILD, errorType.toString(), inEligibleItems);
+            String errorCode = errorType.name();
+            Map<String, Object> errorData = new HashMap<>();
+            errorData.put(errorCode, inEligibleItems);
+            throw new Exception(message, errorCode, errorData);
+        }
+    }
 
-                if (uniqueItemMap.containsKey(ItemCategory.IN_ELIGIBLE_ITEMS)) {
-                    inEligibleSet = uniqueItemMap.get(ItemCategory.IN_ELIGIBLE_ITEMS);
-                } else {
-                    inEligibleSet = new HashSet<>();
-                }
+    private static Map<ItemCategory, List<Item>> scanItems(Set<Class> eligibleClasses, PikoDIListener listener) {
+        // the items are kept in lists (and not sets, which would collapse items with the same key), so that
+        // duplicates are still around to be found while indexing
+        List<Item> eligibleItems = new ArrayList<>();
+        List<Item> inEligibleItems = new ArrayList<>();
+
+        for (Class clz : eligibleClasses) {
+            ModuleScan moduleScan = moduleScans.get(clz);
+            boolean reused = moduleScan.markMerged();
+            if (listener != null) {
+                listener.onModuleScan(clz, reused);
+            }
+            eligibleItems.addAll(moduleScan.eligibleItems);
+            inEligibleItems.addAll(moduleScan.inEligibleItems);
+        }
 
-                //add the perceived new eligible item to the ineligible list
-                inEligibleSet.add(newEligibleItem);
-                uniqueItemMap.put(ItemCategory.IN_ELIGIBLE_ITEMS, inEligibleSet);
-            } else {
-                //means this is not a duplicate. There is not provider for the same ItemKey till now
-                Set<Item> tempEligibleSet;
+        eligibleItems.addAll(getCollectionItems(eligibleItems, inEligibleItems));
 
-                if (uniqueItemMap.containsKey(ItemCategory.ELIGIBLE_ITEMS)) {
-                    tempEligibleSet = uniqueItemMap.get(ItemCategory.ELIGIBLE_ITEMS);
-                } else {
-                    tempEligibleSet = new HashSet<>();
-                }
+        Map<ItemCategory, List<Item>> itemCategoryListMap = new HashMap<>();
+        itemCategoryListMap.put(ItemCategory.ELIGIBLE_ITEMS, eligibleItems);
+        itemCategoryListMap.put(ItemCategory.IN_ELIGIBLE_ITEMS, inEligibleItems);
 
-                //add the perceived new eligible item to the ineligible list
-                tempEligibleSet.add(newEligibleItem);
-                uniqueItemMap.put(ItemCategory.ELIGIBLE_ITEMS, tempEligibleSet);
+        return itemCategoryListMap;
+    }
 
+    /**
+     * Merges the contributions of the items into one item per collection, which depends on the contributions and is
+     * built once. A contribution with a Map key already taken is added to the in eligible items.
+     */
+    private static List<Item> getCollectionItems(List<Item> items, List<Item> inEligibleItems) {
+        Map<ItemKey, List<Item>> contributionsByCollection = new LinkedHashMap<>();
+        for (Item item : items) {
+            //the contributions without a qualifier are reported as invalid identifiers
+            if (item.contribution != null && item.qualifierAnnotation != null) {
+                ItemKey collectionKey = new ItemKey(item.contribution.collectionClass, item.qualifierAnnotation);
+                contributionsByCollection.computeIfAbsent(collectionKey, key -> new ArrayList<>()).add(item);
             }
         }
 
+        List<Item> collectionItems = new ArrayList<>();
+        for (Map.Entry<ItemKey, List<Item>> entry : contributionsByCollection.entrySet()) {
+            ItemKey collectionKey = entry.getKey();
+            List<Dependency> dependencies = new ArrayList<>();
+            Map<String, Item> contributionsByMapKey = new LinkedHashMap<>();
+
+            for (Item contribution : entry.getValue()) {
+                String mapKey = contribution.contribution.mapKey;
+                Item existingContribution = mapKey == null ? null : contributionsByMapKey.putIfAbsent(mapKey, contribution);
+                if (existingContribution != null) {
+                    log.warn("{}.{} contributes the key {} to {}, which is already contributed by {}.{}!",
+                            contribution.factoryMethod.getDeclaringClass(), contribution.factoryMethod.getName(),
+                            mapKey, collectionKey, existingContribution.factoryMethod.getDeclaringClass(),
+                            existingContribution.factoryMethod.getName());
+                    inEligibleItems.add(contribution);
+                    continue;
+                }
+                dependencies.add(new Dependency(contribution.ownItemKey, DependencyKind.INSTANCE));
+            }
 
-        return uniqueItemMap;
-    }
+            MethodHandle factoryHandle = NEW_CONTRIBUTED_SET;
+            if (!contributionsByMapKey.isEmpty()) {
+                String[] mapKeys = contributionsByMapKey.keySet().toArray(new String[0]);
+                factoryHandle = MethodHandles.insertArguments(NEW_CONTRIBUTED_MAP, 0, (Object) mapKeys);
+            }
 
-    private static Map<ItemCategory, Set<Item>> getItemMapForClass(Class clz) {
+            Annotation qualifierAnnotation = entry.getValue().get(0).qualifierAnnotation;
+            collectionItems.add(new Item(collectionKey, collectionKey.getItemClass(), qualifierAnnotation,
+                    dependencies.toArray(new Dependency[0]), null, factoryHandle, true, false, false, null, null));
+        }
 
-        //filter the methods in the class as per the "methodFilter"
-        Set<Method> eligibleMethods = getEligibleMethods(clz);
+        return collectionItems;
+    }
 
-        return getItemMap(eligibleMethods);
+    private static Object newContributedSet(Object[] elements) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(elements)));
     }
 
-    private static Map<ItemCategory, Set<Item>> getItemMap(Set<Method> eligibleMethods) {
-        // here we will get only methods with meet the method filter criteria
-        Set<Item> eligibleItems = new HashSet<>();
-        Set<Item> inEligibleItems = new HashSet<>();
+    private static Object newContributedMap(String[] keys, Object[] values) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
 
-        for (Method method : eligibleMethods) {
+    private static ModuleScan scanModule(Class<?> module) {
+        List<Item> eligibleItems = new ArrayList<>();
+        List<Item> inEligibleItems = new ArrayList<>();
+
+        //filter the methods in the class as per the "methodFilter"
+        for (Method method : getEligibleMethods(module)) {
             Item newItem = getItemForMethod(method);
             if (isEligibleItem(newItem)) {
                 eligibleItems.add(newItem);
@@ -398,17 +999,7 @@ public class PikoDI {
             }
         }
 
-        Map<ItemCategory, Set<Item>> itemCategorySetMap = new HashMap<>();
-
-        if (!eligibleItems.isEmpty()) {
-            itemCategorySetMap.put(ItemCategory.ELIGIBLE_ITEMS, eligibleItems);
-        }
-
-        if (!inEligibleItems.isEmpty()) {
-            itemCategorySetMap.put(ItemCategory.IN_ELIGIBLE_ITEMS, inEligibleItems);
-        }
-
-        return itemCategorySetMap;
+        return new ModuleScan(eligibleItems, inEligibleItems);
     }
 
     private static boolean isEligibleItem(Item newItem) {
@@ -436,26 +1027,16 @@ public class PikoDI {
 
     private static int providedItemAlsoRequiredIndex(Item newItem) {
 
-        Class clz = newItem.itemClass;
-        Annotation qualifierAnnotation = newItem.qualifierAnnotation;
-
-        Set<ItemKey> dependentItemKeys = newItem.dependentItemKeys;
+        Dependency[] dependencies = newItem.dependencies;
 
         int returnIndex = -1;
 
-        if (dependentItemKeys != null && dependentItemKeys.size() > 0) {
-
-            ItemKey[] itemKeys = dependentItemKeys.toArray(new ItemKey[0]);
+        for (int i = 0; i < dependencies.length; i++) {
+            ItemKey itemKey = dependencies[i].itemKey;
 
-            //ItemKey keyToMatch = new ItemKey(clz,qualifierAnnotation);
-
-            for (int i = 0; i < itemKeys.length; i++) {
-                ItemKey itemKey = itemKeys[i];
-
-                if (newItem.isOwnKeyEqualTo(itemKey)) {
-                    returnIndex = i;
-                    break;
-                }
+            if (newItem.isOwnKeyEqualTo(itemKey)) {
+                returnIndex = i;
+                break;
             }
         }
 
@@ -470,29 +1051,139 @@ public class PikoDI {
     private static Item getItemForMethod(Method method) {
         Class<?> returnType = method.getReturnType();
 
+        //a provider returning a CompletableFuture<T> provides T, asynchronously
+        boolean async = false;
+        if (returnType == CompletableFuture.class) {
+            Class<?> futureClass = getTypeArgumentClass(method.getGenericReturnType());
+            if (futureClass != null) {
+                returnType = futureClass;
+                async = true;
+            } else {
+                log.warn("{}.{} returns a CompletableFuture without a usable type argument, so it will provide the future as is!",
+                        method.getDeclaringClass(), method.getName());
+            }
+        }
+
         Annotation qualifierAnnotation = getQualifierAnnotation(method, returnType, true, null, -1);
 
         Parameter[] parameters = method.getParameters();
 
-        Set<ItemKey> dependentItemKeys = getItemKeysForParameters(method, parameters);
+        Dependency[] dependencies = getDependenciesForParameters(method, parameters);
 
-        Item itemForMethod;
+        boolean singleton = method.isAnnotationPresent(Singleton.class);
 
-        if (qualifierAnnotation == null) {
-            itemForMethod = new Item(returnType, dependentItemKeys, method);
+        boolean requestScoped = method.isAnnotationPresent(RequestScoped.class);
+        if (singleton && requestScoped) {
+            log.warn("{}.{} is annotated with both {} and {}, so only the first one will be considered!",
+                    method.getDeclaringClass(), method.getName(), Singleton.class, RequestScoped.class);
+            requestScoped = false;
+        }
+
+        MethodHandle factoryHandle = getFactoryHandle(method);
+
+        Contribution contribution = getContribution(method);
+
+        Pooling pooling = getPooling(method, returnType);
+
+        ItemKey<?> itemKey;
+
+        if (contribution != null) {
+            //a contribution is only looked up by its collection, so its key is unique to the provider method
+            itemKey = ItemKey.contributionKey(returnType, method);
         } else {
-            itemForMethod = new Item(returnType, qualifierAnnotation, dependentItemKeys, method);
+            itemKey = new ItemKey<Object>(returnType, qualifierAnnotation);
         }
 
+        Item itemForMethod = new Item(itemKey, returnType, qualifierAnnotation, dependencies, method, factoryHandle,
+                singleton, async, requestScoped, contribution, pooling);
+
 
         return itemForMethod;
     }
 
-    private static Set<ItemKey> getItemKeysForParameters(Method method, Parameter[] parameters) {
+    private static Pooling getPooling(Method method, Class<?> itemClass) {
+        Pooled pooled = method.getAnnotation(Pooled.class);
+        if (pooled == null) {
+            return null;
+        }
+
+        if (method.isAnnotationPresent(Singleton.class) || method.isAnnotationPresent(RequestScoped.class)) {
+            log.warn("{}.{} is annotated with {} and another scope, so only the other one will be considered!",
+                    method.getDeclaringClass(), method.getName(), Pooled.class);
+            return null;
+        }
+
+        MethodHandle reset = pooled.reset().isEmpty() ? null
+                : getResetHandle(method.getDeclaringClass(), pooled.reset(), itemClass);
+        return new Pooling(Math.max(1, pooled.size()), pooled.reset(), reset);
+    }
+
+    /**
+     * @return the public static void method of the module with the given name taking the item, adapted to
+     * {@link #RESET_TYPE}, and null if there is none
+     */
+    private static MethodHandle getResetHandle(Class<?> module, String name, Class<?> itemClass) {
+        for (Method method : module.getMethods()) {
+            if (method.getName().equals(name)
+                    && Modifier.isStatic(method.getModifiers())
+                    && method.getReturnType() == void.class
+                    && method.getParameterCount() == 1
+                    && method.getParameterTypes()[0].isAssignableFrom(itemClass)) {
+                try {
+                    return MethodHandles.publicLookup().unreflect(method).asType(RESET_TYPE);
+                } catch (IllegalAccessException e) {
+                    log.debug("Reset hook {}.{} is not publicly accessible, falling back to reflective invocation",
+                            module, name);
+                    return MethodHandles.insertArguments(REFLECTIVE_INVOKE, 0, method, null)
+                            .asCollector(Object[].class, 1)
+                            .asType(RESET_TYPE);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Contribution getContribution(Method method) {
+        IntoSet intoSet = method.getAnnotation(IntoSet.class);
+        IntoMap intoMap = method.getAnnotation(IntoMap.class);
+
+        if (intoSet != null && intoMap != null) {
+            log.warn("{}.{} is annotated with both {} and {}, so only the first one will be considered!",
+                    method.getDeclaringClass(), method.getName(), IntoSet.class, IntoMap.class);
+        }
+
+        if (intoSet != null) {
+            return new Contribution(Set.class, null);
+        } else if (intoMap != null) {
+            return new Contribution(Map.class, intoMap.value());
+        }
+        return null;
+    }
+
+    /**
+     * Compiles the provider method into a MethodHandle of type {@link #FACTORY_TYPE}, i.e. one which takes the
+     * resolved dependencies as an Object[] and returns the provided instance. This is done once per Item, so that
+     * the lookup path does not pay for the reflective access checks and argument unboxing of Method.invoke.
+     * <p>
+     * If the method is not accessible to a public lookup (e.g. it is declared in a non public class) the handle
+     * falls back to Method.invoke, which keeps the failure at instantiation time as before.
+     */
+    private static MethodHandle getFactoryHandle(Method method) {
+        try {
+            MethodHandle methodHandle = MethodHandles.publicLookup().unreflect(method);
+            return methodHandle.asSpreader(Object[].class, method.getParameterCount()).asType(FACTORY_TYPE);
+        } catch (IllegalAccessException e) {
+            log.debug("Provider method {}.{} is not publicly accessible, falling back to reflective invocation",
+                    method.getDeclaringClass(), method.getName());
+            return MethodHandles.insertArguments(REFLECTIVE_INVOKE, 0, method, null).asType(FACTORY_TYPE);
+        }
+    }
+
+    private static Dependency[] getDependenciesForParameters(Method method, Parameter[] parameters) {
 
-        //Note this is a linked hash set to maintain the insertion order which is very important during the
-        // instance lookup phase in the injector
-        Set<ItemKey> orderedItemKeySet = new LinkedHashSet<>();
+        //Note this has exactly one dependency per parameter, in order, which is what the provider method is invoked
+        // with during the instance lookup phase in the injector. Parameters with the same key stay apart
+        Dependency[] dependencies = new Dependency[parameters == null ? 0 : parameters.length];
 
         if (parameters != null && parameters.length > 0) {
             for (int i = 0; i < parameters.length; i++) {
@@ -500,16 +1191,56 @@ public class PikoDI {
 
                 Class<?> paramClass = parameter.getType();
 
+                DependencyKind kind = getDependencyKind(paramClass);
+
+                if (kind.isDeferred()) {
+                    //a Provider<T> or Lazy<T> depends on T, with the qualifier of the parameter
+                    Class<?> deferredClass = getTypeArgumentClass(parameter.getParameterizedType());
+                    if (deferredClass != null) {
+                        paramClass = deferredClass;
+                    } else {
+                        log.warn("{}.{}'s parameter no: {} of type {} has no usable type argument, so it will be looked up as is!",
+                                method.getDeclaringClass(), method.getName(), i, paramClass);
+                        kind = DependencyKind.INSTANCE;
+                    }
+                }
+
                 Annotation qualifierAnnotation = getQualifierAnnotation(method, paramClass, false, parameter, i);
 
                 ItemKey itemKey = new ItemKey(paramClass, qualifierAnnotation);
 
-                orderedItemKeySet.add(itemKey);
+                dependencies[i] = new Dependency(itemKey, kind);
             }
 
         }
 
-        return orderedItemKeySet;
+        return dependencies;
+    }
+
+    private static DependencyKind getDependencyKind(Class<?> paramClass) {
+        if (paramClass == Provider.class) {
+            return DependencyKind.PROVIDER;
+        } else if (paramClass == Lazy.class) {
+            return DependencyKind.LAZY;
+        }
+        return DependencyKind.INSTANCE;
+    }
+
+    /**
+     * @return the (raw) class of the type argument of a Provider, Lazy or CompletableFuture type, or null if it has
+     * none (raw type) or it is a wildcard or type variable
+     */
+    private static Class<?> getTypeArgumentClass(Type genericType) {
+        if (genericType instanceof ParameterizedType) {
+            Type typeArgument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            if (typeArgument instanceof ParameterizedType) {
+                typeArgument = ((ParameterizedType) typeArgument).getRawType();
+            }
+            if (typeArgument instanceof Class) {
+                return (Class<?>) typeArgument;
+            }
+        }
+        return null;
     }
 
     private static Annotation getQualifierAnnotation(Method method, Class<?> clz, boolean isReturnType, Parameter parameter, int paramIndex) {
@@ -542,8 +1273,28 @@ public class PikoDI {
         return qualifierAnnotation;
     }
 
-    private static Set<Method> getEligibleMethods(Class clz) {
-        return Arrays.stream(clz.getDeclaredMethods()).filter(methodFilter).collect(Collectors.toSet());
+    private static List<Method> getEligibleMethods(Class clz) {
+        return Arrays.stream(clz.getDeclaredMethods()).filter(methodFilter).collect(Collectors.toList());
+    }
+
+    /**
+     * Scans the modules concurrently on the given pool, into {@link #moduleScans}. The items are then merged from the
+     * cached scans in the order of the modules, as usual, so the injector and the errors reported on its items
+     * (duplicates, invalid identifiers, ...) are the same as with a sequential scan. A module failing to scan is not
+     * cached, so it fails again, in module order, when the scans are merged.
+     */
+    private static void scanModulesInParallel(Class[] modules, ForkJoinPool scanPool) {
+        if (modules == null || modules.length < 2) {
+            return;
+        }
+
+        List<ForkJoinTask<ModuleScan>> scans = new ArrayList<>(modules.length);
+        for (Class module : modules) {
+            scans.add(scanPool.submit(() -> moduleScans.get(module)));
+        }
+        for (ForkJoinTask<ModuleScan> scan : scans) {
+            scan.quietlyJoin();
+        }
     }
 
     private static Optional<Set<Class>> getEligibleClasses(Class[] modules) {
@@ -551,150 +1302,2185 @@ public class PikoDI {
         if (modules != null) {
             List<Class> classList = Arrays.asList(modules);
 
-            eligibleClassesOption = classList.stream().filter(clz -> !Arrays.stream(clz.getDeclaredMethods()).filter(methodFilter).collect(Collectors.toSet()).isEmpty()).collect(Collectors.toSet());
+            eligibleClassesOption = classList.stream().filter(clz -> !moduleScans.get(clz).isEmpty()).collect(Collectors.toCollection(LinkedHashSet::new));
 
         }
         return Optional.ofNullable(eligibleClassesOption);
     }
 
     public <T> T getInstanceOf(ItemKey<T> itemKey) {
-        if (canProvide(itemKey)) {
-            T instanceObject;
-            Item item = keyToItemMap.get(itemKey);
+        Integer id = keyToIdMap.get(itemKey);
 
-            Object[] params = new Object[0];
+        if (id != null) {
+            return (T) instanceOf(id);
+        } else if (parent != null) {
+            return parent.getInstanceOf(itemKey);
+        } else {
+            throw getNoProvidersException(itemKey);
+        }
+    }
 
-            if (item.dependentItemKeys != null && !item.dependentItemKeys.isEmpty()) {
-                //there are dependencies, so instatiate them as well
+    /**
+     * Like {@link #getInstanceOf(ItemKey)}, but for a key which may not have a provider: the result is empty if
+     * neither this injector nor its ancestors provide the key. Nothing is allocated for a missing key, so optional
+     * services can be probed on hot paths.
+     *
+     * @throws Exception with the error code INSTANTIATION_FAILURE if the key has a provider but it fails
+     */
+    public <T> Optional<T> tryGetInstanceOf(ItemKey<T> itemKey) {
+        Integer id = keyToIdMap.get(itemKey);
 
-                params = new Object[item.dependentItemKeys.size()];
-                ItemKey[] dependentKeys = item.dependentItemKeys.toArray(new ItemKey[0]);
-                for (int i = 0; i < dependentKeys.length; i++) {
-                    try {
-                        Object paramObj = getInstanceOf(dependentKeys[i]);
-                        params[i] = paramObj;
-                    } catch (Exception e) {
-                        Map<String, Object> data = new HashMap<>();
-                        String message = String.format("Failed to instantiate for Key %s, due to error %s",
-                                dependentKeys[i], e.getMessage());
-                        String errorCode = ErrorType.INSTANTIATION_FAILURE.name();
-                        data.put(errorCode, e);
-                        throw new PikoDI.Exception(message, errorCode, data);
-                    }
-                }
+        if (id != null) {
+            return Optional.ofNullable((T) instanceOf(id));
+        } else if (parent != null) {
+            return parent.tryGetInstanceOf(itemKey);
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Compiles the given key against this injector. The returned {@link Key} resolves its instance without hashing
+     * or looking up the ItemKey again, so hot callers can keep it in a field for as long as they use this injector.
+     *
+     * @throws Exception with the error code NO_PROVIDERS if there is no provider for the key
+     */
+    public <T> Key<T> key(ItemKey<T> itemKey) {
+        Integer id = keyToIdMap.get(itemKey);
+
+        if (id != null) {
+            return new Key<>(this, itemKey, id);
+        } else if (parent != null) {
+            //compiled against the injector which provides the key
+            return parent.key(itemKey);
+        } else {
+            throw getNoProvidersException(itemKey);
+        }
+    }
+
+    private Exception getReentrantInstantiationException(int id) {
+        String message = String.format("Item %s is required while it is being built, through a Provider or Lazy of it",
+                items[id].ownItemKey);
+        String errorCode = ErrorType.CYCLIC_DEPENDENCY_ITEMS.name();
+        Map<String, Object> data = new HashMap<>();
+        data.put(errorCode, items[id].ownItemKey);
+        return new PikoDI.Exception(message, errorCode, data);
+    }
+
+    private static Exception getNoProvidersException(ItemKey<?> itemKey) {
+        String message = String.format("ItemKey %s is registered in the system", itemKey);
+        String errorCode = ErrorType.NO_PROVIDERS.name();
+        Map<String, Object> data = new HashMap<>();
+        data.put(errorCode, itemKey);
+        return new PikoDI.Exception(message, errorCode, data);
+    }
+
+    /**
+     * Opens a new scope for the {@link RequestScoped} items. The scope is a plain object which is not bound to the
+     * current thread, it can be passed to (and used from) any number of threads and is cheap to create, since its
+     * storage is only allocated when the first request scoped item is built in it.
+     */
+    public Scope enterScope() {
+        return new Scope(this);
+    }
+
+    private Exception getOutOfScopeException(int id) {
+        String message = String.format("Item %s is request scoped and can only be looked up in an open scope, see PikoDI.enterScope()",
+                items[id].ownItemKey);
+        String errorCode = ErrorType.OUT_OF_SCOPE.name();
+        Map<String, Object> data = new HashMap<>();
+        data.put(errorCode, items[id].ownItemKey);
+        return new PikoDI.Exception(message, errorCode, data);
+    }
+
+    private Object instanceOf(int id) {
+        return instanceOf(id, null);
+    }
+
+    /**
+     * @param scope the scope of the lookup, null outside of any scope
+     */
+    private Object instanceOf(int id, Scope scope) {
+        if (id < 0) {
+            Key<?> parentKey = parentKeys[-id - 1];
+            Scope parentScope = scope == null ? null : scope.getScopeOf(parentKey.pikoDI);
+            return parentKey.pikoDI.instanceOf(parentKey.id, parentScope);
+        }
+
+        SingletonHolder singletonHolder = singletonHolders[id];
+
+        if (singletonHolder != null) {
+            if (listener != null) {
+                listener.onCacheLookup(items[id].ownItemKey, singletonHolder.isBuilt());
             }
-            try {
-                instanceObject = (T) item.factoryMethod.invoke(null, params);
-                return instanceObject;
-            } catch (java.lang.Exception e) {
-                Map<String, Object> data = new HashMap<>();
-                String message = String.format("Failed to instantiate for Key %s, due to error %s",
-                        itemKey, e.getMessage());
-                String errorCode = ErrorType.INSTANTIATION_FAILURE.name();
-                data.put(errorCode, e);
-                throw new PikoDI.Exception(message, errorCode, data);
+            return singletonHolder.getInstance(this, id, null);
+        }
+
+        int scopeSlot = scopeSlots[id];
+        if (scopeSlot >= 0) {
+            if (scope == null) {
+                throw getOutOfScopeException(id);
             }
+            return scope.getInstance(scopeSlot, id);
+        }
+
+        //a pooled item looked up other than by borrowing it gets a new instance, which never goes back to the pool,
+        //so it does not take the idle ones either
+        return newInstanceOf(id, scope);
+    }
+
+    /**
+     * Borrows an instance of a {@link Pooled} item: an idle one from its pool, or a new one if the pool is empty.
+     * The instance goes back to the pool when the returned handle is closed, so it is meant for a try-with-resources
+     * block.
+     *
+     * @throws Exception with the error code NOT_POOLED if the item is not pooled, and NO_PROVIDERS if there is no
+     *                   provider for the key
+     */
+    public <T> Borrowed<T> borrow(ItemKey<T> itemKey) {
+        Integer id = keyToIdMap.get(itemKey);
 
+        if (id != null) {
+            return (Borrowed<T>) borrowOf(id);
+        } else if (parent != null) {
+            return parent.borrow(itemKey);
         } else {
-            String message = String.format("ItemKey %s is registered in the system", itemKey);
-            String errorCode = ErrorType.NO_PROVIDERS.name();
-            Map<String, Object> data = new HashMap<>();
-            data.put(errorCode, itemKey);
-            throw new PikoDI.Exception(message, errorCode, data);
+            throw getNoProvidersException(itemKey);
         }
     }
 
-    public <T> boolean canProvide(ItemKey<T> itemKey) {
-        return keyToItemMap.containsKey(itemKey);
+    private Borrowed<Object> borrowOf(int id) {
+        if (id < 0) {
+            Key<?> parentKey = parentKeys[-id - 1];
+            return parentKey.pikoDI.borrowOf(parentKey.id);
+        }
+
+        Pool pool = pools[id];
+        if (pool == null) {
+            throw getNotPooledException(id);
+        }
+        Object idleInstance = pool.poll();
+        if (listener != null) {
+            listener.onPoolBorrow(items[id].ownItemKey, idleInstance != null);
+        }
+        //a pooled item has no request scoped dependencies (see findCachedItemsInRequestScope), so it is built out of
+        //any scope and can be handed to any borrower
+        return new Borrowed<>(this, id, idleInstance != null ? idleInstance : newInstanceOf(id));
     }
 
-    @Override
-    public String toString() {
-        return "PikoDI{" +
-                "eligibleItems=" + eligibleItems +
-                '}';
+    private void giveBack(int id, Object instance) {
+        boolean kept = instance != null && pools[id].offer(instance);
+        if (listener != null) {
+            listener.onPoolReturn(items[id].ownItemKey, kept);
+        }
     }
 
+    private Exception getNotPooledException(int id) {
+        String message = String.format("Item %s is not pooled, so it cannot be borrowed, see Pooled", items[id].ownItemKey);
+        String errorCode = ErrorType.NOT_POOLED.name();
+        Map<String, Object> data = new HashMap<>();
+        data.put(errorCode, items[id].ownItemKey);
+        return new PikoDI.Exception(message, errorCode, data);
+    }
 
-    private enum ItemCategory {
-        ELIGIBLE_ITEMS,
-        IN_ELIGIBLE_ITEMS
+    private Object newInstanceOf(int id) {
+        return newInstanceOf(id, null);
     }
 
-    private enum ErrorType {
-        DUPLICATE_ITEMS,
-        CYCLIC_DEPENDENCY_ITEMS,
-        INVALID_IDENTIFIER, NO_PROVIDERS, UNKNOWN,
-        INSTANTIATION_FAILURE
+    private Object newInstanceOf(int id, Scope scope) {
+        if (listener == null) {
+            return buildInstance(id, scope);
+        }
+
+        long start = System.nanoTime();
+        Object instance;
+        try {
+            instance = buildInstance(id, scope);
+        } catch (Throwable e) {
+            listener.onInstantiationFailure(items[id].ownItemKey, System.nanoTime() - start, e);
+            throw e;
+        }
+        listener.onInstantiation(items[id].ownItemKey, System.nanoTime() - start);
+        return instance;
     }
 
-    public static class Exception extends RuntimeException {
-        private String errorCode;
-        private Map<String, Object> data;
+    private Object buildInstance(int id, Scope scope) {
+        int[] dependencies = dependencyIds[id];
+        Object[] params = NO_PARAMS;
 
-        public Exception(String errorCode, Map<String, Object> data) {
-            this.errorCode = errorCode;
-            this.data = data;
+        if (dependencies.length > 0) {
+            //there are dependencies, so instatiate them as well
+
+            params = new Object[dependencies.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                try {
+                    params[i] = getDependency(dependencyKinds[id][i], dependencies[i], scope);
+                } catch (Exception e) {
+                    throw getInstantiationException(items[id].ownItemKey, e);
+                }
+            }
         }
+        long start = providerTimes == null ? 0L : System.nanoTime();
+        Object instance = invokeFactory(id, params);
+        if (items[id].async) {
+            //the synchronous lookup of an asynchronous provider waits for it
+            try {
+                instance = ((CompletableFuture<?>) instance).join();
+            } catch (CompletionException e) {
+                throw getSharedInstantiationException(items[id].ownItemKey, e.getCause());
+            }
+        }
+        if (providerTimes != null) {
+            providerTimes.record(id, System.nanoTime() - start);
+        }
+        return instance;
+    }
 
-        public Exception(String message, String errorCode, Map<String, Object> data) {
-            super(message);
-            this.errorCode = errorCode;
-            this.data = data;
+    private Object invokeFactory(int id, Object[] params) {
+        Object instance;
+        try {
+            instance = (Object) factories[id].invokeExact(params);
+        } catch (VirtualMachineError e) {
+            //e.g. OutOfMemoryError or StackOverflowError, which are not failures of the provider to report
+            throw e;
+        } catch (Throwable e) {
+            throw getInstantiationException(items[id].ownItemKey, e);
+        }
+        if (instance == null && items[id].async) {
+            throw getInstantiationException(items[id].ownItemKey, new NullPointerException("provider returned no future"));
         }
+        return instance;
+    }
 
-        public Exception(String message, Throwable cause, String errorCode, Map<String, Object> data) {
-            super(message, cause);
-            this.errorCode = errorCode;
-            this.data = data;
+    /**
+     * A failure of a dependency of the item (or of a Provider of it) already holds the keys from the provider which
+     * failed, so the key of the item is added to it rather than wrapping it once more.
+     */
+    private static Exception getInstantiationException(ItemKey<?> itemKey, Throwable cause) {
+        if (cause instanceof InstantiationFailure) {
+            return ((InstantiationFailure) cause).requiredBy(itemKey);
         }
+        return new InstantiationFailure(itemKey, cause);
+    }
 
-        public Exception(Throwable cause, String errorCode, Map<String, Object> data) {
-            super(cause);
-            this.errorCode = errorCode;
-            this.data = data;
+    /**
+     * Like {@link #getInstantiationException(ItemKey, Throwable)}, for a cause which completed a future, which every
+     * dependent of the future sees, so it is not added to.
+     */
+    private static Exception getSharedInstantiationException(ItemKey<?> itemKey, Throwable cause) {
+        return getInstantiationException(itemKey,
+                cause instanceof InstantiationFailure ? ((InstantiationFailure) cause).copy() : cause);
+    }
+
+    /**
+     * Resolves the item like {@link #getInstanceOf(ItemKey)} does, but without waiting for the providers which
+     * return a {@link CompletableFuture}. The dependencies of an item are all requested before waiting on any of
+     * them, so independent asynchronous providers (e.g. ones doing I/O) overlap, and the provider of the item is
+     * called once they are all complete.
+     * <p>
+     * If the item cannot be built the future completes exceptionally with an {@link Exception} with the error code
+     * INSTANTIATION_FAILURE, and with NO_PROVIDERS if there is no provider for the key.
+     */
+    public <T> CompletableFuture<T> getInstanceAsync(ItemKey<T> itemKey) {
+        Integer id = keyToIdMap.get(itemKey);
+
+        if (id != null) {
+            return (CompletableFuture<T>) instanceAsyncOf(id);
+        } else if (parent != null) {
+            return parent.getInstanceAsync(itemKey);
+        } else {
+            return CompletableFuture.failedFuture(getNoProvidersException(itemKey));
         }
+    }
 
-        public Exception(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace, String errorCode, Map<String, Object> data) {
-            super(message, cause, enableSuppression, writableStackTrace);
-            this.errorCode = errorCode;
-            this.data = data;
+    private CompletableFuture<Object> instanceAsyncOf(int id) {
+        if (id < 0) {
+            Key<?> parentKey = parentKeys[-id - 1];
+            return parentKey.pikoDI.instanceAsyncOf(parentKey.id);
         }
 
-        public String getErrorCode() {
-            return errorCode;
+        SingletonHolder singletonHolder = singletonHolders[id];
+
+        if (singletonHolder != null) {
+            if (listener != null) {
+                listener.onCacheLookup(items[id].ownItemKey, singletonHolder.isBuilt());
+            }
+            return singletonHolder.getInstanceAsync(this, id);
         }
 
-        public Map<String, Object> getData() {
-            return data;
+        if (scopeSlots[id] >= 0) {
+            return CompletableFuture.failedFuture(getOutOfScopeException(id));
         }
+
+        return newInstanceAsyncOf(id);
     }
 
-    private static class Item {
+    private CompletableFuture<Object> newInstanceAsyncOf(int id) {
+        if (listener == null) {
+            return buildInstanceAsync(id);
+        }
 
-        private ItemKey<?> ownItemKey;
-        private Class<?> itemClass;
-        private Annotation qualifierAnnotation;
-        private Set<ItemKey> dependentItemKeys;
-        private Method factoryMethod;
+        long start = System.nanoTime();
+        CompletableFuture<Object> future = buildInstanceAsync(id);
+        future.whenComplete((instance, e) -> {
+            long duration = System.nanoTime() - start;
+            if (e == null) {
+                listener.onInstantiation(items[id].ownItemKey, duration);
+            } else {
+                listener.onInstantiationFailure(items[id].ownItemKey, duration, e instanceof CompletionException ? e.getCause() : e);
+            }
+        });
+        return future;
+    }
 
-        Item(Class<?> itemClass, Annotation qualifierAnnotation, Set<ItemKey> dependentItemKeys, Method method) {
-            this.itemClass = itemClass;
-            this.qualifierAnnotation = qualifierAnnotation;
-            this.dependentItemKeys = dependentItemKeys;
-            this.ownItemKey = new ItemKey<Object>(itemClass, qualifierAnnotation);
-            this.factoryMethod = method;
+    private CompletableFuture<Object> buildInstanceAsync(int id) {
+        int[] dependencies = dependencyIds[id];
+        CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[dependencies.length];
+
+        for (int i = 0; i < dependencies.length; i++) {
+            DependencyKind kind = dependencyKinds[id][i];
+            try {
+                dependencyFutures[i] = kind.isDeferred()
+                        ? CompletableFuture.completedFuture(getDependency(kind, dependencies[i], null))
+                        : instanceAsyncOf(dependencies[i]);
+            } catch (Exception e) {
+                dependencyFutures[i] = CompletableFuture.failedFuture(e);
+            }
         }
 
-        Item(Class<?> itemClass, Set<ItemKey> dependentItemKeys, Method method) {
-            this.itemClass = itemClass;
-            this.dependentItemKeys = dependentItemKeys;
-            this.ownItemKey = new ItemKey<Object>(itemClass);
-            this.factoryMethod = method;
+        return CompletableFuture.allOf(dependencyFutures).handle((ignored, e) -> {
+            if (e != null) {
+                //report the first dependency which failed, like the synchronous lookup does
+                for (int i = 0; i < dependencyFutures.length; i++) {
+                    if (dependencyFutures[i].isCompletedExceptionally()) {
+                        throw getSharedInstantiationException(items[id].ownItemKey, getCompletionCause(dependencyFutures[i]));
+                    }
+                }
+            }
+
+            Object[] params = dependencies.length == 0 ? NO_PARAMS : new Object[dependencies.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                params[i] = dependencyFutures[i].join();
+            }
+            long start = providerTimes == null ? 0L : System.nanoTime();
+            Object instance = invokeFactory(id, params);
+            if (providerTimes != null) {
+                //an asynchronous provider takes until its future completes
+                if (items[id].async) {
+                    ((CompletionStage<?>) instance).thenRun(() -> providerTimes.record(id, System.nanoTime() - start));
+                } else {
+                    providerTimes.record(id, System.nanoTime() - start);
+                }
+            }
+            return instance;
+        }).thenCompose(instance -> {
+            if (!items[id].async) {
+                return CompletableFuture.completedFuture(instance);
+            }
+            return ((CompletionStage<Object>) instance).handle((result, e) -> {
+                if (e != null) {
+                    throw getSharedInstantiationException(items[id].ownItemKey, e instanceof CompletionException ? e.getCause() : e);
+                }
+                return result;
+            });
+        });
+    }
+
+    private static Throwable getCompletionCause(CompletableFuture<?> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause();
+        } catch (RuntimeException e) {
+            return e;
         }
+    }
 
-        boolean isOwnKeyEqualTo(ItemKey otherItemKey) {
-            return this.ownItemKey.equals(otherItemKey);
+    private Object getDependency(DependencyKind kind, int dependencyId, Scope scope) {
+        if (dependencyId < 0) {
+            Key<?> parentKey = parentKeys[-dependencyId - 1];
+            Scope parentScope = scope == null ? null : scope.getScopeOf(parentKey.pikoDI);
+            return parentKey.pikoDI.getDependency(kind, parentKey.id, parentScope);
+        }
+
+        //the shared Providers resolve outside of any scope, so within a scope they are bound to it
+        switch (kind) {
+            case PROVIDER:
+                return scope == null ? getProvider(dependencyId) : new ScopedProvider(scope, dependencyId);
+            case LAZY:
+                return new MemoizingLazy(scope == null ? getProvider(dependencyId) : new ScopedProvider(scope, dependencyId));
+            default:
+                return instanceOf(dependencyId, scope);
+        }
+    }
+
+    private Provider<?> getProvider(int id) {
+        //only the items which are deferred dependencies within this injector have a shared Provider, the others can
+        //still be deferred dependencies of the items of a child injector
+        Provider<?> provider = providers[id];
+        return provider != null ? provider : new InstanceProvider(this, id);
+    }
+
+    /**
+     * Builds all the singletons on the common fork join pool, see {@link #warmUp(Executor)}.
+     */
+    public void warmUp() {
+        warmUp(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds all the singletons up front, on the given executor, and returns once they are all built. For a child
+     * injector, these are only the singletons of its own modules.
+     * <p>
+     * Every singleton is built as soon as the singletons it (transitively) depends on are built, so independent
+     * parts of the graph are built concurrently. A failure stops the singletons not yet started from being built and
+     * is reported right away, with the path of keys to the provider which failed, while the ones already being built
+     * finish in the background.
+     *
+     * @throws Exception with the error code INSTANTIATION_FAILURE if a singleton could not be built
+     */
+    public void warmUp(Executor executor) {
+        AtomicBoolean failed = new AtomicBoolean();
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        //the future of every item completes once the singletons it depends on are built (and it is built itself,
+        //if it is a singleton). Non singletons are not built here, they are only passed through
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[items.length];
+        List<CompletableFuture<?>> singletonFutures = new ArrayList<>();
+
+        for (int id : topologicalOrder) {
+            //the items of a parent injector are warmed up (or not) with the parent
+            int[] dependencies = Arrays.stream(eagerDependencyIds[id])
+                    .filter(dependencyId -> dependencyId >= 0)
+                    .toArray();
+            CompletableFuture<?> prerequisites;
+            if (dependencies.length == 0) {
+                prerequisites = CompletableFuture.completedFuture(null);
+            } else if (dependencies.length == 1) {
+                prerequisites = futures[dependencies[0]];
+            } else {
+                CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[dependencies.length];
+                for (int i = 0; i < dependencies.length; i++) {
+                    dependencyFutures[i] = futures[dependencies[i]];
+                }
+                prerequisites = CompletableFuture.allOf(dependencyFutures);
+            }
+
+            if (singletonHolders[id] == null) {
+                futures[id] = prerequisites;
+            } else {
+                int singletonId = id;
+                futures[id] = prerequisites.thenRunAsync(() -> {
+                    if (failed.get()) {
+                        return;
+                    }
+                    try {
+                        instanceOf(singletonId);
+                    } catch (RuntimeException e) {
+                        if (failed.compareAndSet(false, true)) {
+                            completion.completeExceptionally(getWarmUpException(singletonId, e));
+                        }
+                        throw e;
+                    }
+                }, executor);
+                singletonFutures.add(futures[id]);
+            }
+        }
+
+        CompletableFuture.allOf(singletonFutures.toArray(new CompletableFuture<?>[0])).whenComplete((result, e) -> {
+            if (e == null) {
+                completion.complete(null);
+            } else {
+                completion.completeExceptionally(e);
+            }
+        });
+
+        try {
+            completion.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Exception getWarmUpException(int id, RuntimeException cause) {
+        Map<String, Object> data = new HashMap<>();
+        String message = String.format("Failed to warm up for Key %s, due to error %s",
+                items[id].ownItemKey, cause.getMessage());
+        String errorCode = ErrorType.INSTANTIATION_FAILURE.name();
+        data.put(errorCode, cause);
+        return new PikoDI.Exception(message, errorCode, data);
+    }
+
+    /**
+     * Closes the cached instances on the common fork join pool, within 30 seconds, see {@link #close(Executor, Duration)}.
+     */
+    @Override
+    public void close() {
+        close(ForkJoinPool.commonPool(), DEFAULT_CLOSE_TIMEOUT);
+    }
+
+    /**
+     * Closes the cached instances which are {@link AutoCloseable}, i.e. the singletons built so far and the idle
+     * instances of the pools, on the given executor. Only the cached instances this injector owns are closed: for a
+     * child injector, these are only the ones of its own modules, and the ones shared with an injector swapping the
+     * modules of this one belong to that injector (see {@link #swapModules(Class[])}). Instances which are not cached
+     * (including the request scoped ones) belong to the code which looked them up, and are not closed here.
+     * <p>
+     * An instance is closed once all the cached instances depending on it (directly, or through items which are not
+     * cached) are closed, so independent parts of the graph are closed concurrently, in the reverse of the order
+     * {@link #warmUp(Executor)} builds them. A failure to close an instance does not hold up the others. Once the
+     * timeout is up the instances not yet being closed are left as they are, and the ones being closed finish in the
+     * background.
+     * <p>
+     * Only the first call closes anything, and the injector is not meant to be used afterwards.
+     *
+     * @throws Exception with the error code CLOSE_TIMEOUT if the instances are not all closed within the timeout,
+     *                   and CLOSE_FAILURE if any of them failed to close
+     */
+    public void close(Executor executor, Duration timeout) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        int[][] eagerDependentIds = getDependentIds(eagerDependencyIds);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        AtomicReferenceArray<Throwable> failures = new AtomicReferenceArray<>(items.length);
+
+        //the future of every item completes once the instances depending on it are closed (and its own instances,
+        //if it has any). Items with nothing to close are only passed through
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[items.length];
+        List<CompletableFuture<?>> closeFutures = new ArrayList<>();
+        List<Integer> closingIds = new ArrayList<>();
+
+        for (int i = topologicalOrder.length - 1; i >= 0; i--) {
+            int id = topologicalOrder[i];
+            int[] dependents = eagerDependentIds[id];
+            CompletableFuture<?> prerequisites;
+            if (dependents.length == 0) {
+                prerequisites = CompletableFuture.completedFuture(null);
+            } else if (dependents.length == 1) {
+                prerequisites = futures[dependents[0]];
+            } else {
+                CompletableFuture<?>[] dependentFutures = new CompletableFuture<?>[dependents.length];
+                for (int j = 0; j < dependents.length; j++) {
+                    dependentFutures[j] = futures[dependents[j]];
+                }
+                prerequisites = CompletableFuture.allOf(dependentFutures);
+            }
+
+            List<AutoCloseable> closeables = getCloseables(id);
+            if (closeables.isEmpty()) {
+                futures[id] = prerequisites;
+            } else {
+                int closingId = id;
+                futures[id] = prerequisites.thenRunAsync(() -> {
+                    if (timedOut.get()) {
+                        return;
+                    }
+                    for (AutoCloseable closeable : closeables) {
+                        try {
+                            closeable.close();
+                        } catch (Throwable e) {
+                            failures.compareAndSet(closingId, null, e);
+                        }
+                    }
+                }, executor).exceptionally(e -> {
+                    //e.g. rejected by the executor, which must not keep the instances it depends on from closing
+                    failures.compareAndSet(closingId, null, e);
+                    return null;
+                });
+                closeFutures.add(futures[id]);
+                closingIds.add(id);
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(closeFutures.toArray(new CompletableFuture<?>[0]))
+                    .get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            timedOut.set(true);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            List<ItemKey<?>> notClosed = new ArrayList<>();
+            for (int i = 0; i < closingIds.size(); i++) {
+                if (!closeFutures.get(i).isDone()) {
+                    notClosed.add(items[closingIds.get(i)].ownItemKey);
+                }
+            }
+            throw getCloseTimeoutException(notClosed, timeout);
+        } catch (ExecutionException e) {
+            //cannot happen, every failure is recorded on the way instead of failing the futures
+            throw new IllegalStateException(e.getCause());
+        }
+
+        Map<ItemKey<?>, Throwable> failuresByKey = new LinkedHashMap<>();
+        for (int id : closingIds) {
+            if (failures.get(id) != null) {
+                failuresByKey.put(items[id].ownItemKey, failures.get(id));
+            }
+        }
+        if (!failuresByKey.isEmpty()) {
+            throw getCloseFailureException(failuresByKey);
+        }
+    }
+
+    /**
+     * @return the instances of the item which close() closes, the singleton instance if it was built, or the idle
+     * instances taken out of its pool, provided this injector owns them
+     */
+    private List<AutoCloseable> getCloseables(int id) {
+        List<AutoCloseable> closeables = new ArrayList<>();
+        SingletonHolder singletonHolder = singletonHolders[id];
+        if (singletonHolder != null && singletonHolder.owner == this
+                && singletonHolder.instance instanceof AutoCloseable) {
+            closeables.add((AutoCloseable) singletonHolder.instance);
+        }
+        Pool pool = pools[id];
+        if (pool != null && pool.owner == this) {
+            Object idleInstance;
+            while ((idleInstance = pool.poll()) != null) {
+                if (idleInstance instanceof AutoCloseable) {
+                    closeables.add((AutoCloseable) idleInstance);
+                }
+            }
+        }
+        return closeables;
+    }
+
+    /**
+     * @return the reverse of the given adjacency, within this injector: the items depending on every item
+     */
+    private static int[][] getDependentIds(int[][] adjacency) {
+        int[] counts = new int[adjacency.length];
+        for (int[] dependencies : adjacency) {
+            for (int dependencyId : dependencies) {
+                if (dependencyId >= 0) {
+                    counts[dependencyId]++;
+                }
+            }
+        }
+
+        int[][] dependentIds = new int[adjacency.length][];
+        for (int id = 0; id < adjacency.length; id++) {
+            dependentIds[id] = new int[counts[id]];
+            counts[id] = 0;
+        }
+        for (int id = 0; id < adjacency.length; id++) {
+            for (int dependencyId : adjacency[id]) {
+                if (dependencyId >= 0) {
+                    dependentIds[dependencyId][counts[dependencyId]++] = id;
+                }
+            }
+        }
+        return dependentIds;
+    }
+
+    private static Exception getCloseTimeoutException(List<ItemKey<?>> notClosed, Duration timeout) {
+        String message = String.format("Unable to close %s within %s", notClosed, timeout);
+        String errorCode = ErrorType.CLOSE_TIMEOUT.name();
+        Map<String, Object> data = new HashMap<>();
+        data.put(errorCode, notClosed);
+        return new PikoDI.Exception(message, errorCode, data);
+    }
+
+    private static Exception getCloseFailureException(Map<ItemKey<?>, Throwable> failures) {
+        String message = String.format("Unable to close %s", failures.keySet());
+        String errorCode = ErrorType.CLOSE_FAILURE.name();
+        Map<String, Object> data = new HashMap<>();
+        data.put(errorCode, failures);
+        Exception exception = new PikoDI.Exception(message, errorCode, data);
+        failures.values().forEach(exception::addSuppressed);
+        return exception;
+    }
+
+    /**
+     * Lays out the time spent so far in the providers of this injector on its dependency graph, to find the chain of
+     * providers which holds up building all the items, e.g. after {@link #warmUp()} or having looked up all the
+     * items once. Only for an injector built with {@link Builder#profiling()}.
+     */
+    public StartupProfile getStartupProfile() {
+        if (providerTimes == null) {
+            throw new IllegalStateException("The injector is not built with profiling, see PikoDI.Builder#profiling");
+        }
+
+        ItemKey<?>[] itemKeys = new ItemKey<?>[items.length];
+        long[] ownNanos = new long[items.length];
+        long[] invocations = new long[items.length];
+        int[][] localDependencyIds = new int[items.length][];
+        for (int id = 0; id < items.length; id++) {
+            itemKeys[id] = items[id].ownItemKey;
+            invocations[id] = providerTimes.invocations.get(id);
+            ownNanos[id] = invocations[id] == 0 ? 0 : providerTimes.nanos.get(id) / invocations[id];
+            localDependencyIds[id] = Arrays.stream(eagerDependencyIds[id])
+                    .filter(dependencyId -> dependencyId >= 0)
+                    .distinct()
+                    .toArray();
+        }
+
+        return new StartupProfile(itemKeys, ownNanos, invocations, localDependencyIds,
+                topologicalOrder);
+    }
+
+    /**
+     * @return the dependency graph of the items of this injector, for tools which query it, e.g. for what depends
+     * on a key
+     */
+    public DependencyGraph getDependencyGraph() {
+        DependencyGraph graph = dependencyGraph;
+        if (graph == null) {
+            synchronized (this) {
+                graph = dependencyGraph;
+                if (graph == null) {
+                    ItemKey<?>[] itemKeys = new ItemKey<?>[items.length];
+                    for (int id = 0; id < items.length; id++) {
+                        itemKeys[id] = items[id].ownItemKey;
+                    }
+                    ItemKey<?>[] parentItemKeys = new ItemKey<?>[parentKeys.length];
+                    DependencyGraph[] parentGraphs = new DependencyGraph[parentKeys.length];
+                    for (int i = 0; i < parentKeys.length; i++) {
+                        parentItemKeys[i] = parentKeys[i].itemKey;
+                        parentGraphs[i] = parentKeys[i].pikoDI.getDependencyGraph();
+                    }
+                    graph = new DependencyGraph(itemKeys, keyToIdMap, dependencyIds, dependentIds, eagerDependencyIds,
+                            topologicalOrder, parentItemKeys, parentGraphs);
+                    dependencyGraph = graph;
+                }
+            }
+        }
+        return graph;
+    }
+
+    public <T> boolean canProvide(ItemKey<T> itemKey) {
+        return keyToIdMap.containsKey(itemKey) || (parent != null && parent.canProvide(itemKey));
+    }
+
+    @Override
+    public String toString() {
+        return "PikoDI{" +
+                "eligibleItems=" + Arrays.toString(items) +
+                '}';
+    }
+
+
+    private enum ItemCategory {
+        ELIGIBLE_ITEMS,
+        IN_ELIGIBLE_ITEMS
+    }
+
+    private enum ErrorType {
+        DUPLICATE_ITEMS,
+        CYCLIC_DEPENDENCY_ITEMS,
+        INVALID_IDENTIFIER, NO_PROVIDERS, UNKNOWN,
+        INSTANTIATION_FAILURE,
+        OUT_OF_SCOPE,
+        NOT_POOLED,
+        SCOPE_MISMATCH,
+        CLOSE_FAILURE,
+        CLOSE_TIMEOUT
+    }
+
+    public static class Exception extends RuntimeException {
+        private String errorCode;
+        private Map<String, Object> data;
+
+        public Exception(String errorCode, Map<String, Object> data) {
+            this.errorCode = errorCode;
+            this.data = data;
+        }
+
+        public Exception(String message, String errorCode, Map<String, Object> data) {
+            super(message);
+            this.errorCode = errorCode;
+            this.data = data;
+        }
+
+        public Exception(String message, Throwable cause, String errorCode, Map<String, Object> data) {
+            super(message, cause);
+            this.errorCode = errorCode;
+            this.data = data;
+        }
+
+        public Exception(Throwable cause, String errorCode, Map<String, Object> data) {
+            super(cause);
+            this.errorCode = errorCode;
+            this.data = data;
+        }
+
+        public Exception(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace, String errorCode, Map<String, Object> data) {
+            super(message, cause, enableSuppression, writableStackTrace);
+            this.errorCode = errorCode;
+            this.data = data;
+        }
+
+        public String getErrorCode() {
+            return errorCode;
+        }
+
+        public Map<String, Object> getData() {
+            return data;
+        }
+    }
+
+    /**
+     * The INSTANTIATION_FAILURE of a lookup. A single instance is thrown for the whole chain of dependencies which
+     * failed: every item on the way up adds its key to it, and its message and data are only built when they are
+     * read. It has no stack trace of its own, the cause (thrown by the provider which failed) has the one of the
+     * lookup.
+     * <p>
+     * Its data holds the cause under INSTANTIATION_FAILURE and the keys from the one looked up to the one of the
+     * provider which failed under KEY_PATH.
+     */
+    private static final class InstantiationFailure extends Exception {
+
+        private static final String KEY_PATH = "KEY_PATH";
+
+        //from the key of the provider which failed to the one looked up
+        private final List<ItemKey<?>> keyPath;
+
+        //built when first read, and again once a key is added
+        private String message;
+        private Map<String, Object> data;
+
+        InstantiationFailure(ItemKey<?> itemKey, Throwable cause) {
+            this(new ArrayList<>(4), cause);
+            keyPath.add(itemKey);
+        }
+
+        private InstantiationFailure(List<ItemKey<?>> keyPath, Throwable cause) {
+            super(null, cause, true, false, ErrorType.INSTANTIATION_FAILURE.name(), null);
+            this.keyPath = keyPath;
+        }
+
+        InstantiationFailure requiredBy(ItemKey<?> itemKey) {
+            keyPath.add(itemKey);
+            message = null;
+            data = null;
+            return this;
+        }
+
+        InstantiationFailure copy() {
+            return new InstantiationFailure(new ArrayList<>(keyPath), getCause());
+        }
+
+        @Override
+        public String getMessage() {
+            String result = message;
+            if (result == null) {
+                result = String.format("Failed to instantiate for Key %s, due to error %s",
+                        keyPath.get(0), getCause().getMessage());
+                if (keyPath.size() > 1) {
+                    List<ItemKey<?>> requiredBy = new ArrayList<>(keyPath.subList(1, keyPath.size()));
+                    Collections.reverse(requiredBy);
+                    result += String.format(", required through %s", requiredBy);
+                }
+                message = result;
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Object> getData() {
+            Map<String, Object> result = data;
+            if (result == null) {
+                List<ItemKey<?>> lookedUpFirst = new ArrayList<>(keyPath);
+                Collections.reverse(lookedUpFirst);
+                result = new HashMap<>();
+                result.put(getErrorCode(), getCause());
+                result.put(KEY_PATH, Collections.unmodifiableList(lookedUpFirst));
+                result = Collections.unmodifiableMap(result);
+                data = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Builds an injector with options, e.g.
+     * <pre>
+     * PikoDI pikoDI = PikoDI.builder().listener(new PikoDIMetrics()).create(Module1.class, Module2.class);
+     * </pre>
+     */
+    public static final class Builder {
+
+        private PikoDIListener listener;
+        private boolean profiling;
+        private Path snapshotFile;
+        private ForkJoinPool scanPool;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the listener of the injector and of the child injectors created from it
+         */
+        public Builder listener(PikoDIListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Records the time spent in each provider, for {@link PikoDI#getStartupProfile()}. The injector and its
+         * child injectors then pay for timing every provider invocation.
+         */
+        public Builder profiling() {
+            this.profiling = true;
+            return this;
+        }
+
+        /**
+         * Keeps the validated graph of the modules in the given snapshot file. If the file holds the graph of the
+         * same module classes (the same class files, in the same order) it is loaded instead of scanning and
+         * validating the modules, otherwise the modules are built as usual and the file is (re)written.
+         * <p>
+         * Has no effect for the modules of a precompiled injector, which is already validated at compile time.
+         */
+        public Builder snapshot(Path snapshotFile) {
+            this.snapshotFile = snapshotFile;
+            return this;
+        }
+
+        /**
+         * Scans the modules concurrently on the common fork join pool, see {@link #parallelScanning(ForkJoinPool)}
+         */
+        public Builder parallelScanning() {
+            return parallelScanning(ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Scans the modules concurrently on the given pool, which pays off for large sets of modules the injector
+         * has not scanned yet. The items are merged in the order of the modules, so the injector, and any error
+         * reported while creating it, are the same as with a sequential scan. Child injectors scan sequentially.
+         */
+        public Builder parallelScanning(ForkJoinPool scanPool) {
+            this.scanPool = scanPool;
+            return this;
+        }
+
+        /**
+         * Like {@link PikoDI#create(Class[])}, with the options of this builder
+         */
+        public PikoDI create(Class... modules) {
+            if (snapshotFile != null && !findPrecompiledInjector(modules).isPresent()) {
+                return createWithSnapshot(snapshotFile, listener, profiling, scanPool, modules);
+            }
+            return PikoDI.create(listener, profiling, scanPool, modules);
+        }
+    }
+
+    /**
+     * An {@link ItemKey} compiled against one {@link PikoDI} instance by {@link PikoDI#key(ItemKey)}. It holds the
+     * dense id of the item, so {@link #get()} goes straight to the resolution tables of the injector.
+     */
+    public static final class Key<T> {
+
+        private final PikoDI pikoDI;
+        private final ItemKey<T> itemKey;
+        private final int id;
+
+        private Key(PikoDI pikoDI, ItemKey<T> itemKey, int id) {
+            this.pikoDI = pikoDI;
+            this.itemKey = itemKey;
+            this.id = id;
+        }
+
+        public T get() {
+            return (T) pikoDI.instanceOf(id);
+        }
+
+        public CompletableFuture<T> getAsync() {
+            return (CompletableFuture<T>) (CompletableFuture<?>) pikoDI.instanceAsyncOf(id);
+        }
+
+        /**
+         * Like {@link PikoDI#borrow(ItemKey)}.
+         */
+        public Borrowed<T> borrow() {
+            return (Borrowed<T>) (Borrowed<?>) pikoDI.borrowOf(id);
+        }
+
+        public ItemKey<T> getItemKey() {
+            return itemKey;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "itemKey=" + itemKey +
+                    ", id=" + id +
+                    '}';
+        }
+    }
+
+    /**
+     * An instance borrowed from the pool of a {@link Pooled} item by {@link PikoDI#borrow(ItemKey)}, which goes back
+     * to the pool when the handle is closed. The handle belongs to the borrowing code, it is not meant to be shared
+     * between threads, and the instance must not be used once it is closed.
+     */
+    public static final class Borrowed<T> implements AutoCloseable {
+
+        private final PikoDI pikoDI;
+        private final int id;
+        private final T instance;
+        private boolean closed;
+
+        private Borrowed(PikoDI pikoDI, int id, T instance) {
+            this.pikoDI = pikoDI;
+            this.id = id;
+            this.instance = instance;
+        }
+
+        /**
+         * @throws IllegalStateException if the instance was already returned
+         */
+        public T get() {
+            if (closed) {
+                throw new IllegalStateException("The instance of " + pikoDI.items[id].ownItemKey + " is already returned to its pool");
+            }
+            return instance;
+        }
+
+        /**
+         * Returns the instance to the pool. Closing the handle again does nothing.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                pikoDI.giveBack(id, instance);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Borrowed{" + pikoDI.items[id].ownItemKey + '}';
+        }
+    }
+
+    /**
+     * Index of the scanned items by their keys. It is built once in {@link #create(Class[])} and all the validation
+     * phases (duplicates, identifiers, missing providers and cycles) work on it, so that building the injector stays
+     * linear in the size of the graph.
+     * <p>
+     * Every unique item gets a dense id, which is its position in {@link #items}. Items with a key which is
+     * already indexed are kept aside as duplicates.
+     */
+    private static final class ItemIndex {
+
+        private final List<Item> items = new ArrayList<>();
+        private final List<Item> duplicateItems = new ArrayList<>();
+        private final Map<ItemKey, Integer> keyToIdMap = new HashMap<>();
+
+        //for a child injector, the injector it is created from and the compiled keys of the items of the parent
+        //(and its ancestors) which the indexed items depend on
+        private final PikoDI parent;
+        private final List<Key<?>> parentKeys = new ArrayList<>();
+        private final Map<ItemKey, Integer> parentKeyToIndexMap = new HashMap<>();
+
+        private int[][] adjacency;
+        private int[][] eagerAdjacency;
+
+        //for an injector swapping the modules of another one, that injector and the id in it of every item whose
+        //cached instances are carried over, -1 for the others. See PikoDI#swapModules
+        private PikoDI previous;
+        private int[] previousIds;
+
+        ItemIndex(List<Item> scannedItems) {
+            this(scannedItems, null);
+        }
+
+        ItemIndex(List<Item> scannedItems, PikoDI parent) {
+            this.parent = parent;
+            for (Item item : scannedItems) {
+                Integer existingId = keyToIdMap.putIfAbsent(item.ownItemKey, items.size());
+                if (existingId == null) {
+                    items.add(item);
+                } else {
+                    duplicateItems.add(item);
+                }
+            }
+        }
+
+        boolean contains(ItemKey itemKey) {
+            return keyToIdMap.containsKey(itemKey);
+        }
+
+        /**
+         * @return whether the key is provided by one of the indexed items or by the parent injector
+         */
+        boolean isProvided(ItemKey itemKey) {
+            return contains(itemKey) || (parent != null && parent.canProvide(itemKey));
+        }
+
+        private int getId(ItemKey itemKey) {
+            Integer id = keyToIdMap.get(itemKey);
+            if (id != null) {
+                return id;
+            }
+
+            Integer parentKeyIndex = parentKeyToIndexMap.get(itemKey);
+            if (parentKeyIndex == null) {
+                parentKeyIndex = parentKeys.size();
+                parentKeys.add(parent.key(itemKey));
+                parentKeyToIndexMap.put(itemKey, parentKeyIndex);
+            }
+            return -parentKeyIndex - 1;
+        }
+
+        /**
+         * The dependencies of every item as ids, can only be called once all the dependencies have providers.
+         * It is computed once and shared by the cycle check and the injector. The dependencies on items of the parent
+         * injector have negative ids, see {@link PikoDI#parentKeys}.
+         */
+        int[][] getAdjacency() {
+            if (adjacency != null) {
+                return adjacency;
+            }
+            adjacency = new int[items.size()][];
+            for (int id = 0; id < adjacency.length; id++) {
+                Dependency[] dependencies = items.get(id).dependencies;
+                adjacency[id] = new int[dependencies.length];
+                int edge = 0;
+                for (Dependency dependency : dependencies) {
+                    adjacency[id][edge++] = getId(dependency.itemKey);
+                }
+            }
+            return adjacency;
+        }
+
+        /**
+         * The dependencies of every item as ids, without the deferred ones, i.e. the dependencies which have to be
+         * built before the item.
+         */
+        int[][] getEagerAdjacency() {
+            if (eagerAdjacency != null) {
+                return eagerAdjacency;
+            }
+            int[][] allAdjacency = getAdjacency();
+            eagerAdjacency = new int[allAdjacency.length][];
+            for (int id = 0; id < allAdjacency.length; id++) {
+                int[] edges = new int[allAdjacency[id].length];
+                int edgeCount = 0;
+                int edge = 0;
+                for (Dependency dependency : items.get(id).dependencies) {
+                    if (!dependency.kind.isDeferred()) {
+                        edges[edgeCount++] = allAdjacency[id][edge];
+                    }
+                    edge++;
+                }
+                eagerAdjacency[id] = edgeCount == edges.length ? edges : Arrays.copyOf(edges, edgeCount);
+            }
+            return eagerAdjacency;
+        }
+    }
+
+    /**
+     * The binary snapshot of a validated graph, see {@link Builder#snapshot(Path)}. All the numbers are big endian
+     * and the names are indices into the string table:
+     * <pre>
+     * magic, version, fingerprint length, fingerprint bytes,
+     * string count, (byte length, UTF-8 bytes) per string,
+     * item count, per item (in id order):
+     *   key class name, qualifier kind, qualifier name, flags,
+     *   module index (-1 for a multibound collection), provider method name, parameter count, parameter type names,
+     *   contributed map key (-1 if none),
+     *   dependency count, (dependency id, dependency kind ordinal) per dependency
+     * </pre>
+     * It is read through a memory mapping of the file, into the items and the adjacency of an {@link ItemIndex}.
+     */
+    private static final class Snapshot {
+
+        private static final int MAGIC = 0x50494B4F;
+        private static final int VERSION = 2;
+
+        private static final byte QUALIFIER_NONE = 0;
+        private static final byte QUALIFIER_NAMED = 1;
+        private static final byte QUALIFIER_ANNOTATION = 2;
+        private static final byte QUALIFIER_CONTRIBUTION = 3;
+
+        private static final int FLAG_SINGLETON = 1;
+        private static final int FLAG_ASYNC = 2;
+        private static final int FLAG_REQUEST_SCOPED = 4;
+        private static final int FLAG_SET_CONTRIBUTION = 8;
+        private static final int FLAG_MAP_CONTRIBUTION = 16;
+
+        private static final Map<String, Class<?>> primitiveTypes = new HashMap<>();
+
+        static {
+            for (Class<?> primitiveType : Arrays.asList(boolean.class, byte.class, char.class, short.class, int.class,
+                    long.class, float.class, double.class)) {
+                primitiveTypes.put(primitiveType.getName(), primitiveType);
+            }
+        }
+
+        /**
+         * @return the SHA-256 of the class files of the modules, in order, empty if one of them cannot be read
+         */
+        static Optional<byte[]> getFingerprint(Class[] modules) {
+            if (modules == null || modules.length == 0) {
+                return Optional.empty();
+            }
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                digest.update(ByteBuffer.allocate(4).putInt(VERSION).array());
+                for (Class<?> module : modules) {
+                    String className = module.getName();
+                    digest.update(className.getBytes(StandardCharsets.UTF_8));
+                    try (InputStream classFile = module.getResourceAsStream(
+                            className.substring(className.lastIndexOf('.') + 1) + ".class")) {
+                        if (classFile == null) {
+                            log.debug("Class file of module {} is not available, the snapshot is not used", module);
+                            return Optional.empty();
+                        }
+                        digest.update(classFile.readAllBytes());
+                    }
+                }
+                return Optional.of(digest.digest());
+            } catch (IOException | NoSuchAlgorithmException e) {
+                log.warn("Unable to fingerprint modules {}, the snapshot is not used", Arrays.toString(modules), e);
+                return Optional.empty();
+            }
+        }
+
+        static Optional<ItemIndex> read(Path file, byte[] fingerprint, Class[] modules) {
+            if (!Files.isRegularFile(file)) {
+                return Optional.empty();
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                    log.info("Snapshot {} is not of version {}, building the graph", file, VERSION);
+                    return Optional.empty();
+                }
+                byte[] snapshotFingerprint = new byte[buffer.getInt()];
+                buffer.get(snapshotFingerprint);
+                if (!Arrays.equals(fingerprint, snapshotFingerprint)) {
+                    log.info("Snapshot {} is of other modules, building the graph", file);
+                    return Optional.empty();
+                }
+
+                String[] strings = new String[buffer.getInt()];
+                for (int i = 0; i < strings.length; i++) {
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+
+                int itemCount = buffer.getInt();
+                ItemKey<?>[] itemKeys = new ItemKey<?>[itemCount];
+                Method[] methods = new Method[itemCount];
+                int[] flags = new int[itemCount];
+                String[] mapKeys = new String[itemCount];
+                int[][] dependencyIds = new int[itemCount][];
+                DependencyKind[][] dependencyKinds = new DependencyKind[itemCount][];
+
+                for (int id = 0; id < itemCount; id++) {
+                    String keyClassName = strings[buffer.getInt()];
+                    byte qualifierKind = buffer.get();
+                    int qualifierName = buffer.getInt();
+                    flags[id] = buffer.getInt();
+
+                    int moduleIndex = buffer.getInt();
+                    ClassLoader classLoader = modules[Math.max(moduleIndex, 0)].getClassLoader();
+                    if (moduleIndex >= 0) {
+                        String methodName = strings[buffer.getInt()];
+                        Class<?>[] parameterTypes = new Class<?>[buffer.getInt()];
+                        for (int i = 0; i < parameterTypes.length; i++) {
+                            parameterTypes[i] = loadClass(strings[buffer.getInt()], classLoader);
+                        }
+                        methods[id] = modules[moduleIndex].getDeclaredMethod(methodName, parameterTypes);
+                    }
+
+                    int mapKey = buffer.getInt();
+                    mapKeys[id] = mapKey < 0 ? null : strings[mapKey];
+
+                    dependencyIds[id] = new int[buffer.getInt()];
+                    dependencyKinds[id] = new DependencyKind[dependencyIds[id].length];
+                    for (int i = 0; i < dependencyIds[id].length; i++) {
+                        dependencyIds[id][i] = buffer.getInt();
+                        dependencyKinds[id][i] = DependencyKind.values()[buffer.get()];
+                    }
+
+                    Class<Object> keyClass = (Class<Object>) loadClass(keyClassName, classLoader);
+                    switch (qualifierKind) {
+                        case QUALIFIER_NAMED:
+                            itemKeys[id] = ItemKey.namedKey(keyClass, strings[qualifierName]);
+                            break;
+                        case QUALIFIER_ANNOTATION:
+                            itemKeys[id] = new ItemKey<>(keyClass,
+                                    (Class<? extends Annotation>) loadClass(strings[qualifierName], classLoader));
+                            break;
+                        case QUALIFIER_CONTRIBUTION:
+                            itemKeys[id] = ItemKey.contributionKey(keyClass, methods[id]);
+                            break;
+                        default:
+                            itemKeys[id] = new ItemKey<>(keyClass);
+                    }
+                }
+
+                List<Item> items = new ArrayList<>(itemCount);
+                for (int id = 0; id < itemCount; id++) {
+                    Dependency[] dependencies = new Dependency[dependencyIds[id].length];
+                    for (int i = 0; i < dependencies.length; i++) {
+                        dependencies[i] = new Dependency(itemKeys[dependencyIds[id][i]], dependencyKinds[id][i]);
+                    }
+                    items.add(getItem(itemKeys[id], dependencies, methods[id], flags[id], mapKeys[id],
+                            dependencyIds[id], mapKeys));
+                }
+
+                ItemIndex itemIndex = new ItemIndex(items);
+                if (!itemIndex.duplicateItems.isEmpty()) {
+                    log.warn("Snapshot {} has duplicate items, building the graph", file);
+                    return Optional.empty();
+                }
+                itemIndex.adjacency = dependencyIds;
+                return Optional.of(itemIndex);
+            } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+                log.warn("Unable to load snapshot {}, building the graph", file, e);
+                return Optional.empty();
+            }
+        }
+
+        private static Item getItem(ItemKey<?> itemKey, Dependency[] dependencies, Method method, int flags,
+                                    String mapKey, int[] dependencyIds, String[] mapKeys) {
+            boolean singleton = (flags & FLAG_SINGLETON) != 0;
+            boolean async = (flags & FLAG_ASYNC) != 0;
+            boolean requestScoped = (flags & FLAG_REQUEST_SCOPED) != 0;
+
+            Contribution contribution = null;
+            if ((flags & FLAG_SET_CONTRIBUTION) != 0) {
+                contribution = new Contribution(Set.class, null);
+            } else if ((flags & FLAG_MAP_CONTRIBUTION) != 0) {
+                contribution = new Contribution(Map.class, mapKey);
+            }
+
+            //the pooling is read from the annotations of the provider method, which are part of the fingerprint
+            Pooling pooling = null;
+            MethodHandle factoryHandle;
+            if (method != null) {
+                factoryHandle = getFactoryHandle(method);
+                pooling = getPooling(method, itemKey.getItemClass());
+            } else if (itemKey.getItemClass() == Map.class) {
+                //a multibound map, keyed by the map keys of its contributions
+                String[] contributedMapKeys = new String[dependencyIds.length];
+                for (int i = 0; i < dependencyIds.length; i++) {
+                    contributedMapKeys[i] = mapKeys[dependencyIds[i]];
+                }
+                factoryHandle = MethodHandles.insertArguments(NEW_CONTRIBUTED_MAP, 0, (Object) contributedMapKeys);
+            } else {
+                factoryHandle = NEW_CONTRIBUTED_SET;
+            }
+
+            return new Item(itemKey, itemKey.getItemClass(), null, dependencies, method, factoryHandle, singleton, async,
+                    requestScoped, contribution, pooling);
+        }
+
+        private static Class<?> loadClass(String className, ClassLoader classLoader) throws ClassNotFoundException {
+            Class<?> primitiveType = primitiveTypes.get(className);
+            return primitiveType != null ? primitiveType : Class.forName(className, false, classLoader);
+        }
+
+        /**
+         * Writes the graph of the injector to the file, through a temporary file which then replaces it. Failing to
+         * write is logged, as the injector is built either way.
+         */
+        static void write(Path file, byte[] fingerprint, Class[] modules, PikoDI pikoDI) {
+            try {
+                Map<String, Integer> stringIds = new LinkedHashMap<>();
+                ByteArrayOutputStream itemBytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(itemBytes);
+
+                out.writeInt(pikoDI.items.length);
+                for (int id = 0; id < pikoDI.items.length; id++) {
+                    writeItem(out, pikoDI.items[id], pikoDI.dependencyIds[id], pikoDI.dependencyKinds[id], modules,
+                            stringIds);
+                }
+                out.flush();
+
+                ByteArrayOutputStream snapshotBytes = new ByteArrayOutputStream(itemBytes.size() + 1024);
+                DataOutputStream snapshot = new DataOutputStream(snapshotBytes);
+                snapshot.writeInt(MAGIC);
+                snapshot.writeInt(VERSION);
+                snapshot.writeInt(fingerprint.length);
+                snapshot.write(fingerprint);
+                snapshot.writeInt(stringIds.size());
+                for (String string : stringIds.keySet()) {
+                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    snapshot.writeInt(bytes.length);
+                    snapshot.write(bytes);
+                }
+                itemBytes.writeTo(snapshot);
+                snapshot.flush();
+
+                Path directory = file.toAbsolutePath().getParent();
+                Files.createDirectories(directory);
+                Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+                try {
+                    Files.write(temporaryFile, snapshotBytes.toByteArray());
+                    try {
+                        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(temporaryFile);
+                }
+                log.debug("Wrote snapshot {} of {} items", file, pikoDI.items.length);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to write snapshot {}", file, e);
+            }
+        }
+
+        private static void writeItem(DataOutputStream out, Item item, int[] dependencyIds,
+                                      DependencyKind[] dependencyKinds, Class[] modules,
+                                      Map<String, Integer> stringIds) throws IOException {
+            out.writeInt(getStringId(item.ownItemKey.getItemClass().getName(), stringIds));
+
+            Object qualifier = item.ownItemKey.getQualifier();
+            if (qualifier instanceof String) {
+                out.writeByte(QUALIFIER_NAMED);
+                out.writeInt(getStringId((String) qualifier, stringIds));
+            } else if (qualifier instanceof Class) {
+                out.writeByte(QUALIFIER_ANNOTATION);
+                out.writeInt(getStringId(((Class<?>) qualifier).getName(), stringIds));
+            } else if (qualifier instanceof Method) {
+                out.writeByte(QUALIFIER_CONTRIBUTION);
+                out.writeInt(-1);
+            } else {
+                out.writeByte(QUALIFIER_NONE);
+                out.writeInt(-1);
+            }
+
+            int flags = (item.singleton ? FLAG_SINGLETON : 0)
+                    | (item.async ? FLAG_ASYNC : 0)
+                    | (item.requestScoped ? FLAG_REQUEST_SCOPED : 0);
+            if (item.contribution != null) {
+                flags |= item.contribution.mapKey == null ? FLAG_SET_CONTRIBUTION : FLAG_MAP_CONTRIBUTION;
+            }
+            out.writeInt(flags);
+
+            Method method = item.factoryMethod;
+            if (method == null) {
+                out.writeInt(-1);
+            } else {
+                int moduleIndex = Arrays.asList(modules).indexOf(method.getDeclaringClass());
+                if (moduleIndex < 0) {
+                    throw new IOException("Provider method " + method + " is not declared by one of the modules");
+                }
+                out.writeInt(moduleIndex);
+                out.writeInt(getStringId(method.getName(), stringIds));
+                out.writeInt(method.getParameterCount());
+                for (Class<?> parameterType : method.getParameterTypes()) {
+                    out.writeInt(getStringId(parameterType.getName(), stringIds));
+                }
+            }
+
+            String mapKey = item.contribution == null ? null : item.contribution.mapKey;
+            out.writeInt(mapKey == null ? -1 : getStringId(mapKey, stringIds));
+
+            out.writeInt(dependencyIds.length);
+            for (int i = 0; i < dependencyIds.length; i++) {
+                out.writeInt(dependencyIds[i]);
+                out.writeByte(dependencyKinds[i].ordinal());
+            }
+        }
+
+        private static int getStringId(String string, Map<String, Integer> stringIds) {
+            Integer id = stringIds.get(string);
+            if (id == null) {
+                id = stringIds.size();
+                stringIds.put(string, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * The total time spent in, and the number of invocations of, the provider of each item
+     */
+    private static final class ProviderTimes {
+
+        private final AtomicLongArray nanos;
+        private final AtomicLongArray invocations;
+
+        ProviderTimes(int size) {
+            this.nanos = new AtomicLongArray(size);
+            this.invocations = new AtomicLongArray(size);
+        }
+
+        void record(int id, long durationNanos) {
+            nanos.addAndGet(id, durationNanos);
+            invocations.incrementAndGet(id);
+        }
+    }
+
+    /**
+     * Holds the single instance of an Item provided by a {@link Singleton} provider method, or the instance of a
+     * {@link RequestScoped} one in a {@link Scope}.
+     * <p>
+     * Once the instance is built every lookup is a single volatile read. The first lookup starts the build, which
+     * runs without holding the lock of the holder, and concurrent first lookups wait for it, so the instance is built
+     * exactly once. A build can get back to a holder being built through a provider method calling a
+     * {@link Provider} or {@link Lazy} during the build: on the building thread itself, or on threads which wait for
+     * each other's builds, e.g. two threads first looking up the opposite ends of such a cycle. Both are reported as
+     * the cycle they are (the same lookups fail on a single thread) instead of recursing or deadlocking.
+     * <p>
+     * An asynchronous lookup starts the build the same way, and the part of it which runs on the thread of the lookup
+     * is tracked like a synchronous build. The providers which only run once the futures they wait for complete run
+     * on the threads completing them, which are not tracked.
+     * <p>
+     * A provider method may return null, which is kept like any other instance.
+     */
+    private static final class SingletonHolder {
+
+        //the instance kept for a provider method which returned null, as a null instance means not built yet
+        private static final Object NULL = new Object();
+
+        //the holder every thread waiting for the build of another thread waits for, to find waits which would never
+        //end. Only the lookups which wait for a build get here
+        private static final Map<Thread, SingletonHolder> waitingHolders = new ConcurrentHashMap<>();
+
+        private volatile Object instance;
+
+        //the build in progress, started by getInstance or getInstanceAsync, and null once it is done. Guarded by the
+        //lock, which is only held to start or finish a build, never while building
+        private CompletableFuture<Object> future;
+
+        //the thread running the build started by getInstance, or the part of the one started by getInstanceAsync
+        //which runs on the thread of the lookup, null otherwise
+        private volatile Thread builder;
+
+        //the injector which closes the instance, see PikoDI#close, null for the instance of a scope
+        private volatile PikoDI owner;
+
+        SingletonHolder(PikoDI owner) {
+            this.owner = owner;
+        }
+
+        boolean isBuilt() {
+            return instance != null;
+        }
+
+        /**
+         * @param scope the scope of the lookup, which the build is in, null outside of any scope
+         */
+        Object getInstance(PikoDI pikoDI, int id, Scope scope) {
+            Object result = instance;
+            if (result != null) {
+                return unwrap(result);
+            }
+
+            CompletableFuture<Object> buildFuture = null;
+            Thread currentThread = Thread.currentThread();
+            synchronized (this) {
+                result = instance;
+                if (result != null) {
+                    return unwrap(result);
+                }
+                if (future == null) {
+                    buildFuture = new CompletableFuture<>();
+                    future = buildFuture;
+                    builder = currentThread;
+                } else if (builder == currentThread) {
+                    throw pikoDI.getReentrantInstantiationException(id);
+                }
+            }
+            return buildFuture != null ? build(pikoDI, id, scope, buildFuture) : await(pikoDI, id, scope, currentThread);
+        }
+
+        private Object build(PikoDI pikoDI, int id, Scope scope, CompletableFuture<Object> buildFuture) {
+            Object result;
+            try {
+                result = pikoDI.newInstanceOf(id, scope);
+            } catch (RuntimeException | Error e) {
+                //a failed build is not remembered, the threads waiting for it fail with it and the next lookup
+                //builds again
+                finish(null);
+                buildFuture.completeExceptionally(e);
+                throw e;
+            }
+            finish(wrap(result));
+            buildFuture.complete(result);
+            return result;
+        }
+
+        /**
+         * @param result the instance to keep, null if the build failed
+         */
+        private synchronized void finish(Object result) {
+            instance = result;
+            future = null;
+            builder = null;
+        }
+
+        private static Object wrap(Object result) {
+            return result == null ? NULL : result;
+        }
+
+        private static Object unwrap(Object result) {
+            return result == NULL ? null : result;
+        }
+
+        /**
+         * Waits for the build started by another thread, or fails if that build (transitively) waits for a build of
+         * the current thread.
+         */
+        private Object await(PikoDI pikoDI, int id, Scope scope, Thread currentThread) {
+            CompletableFuture<Object> pendingFuture;
+            synchronized (this) {
+                if (instance != null) {
+                    return unwrap(instance);
+                }
+                pendingFuture = future;
+                if (pendingFuture == null) {
+                    //the build failed in the meantime, so this lookup builds again
+                    return getInstance(pikoDI, id, scope);
+                }
+            }
+
+            //the wait is published before following the waits of the other threads, so that of two threads waiting
+            //for each other at least the second one to get here finds the cycle
+            waitingHolders.put(currentThread, this);
+            try {
+                if (isAwaitedBy(currentThread)) {
+                    throw pikoDI.getReentrantInstantiationException(id);
+                }
+                return pendingFuture.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof InstantiationFailure) {
+                    throw ((InstantiationFailure) e.getCause()).copy();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause()
+                        : getInstantiationException(pikoDI.items[id].ownItemKey, e.getCause());
+            } finally {
+                waitingHolders.remove(currentThread);
+            }
+        }
+
+        /**
+         * @return whether the build of this holder waits for the given thread, following the builders of the holders
+         * their threads wait for
+         */
+        private boolean isAwaitedBy(Thread thread) {
+            SingletonHolder holder = this;
+            //a chain of waits is no longer than the number of waiting threads, unless it is a cycle without the thread
+            for (int remaining = waitingHolders.size(); holder != null && remaining >= 0; remaining--) {
+                Thread holderBuilder = holder.builder;
+                if (holderBuilder == null) {
+                    return false;
+                }
+                if (holderBuilder == thread) {
+                    return true;
+                }
+                holder = waitingHolders.get(holderBuilder);
+            }
+            return false;
+        }
+
+        CompletableFuture<Object> getInstanceAsync(PikoDI pikoDI, int id) {
+            Object result = instance;
+            if (result != null) {
+                return CompletableFuture.completedFuture(unwrap(result));
+            }
+
+            CompletableFuture<Object> buildFuture;
+            synchronized (this) {
+                result = instance;
+                if (result != null) {
+                    return CompletableFuture.completedFuture(unwrap(result));
+                }
+                if (future != null) {
+                    return future;
+                }
+                buildFuture = new CompletableFuture<>();
+                future = buildFuture;
+                builder = Thread.currentThread();
+            }
+            return buildAsync(pikoDI, id, buildFuture);
+        }
+
+        private CompletableFuture<Object> buildAsync(PikoDI pikoDI, int id, CompletableFuture<Object> buildFuture) {
+            CompletableFuture<Object> newFuture;
+            try {
+                newFuture = pikoDI.newInstanceAsyncOf(id);
+            } catch (RuntimeException | Error e) {
+                finish(null);
+                buildFuture.completeExceptionally(e);
+                return buildFuture;
+            }
+            synchronized (this) {
+                //what is left of the build runs on the threads completing the futures it waits for
+                if (future == buildFuture) {
+                    builder = null;
+                }
+            }
+            newFuture.whenComplete((builtInstance, e) -> {
+                if (e == null) {
+                    finish(wrap(builtInstance));
+                    buildFuture.complete(builtInstance);
+                } else {
+                    //a failed build is not remembered, just like a failed synchronous one
+                    finish(null);
+                    buildFuture.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                }
+            });
+            return buildFuture;
+        }
+    }
+
+    /**
+     * The idle instances of a {@link Pooled} item, in a fixed array of slots taken and filled with compare and set, so
+     * neither borrowing nor returning takes a lock. Every thread starts scanning the slots at its own offset, so
+     * threads mostly take and fill different slots and rarely race for the same one.
+     */
+    private static final class Pool {
+
+        private final AtomicReferenceArray<Object> slots;
+        private final MethodHandle reset;
+
+        //the injector which closes the idle instances, see PikoDI#close
+        private volatile PikoDI owner;
+
+        Pool(Pooling pooling, PikoDI owner) {
+            this.slots = new AtomicReferenceArray<>(pooling.size);
+            this.reset = pooling.reset;
+            this.owner = owner;
+        }
+
+        /**
+         * @return an idle instance, or null if there is none
+         */
+        Object poll() {
+            int length = slots.length();
+            int start = getStart(length);
+            for (int i = 0; i < length; i++) {
+                int slot = start + i < length ? start + i : start + i - length;
+                Object instance = slots.get(slot);
+                if (instance != null && slots.compareAndSet(slot, instance, null)) {
+                    return instance;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Resets the instance and keeps it, unless the reset hook fails or all the slots are taken.
+         *
+         * @return whether the instance was kept
+         */
+        boolean offer(Object instance) {
+            if (reset != null) {
+                try {
+                    reset.invokeExact(instance);
+                } catch (Throwable e) {
+                    log.warn("Unable to reset pooled instance {}, dropping it", instance, e);
+                    return false;
+                }
+            }
+
+            int length = slots.length();
+            int start = getStart(length);
+            for (int i = 0; i < length; i++) {
+                int slot = start + i < length ? start + i : start + i - length;
+                if (slots.get(slot) == null && slots.compareAndSet(slot, null, instance)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int getStart(int length) {
+            return (int) (Thread.currentThread().getId() % length);
+        }
+    }
+
+    /**
+     * A scope for the {@link RequestScoped} items, opened by {@link PikoDI#enterScope()}. Lookups through the scope
+     * build every request scoped item at most once, until the scope is closed.
+     * <p>
+     * The instances are kept in an array of holders indexed by the scope slot of the item, guarded by the scope
+     * itself, so a scope can be shared by the threads serving a request. The lock of the scope is only held to get the
+     * holder, the instance is built like a singleton is (see {@link SingletonHolder}), so a slow build only holds up
+     * the lookups of the same item. Nothing is kept per thread, so there is nothing to clean up but the scope, which
+     * {@link #close()} does.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final PikoDI pikoDI;
+
+        //guarded by this
+        private SingletonHolder[] holders;
+        private boolean closed;
+        //the scope of the parent injector, for the request scoped items of the parent
+        private Scope parentScope;
+
+        private Scope(PikoDI pikoDI) {
+            this.pikoDI = pikoDI;
+        }
+
+        /**
+         * @return the scope for the items of the given injector, which is this one or an ancestor of it
+         */
+        Scope getScopeOf(PikoDI owner) {
+            if (owner == pikoDI) {
+                return this;
+            }
+            synchronized (this) {
+                if (parentScope == null) {
+                    parentScope = new Scope(pikoDI.parent);
+                    if (closed) {
+                        parentScope.close();
+                    }
+                }
+                return parentScope.getScopeOf(owner);
+            }
+        }
+
+        /**
+         * Like {@link PikoDI#getInstanceOf(ItemKey)}, in this scope.
+         *
+         * @throws Exception with the error code OUT_OF_SCOPE if a request scoped item is needed after the scope
+         *                   was closed
+         */
+        public <T> T getInstanceOf(ItemKey<T> itemKey) {
+            Integer id = pikoDI.keyToIdMap.get(itemKey);
+
+            if (id != null) {
+                return (T) pikoDI.instanceOf(id, this);
+            } else if (pikoDI.parent != null) {
+                return getScopeOf(pikoDI.parent).getInstanceOf(itemKey);
+            } else {
+                throw getNoProvidersException(itemKey);
+            }
+        }
+
+        /**
+         * Like {@link PikoDI#tryGetInstanceOf(ItemKey)}, in this scope.
+         */
+        public <T> Optional<T> tryGetInstanceOf(ItemKey<T> itemKey) {
+            Integer id = pikoDI.keyToIdMap.get(itemKey);
+
+            if (id != null) {
+                return Optional.ofNullable((T) pikoDI.instanceOf(id, this));
+            } else if (pikoDI.parent != null) {
+                return getScopeOf(pikoDI.parent).tryGetInstanceOf(itemKey);
+            } else {
+                return Optional.empty();
+            }
+        }
+
+        /**
+         * Like {@link Key#get()}, in this scope. The key must have been compiled by the injector of this scope (or
+         * one of its ancestors).
+         */
+        public <T> T get(Key<T> key) {
+            return (T) key.pikoDI.instanceOf(key.id, getScopeOf(key.pikoDI));
+        }
+
+        Object getInstance(int scopeSlot, int id) {
+            SingletonHolder holder;
+            synchronized (this) {
+                if (closed) {
+                    throw pikoDI.getOutOfScopeException(id);
+                }
+                if (holders == null) {
+                    holders = new SingletonHolder[pikoDI.scopeSlotCount];
+                }
+                holder = holders[scopeSlot];
+                if (holder == null) {
+                    holder = new SingletonHolder(null);
+                    holders[scopeSlot] = holder;
+                }
+            }
+            if (pikoDI.listener != null) {
+                pikoDI.listener.onCacheLookup(pikoDI.items[id].ownItemKey, holder.isBuilt());
+            }
+            return holder.getInstance(pikoDI, id, this);
+        }
+
+        /**
+         * Drops the instances of the scope, after which the request scoped items cannot be looked up through it.
+         */
+        @Override
+        public void close() {
+            Scope scopeToClose;
+            synchronized (this) {
+                closed = true;
+                holders = null;
+                scopeToClose = parentScope;
+            }
+            if (scopeToClose != null) {
+                scopeToClose.close();
+            }
+        }
+    }
+
+    /**
+     * The {@link Provider} passed for a {@link DependencyKind#PROVIDER} dependency within a {@link Scope}.
+     */
+    private static final class ScopedProvider implements Provider<Object> {
+
+        private final Scope scope;
+        private final int id;
+
+        ScopedProvider(Scope scope, int id) {
+            this.scope = scope;
+            this.id = id;
+        }
+
+        @Override
+        public Object get() {
+            return scope.pikoDI.instanceOf(id, scope);
+        }
+
+        @Override
+        public String toString() {
+            return "Provider{" + scope.pikoDI.items[id].ownItemKey + '}';
+        }
+    }
+
+    /**
+     * The {@link Provider} passed for a {@link DependencyKind#PROVIDER} dependency, which resolves the item on every
+     * call just like {@link #getInstanceOf(ItemKey)} does.
+     */
+    private static final class InstanceProvider implements Provider<Object> {
+
+        private final PikoDI pikoDI;
+        private final int id;
+
+        InstanceProvider(PikoDI pikoDI, int id) {
+            this.pikoDI = pikoDI;
+            this.id = id;
+        }
+
+        @Override
+        public Object get() {
+            return pikoDI.instanceOf(id);
+        }
+
+        @Override
+        public String toString() {
+            return "Provider{" + pikoDI.items[id].ownItemKey + '}';
+        }
+    }
+
+    /**
+     * The {@link Lazy} passed for a {@link DependencyKind#LAZY} dependency, a new one for every injection.
+     */
+    private static final class MemoizingLazy implements Lazy<Object> {
+
+        private final Provider<?> provider;
+        private volatile Object instance;
+
+        MemoizingLazy(Provider<?> provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public Object get() {
+            Object result = instance;
+            if (result == null) {
+                synchronized (this) {
+                    result = instance;
+                    if (result == null) {
+                        result = provider.get();
+                        instance = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Lazy{" + provider + '}';
+        }
+    }
+
+    /**
+     * A dependency of an item, i.e. the key of the required item and how it is passed to the provider method.
+     */
+    private static final class Dependency {
+
+        private final ItemKey<?> itemKey;
+        private final DependencyKind kind;
+
+        Dependency(ItemKey<?> itemKey, DependencyKind kind) {
+            this.itemKey = itemKey;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Dependency)) return false;
+            Dependency that = (Dependency) o;
+            return itemKey.equals(that.itemKey) && kind == that.kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * itemKey.hashCode() + kind.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return kind.isDeferred() ? kind + "<" + itemKey + ">" : itemKey.toString();
+        }
+    }
+
+    /**
+     * The collection an {@link IntoSet} or {@link IntoMap} provider method contributes to, which is identified by
+     * the collection type and the qualifier of the method.
+     */
+    private static final class Contribution {
+
+        private final Class<?> collectionClass;
+        //the key of the entry for a Map contribution, null for a Set contribution
+        private final String mapKey;
+
+        Contribution(Class<?> collectionClass, String mapKey) {
+            this.collectionClass = collectionClass;
+            this.mapKey = mapKey;
+        }
+
+        @Override
+        public String toString() {
+            return mapKey == null ? collectionClass.getSimpleName() : collectionClass.getSimpleName() + "[" + mapKey + "]";
+        }
+    }
+
+    /**
+     * The {@link Pooled} settings of an item.
+     */
+    private static final class Pooling {
+
+        private final int size;
+        private final String resetName;
+        //null if the provider has no reset hook, or if it names a method which cannot be used as one
+        private final MethodHandle reset;
+
+        Pooling(int size, String resetName, MethodHandle reset) {
+            this.size = size;
+            this.resetName = resetName;
+            this.reset = reset;
+        }
+
+        @Override
+        public String toString() {
+            return resetName.isEmpty() ? "Pooled[" + size + "]" : "Pooled[" + size + ", " + resetName + "]";
+        }
+    }
+
+    /**
+     * The items of a module class, split into the eligible ones and the ones depending on themselves.
+     */
+    private static final class ModuleScan {
+
+        private final List<Item> eligibleItems;
+        private final List<Item> inEligibleItems;
+
+        //set once the items are merged into an injector, after which they are reused from the cache
+        private final AtomicBoolean merged = new AtomicBoolean();
+
+        ModuleScan(List<Item> eligibleItems, List<Item> inEligibleItems) {
+            this.eligibleItems = Collections.unmodifiableList(eligibleItems);
+            this.inEligibleItems = Collections.unmodifiableList(inEligibleItems);
+        }
+
+        boolean isEmpty() {
+            return eligibleItems.isEmpty() && inEligibleItems.isEmpty();
+        }
+
+        /**
+         * @return whether the items were already merged into an injector before, i.e. the scan is reused
+         */
+        boolean markMerged() {
+            return merged.get() || !merged.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Items are immutable, as the ones scanned from a module class are shared by every injector created from it
+     * (see {@link #moduleScans}).
+     */
+    private static final class Item {
+
+        private final ItemKey<?> ownItemKey;
+        private final Class<?> itemClass;
+        private final Annotation qualifierAnnotation;
+        //exactly one per parameter of the provider, in order. Never modified, nor handed out
+        private final Dependency[] dependencies;
+        private final Method factoryMethod;
+        private final MethodHandle factoryHandle;
+        private final boolean singleton;
+        //whether the factory returns a CompletableFuture of the item instead of the item
+        private final boolean async;
+        private final boolean requestScoped;
+        //the collection the item is contributed to, null for the items provided on their own
+        private final Contribution contribution;
+        //the pool of the item, null unless its provider is @Pooled
+        private final Pooling pooling;
+
+        Item(ItemKey<?> ownItemKey, Class<?> itemClass, Annotation qualifierAnnotation, Dependency[] dependencies,
+             Method method, MethodHandle factoryHandle, boolean singleton, boolean async, boolean requestScoped,
+             Contribution contribution, Pooling pooling) {
+            this.ownItemKey = ownItemKey;
+            this.itemClass = itemClass;
+            this.qualifierAnnotation = qualifierAnnotation;
+            this.dependencies = dependencies;
+            this.factoryMethod = method;
+            this.factoryHandle = factoryHandle;
+            this.singleton = singleton;
+            this.async = async;
+            this.requestScoped = requestScoped;
+            this.contribution = contribution;
+            this.pooling = pooling;
+        }
+
+        Item(ItemKey<?> ownItemKey, Dependency[] dependencies, MethodHandle factoryHandle, boolean singleton,
+             boolean async) {
+            //an item of a precompiled injector, which has no provider Method or qualifier Annotation instance
+            this(ownItemKey, ownItemKey.getItemClass(), null, dependencies, null, factoryHandle, singleton, async,
+                    false, null, null);
+        }
+
+        boolean isOwnKeyEqualTo(ItemKey otherItemKey) {
+            return this.ownItemKey.equals(otherItemKey);
+        }
+
+        /**
+         * Whether the other item provides its key the same way, i.e. through the same provider method with the same
+         * dependencies and scope. The items scanned from a module class are shared, so the items of a module kept
+         * while swapping the others are the same. The multibound collections are built again on every scan, and are
+         * the same as long as their contributions are.
+         */
+        boolean isSameProvisionAs(Item other) {
+            if (this == other) {
+                return true;
+            }
+            boolean sameProvider = factoryMethod != null ? factoryMethod == other.factoryMethod
+                    : other.factoryMethod == null && isCollection() && other.isCollection();
+            return sameProvider
+                    && ownItemKey.equals(other.ownItemKey)
+                    && singleton == other.singleton
+                    && async == other.async
+                    && requestScoped == other.requestScoped
+                    && pooling == other.pooling
+                    && Arrays.equals(dependencies, other.dependencies);
+        }
+
+        private boolean isCollection() {
+            return dependencies.length > 0 && dependencies[0].itemKey.getQualifier() instanceof Method;
         }
 
         @Override
@@ -716,8 +3502,13 @@ public class PikoDI {
                     "ownItemKey=" + ownItemKey +
                     ", itemClass=" + itemClass +
                     ", qualifierAnnotation=" + qualifierAnnotation +
-                    ", dependentItemKeys=" + dependentItemKeys +
+                    ", dependencies=" + Arrays.toString(dependencies) +
                     ", factoryMethod=" + factoryMethod +
+                    ", singleton=" + singleton +
+                    ", async=" + async +
+                    ", requestScoped=" + requestScoped +
+                    ", contribution=" + contribution +
+                    ", pooling=" + pooling +
                     '}';
         }
     }
@@ -0,0 +1,73 @@
+package com.github.pikosphere.di;
+
+/**
+ * Receives the timings of building an injector and of the instances it builds, e.g. to record metrics
+ * ({@link PikoDIMetrics}) or JFR events ({@link JfrPikoDIListener}). Registered with
+ * {@link PikoDI#builder()}, and inherited by the child injectors.
+ * <p>
+ * The callbacks are made on the thread which builds the injector or the instance, so they must be cheap, thread
+ * safe and must not throw. An injector without a listener skips the timing altogether.
+ */
+public interface PikoDIListener {
+
+    /**
+     * The phases of building an injector, in the order they run
+     */
+    enum Phase {
+        //scanning the modules for their items (or loading the items of a precompiled injector)
+        SCAN,
+        DUPLICATES,
+        IDENTIFIERS,
+        MISSING_PROVIDERS,
+        CYCLES,
+        //checking that no pooled item or singleton keeps the instance of a request scoped one
+        SCOPES
+    }
+
+    /**
+     * Called once a phase of building an injector is done, even if it failed the validation.
+     */
+    default void onPhase(Phase phase, long durationNanos) {
+    }
+
+    /**
+     * Called for every module whose items are merged into an injector being built, with whether its scan was reused
+     * from an injector built before (the items of a module class are only scanned once).
+     */
+    default void onModuleScan(Class<?> module, boolean cached) {
+    }
+
+    /**
+     * Called once the provider of an item returned its instance, with the time taken to resolve the dependencies of
+     * the item and invoke its provider.
+     */
+    default void onInstantiation(ItemKey<?> itemKey, long durationNanos) {
+    }
+
+    /**
+     * Called when the provider of an item, or resolving one of its dependencies, failed.
+     */
+    default void onInstantiationFailure(ItemKey<?> itemKey, long durationNanos, Throwable error) {
+    }
+
+    /**
+     * Called on every lookup of a cached (singleton or request scoped) item, with whether its instance was already
+     * built.
+     */
+    default void onCacheLookup(ItemKey<?> itemKey, boolean hit) {
+    }
+
+    /**
+     * Called on every borrow of a {@link Pooled} item, with whether an idle instance was reused.
+     * A miss builds a new instance, so many misses mean the pool is too small for the borrowers.
+     */
+    default void onPoolBorrow(ItemKey<?> itemKey, boolean hit) {
+    }
+
+    /**
+     * Called when a borrowed instance of a {@link Pooled} item is returned, with whether the pool kept it. It is
+     * dropped if the pool is full or its reset hook failed.
+     */
+    default void onPoolReturn(ItemKey<?> itemKey, boolean kept) {
+    }
+}
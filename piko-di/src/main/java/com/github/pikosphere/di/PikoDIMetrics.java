@@ -0,0 +1,183 @@
+package com.github.pikosphere.di;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link PikoDIListener} which keeps the counts and latencies in memory, per {@link ItemKey}, e.g.
+ * <pre>
+ * PikoDIMetrics metrics = new PikoDIMetrics();
+ * PikoDI pikoDI = PikoDI.builder().listener(metrics).create(modules);
+ * ...
+ * long[] histogram = metrics.getLatencyHistogram(new ItemKey&lt;&gt;(Connection.class));
+ * </pre>
+ * The latency histograms have {@link #HISTOGRAM_BUCKETS} power of two buckets, bucket i counting the
+ * instantiations which took [2^i, 2^(i+1)) nanoseconds (bucket 0 also counts the ones below 1ns).
+ */
+public class PikoDIMetrics implements PikoDIListener {
+
+    public static final int HISTOGRAM_BUCKETS = 64;
+
+    private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+    private final ConcurrentMap<ItemKey<?>, ItemMetrics> itemMetrics = new ConcurrentHashMap<>();
+
+    public PikoDIMetrics() {
+        for (Phase phase : Phase.values()) {
+            phaseNanos.put(phase, new LongAdder());
+        }
+    }
+
+    @Override
+    public void onPhase(Phase phase, long durationNanos) {
+        phaseNanos.get(phase).add(durationNanos);
+    }
+
+    @Override
+    public void onInstantiation(ItemKey<?> itemKey, long durationNanos) {
+        ItemMetrics metrics = getItemMetrics(itemKey);
+        metrics.instantiations.increment();
+        metrics.instantiationNanos.add(durationNanos);
+        metrics.latencyHistogram.incrementAndGet(getBucket(durationNanos));
+    }
+
+    @Override
+    public void onInstantiationFailure(ItemKey<?> itemKey, long durationNanos, Throwable error) {
+        getItemMetrics(itemKey).failures.increment();
+    }
+
+    @Override
+    public void onCacheLookup(ItemKey<?> itemKey, boolean hit) {
+        ItemMetrics metrics = getItemMetrics(itemKey);
+        (hit ? metrics.cacheHits : metrics.cacheMisses).increment();
+    }
+
+    @Override
+    public void onPoolBorrow(ItemKey<?> itemKey, boolean hit) {
+        ItemMetrics metrics = getItemMetrics(itemKey);
+        (hit ? metrics.poolHits : metrics.poolMisses).increment();
+    }
+
+    @Override
+    public void onPoolReturn(ItemKey<?> itemKey, boolean kept) {
+        if (!kept) {
+            getItemMetrics(itemKey).poolDrops.increment();
+        }
+    }
+
+    /**
+     * @return the total time spent in the phase, over all the injectors built with this listener
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos.get(phase).sum();
+    }
+
+    /**
+     * @return the keys with any metrics recorded
+     */
+    public Set<ItemKey<?>> getItemKeys() {
+        return Collections.unmodifiableSet(itemMetrics.keySet());
+    }
+
+    public long getInstantiationCount(ItemKey<?> itemKey) {
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        return metrics == null ? 0 : metrics.instantiations.sum();
+    }
+
+    public long getFailureCount(ItemKey<?> itemKey) {
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        return metrics == null ? 0 : metrics.failures.sum();
+    }
+
+    /**
+     * @return the total time spent instantiating the item, including the time spent in its dependencies
+     */
+    public long getInstantiationNanos(ItemKey<?> itemKey) {
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        return metrics == null ? 0 : metrics.instantiationNanos.sum();
+    }
+
+    /**
+     * @return a copy of the latency histogram of the item
+     */
+    public long[] getLatencyHistogram(ItemKey<?> itemKey) {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        if (metrics != null) {
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                histogram[i] = metrics.latencyHistogram.get(i);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @return the ratio of the lookups of the cached items which found the instance already built, NaN if there
+     * were none
+     */
+    public double getCacheHitRatio() {
+        long hits = 0;
+        long lookups = 0;
+        for (ItemMetrics metrics : itemMetrics.values()) {
+            long itemHits = metrics.cacheHits.sum();
+            hits += itemHits;
+            lookups += itemHits + metrics.cacheMisses.sum();
+        }
+        return lookups == 0 ? Double.NaN : (double) hits / lookups;
+    }
+
+    public long getCacheHitCount(ItemKey<?> itemKey) {
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        return metrics == null ? 0 : metrics.cacheHits.sum();
+    }
+
+    public long getCacheMissCount(ItemKey<?> itemKey) {
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        return metrics == null ? 0 : metrics.cacheMisses.sum();
+    }
+
+    public long getPoolHitCount(ItemKey<?> itemKey) {
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        return metrics == null ? 0 : metrics.poolHits.sum();
+    }
+
+    public long getPoolMissCount(ItemKey<?> itemKey) {
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        return metrics == null ? 0 : metrics.poolMisses.sum();
+    }
+
+    /**
+     * @return the number of instances returned to the pool of the item which it did not keep
+     */
+    public long getPoolDropCount(ItemKey<?> itemKey) {
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        return metrics == null ? 0 : metrics.poolDrops.sum();
+    }
+
+    private ItemMetrics getItemMetrics(ItemKey<?> itemKey) {
+        ItemMetrics metrics = itemMetrics.get(itemKey);
+        return metrics != null ? metrics : itemMetrics.computeIfAbsent(itemKey, key -> new ItemMetrics());
+    }
+
+    private static int getBucket(long durationNanos) {
+        return durationNanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(durationNanos);
+    }
+
+    private static final class ItemMetrics {
+
+        private final LongAdder instantiations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder instantiationNanos = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder cacheMisses = new LongAdder();
+        private final LongAdder poolHits = new LongAdder();
+        private final LongAdder poolMisses = new LongAdder();
+        private final LongAdder poolDrops = new LongAdder();
+        private final AtomicLongArray latencyHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    }
+}
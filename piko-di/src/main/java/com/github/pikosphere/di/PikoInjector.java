@@ -0,0 +1,26 @@
+package com.github.pikosphere.di;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a type for which the piko-di-processor generates a {@link PrecompiledInjector} at compile time, e.g.
+ * <pre>
+ * &#64;PikoInjector({Module1.class, Module2.class})
+ * interface AppInjector {
+ * }
+ * </pre>
+ * generates {@code AppInjector_PikoInjector}, which {@link PikoDI#create(Class[])} uses instead of scanning and
+ * validating the modules when it is called with exactly the same set of module classes.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface PikoInjector {
+
+    /**
+     * @return the module classes of the injector
+     */
+    Class<?>[] value();
+}
@@ -0,0 +1,50 @@
+package com.github.pikosphere.di;
+
+import javax.inject.Scope;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a provider method whose instances are costly to build but cannot be shared between threads (e.g. parsers,
+ * MessageDigests or large buffers), so they are borrowed from a pool and returned to it, e.g.
+ * <pre>
+ * &#64;Pooled(size = 8, reset = "resetDigest")
+ * &#64;Named("sha256")
+ * public static MessageDigest provideSha256() throws NoSuchAlgorithmException {
+ *     return MessageDigest.getInstance("SHA-256");
+ * }
+ *
+ * public static void resetDigest(MessageDigest digest) {
+ *     digest.reset();
+ * }
+ * ...
+ * try (PikoDI.Borrowed&lt;MessageDigest&gt; digest = pikoDI.borrow(new ItemKey&lt;&gt;(MessageDigest.class, "sha256"))) {
+ *     return digest.get().digest(bytes);
+ * }
+ * </pre>
+ * The pool keeps up to {@link #size()} idle instances. A borrow from an empty pool builds a new instance and a return
+ * to a full pool drops the instance, so borrowing never blocks. Any other lookup of the item, synchronous or
+ * asynchronous and including as a dependency, gets a new instance of its own, which does not go back to the pool, and
+ * leaves the idle ones to the borrowers.
+ * <p>
+ * As its instances are handed from one borrower to the next, a pooled item cannot depend on a {@link RequestScoped}
+ * item, directly or not, which is reported while building the injector.
+ */
+@Scope
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Pooled {
+
+    /**
+     * @return the maximum number of idle instances kept by the pool
+     */
+    int size() default 16;
+
+    /**
+     * @return the name of a public static void method of the module, taking the item, which is called on every
+     * instance returned to the pool before it can be borrowed again. An instance it fails on is dropped
+     */
+    String reset() default "";
+}
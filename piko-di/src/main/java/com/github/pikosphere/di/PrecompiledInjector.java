@@ -0,0 +1,120 @@
+package com.github.pikosphere.di;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An injector generated at compile time by the piko-di-processor for the module classes listed in a
+ * {@link PikoInjector} annotation. The modules are already validated and every provider method is called
+ * directly, so {@link PikoDI#create(Class[])} needs no reflection when it finds a matching one.
+ * <p>
+ * The generated injectors are registered as services of this interface (META-INF/services) and are looked up
+ * through the class loader of the module classes.
+ */
+public interface PrecompiledInjector {
+
+    /**
+     * @return the module classes this injector was generated for
+     */
+    List<Class<?>> getModules();
+
+    /**
+     * @return the validated provisions of all the modules
+     */
+    List<Provision> getProvisions();
+
+    /**
+     * Calls a provider method with the already resolved dependencies, in the order of its parameters.
+     */
+    @FunctionalInterface
+    interface Factory {
+        Object create(Object[] args) throws java.lang.Exception;
+    }
+
+    /**
+     * How a provider method takes a dependency: the instance itself, a {@link javax.inject.Provider} or a {@link Lazy}
+     * of it. The last two do not build the dependency up front and are not considered for cycles.
+     */
+    enum DependencyKind {
+        INSTANCE,
+        PROVIDER,
+        LAZY;
+
+        public boolean isDeferred() {
+            return this != INSTANCE;
+        }
+    }
+
+    /**
+     * The precompiled form of a provider method.
+     */
+    final class Provision {
+        private final ItemKey<?> itemKey;
+        private final List<ItemKey<?>> dependencyKeys;
+        private final List<DependencyKind> dependencyKinds;
+        private final boolean singleton;
+        private final boolean async;
+        private final Factory factory;
+
+        public Provision(ItemKey<?> itemKey, List<ItemKey<?>> dependencyKeys, boolean singleton, Factory factory) {
+            this(itemKey, dependencyKeys, Collections.nCopies(dependencyKeys.size(), DependencyKind.INSTANCE), singleton, factory);
+        }
+
+        /**
+         * @param dependencyKinds how each of the dependencyKeys is passed to the factory
+         */
+        public Provision(ItemKey<?> itemKey, List<ItemKey<?>> dependencyKeys, List<DependencyKind> dependencyKinds,
+                         boolean singleton, Factory factory) {
+            this(itemKey, dependencyKeys, dependencyKinds, singleton, false, factory);
+        }
+
+        /**
+         * @param async whether the factory returns a CompletableFuture of the item instead of the item
+         */
+        public Provision(ItemKey<?> itemKey, List<ItemKey<?>> dependencyKeys, List<DependencyKind> dependencyKinds,
+                         boolean singleton, boolean async, Factory factory) {
+            assert dependencyKeys.size() == dependencyKinds.size() : "every dependency key needs a dependency kind";
+            this.itemKey = itemKey;
+            this.dependencyKeys = dependencyKeys;
+            this.dependencyKinds = dependencyKinds;
+            this.singleton = singleton;
+            this.async = async;
+            this.factory = factory;
+        }
+
+        public ItemKey<?> getItemKey() {
+            return itemKey;
+        }
+
+        public List<ItemKey<?>> getDependencyKeys() {
+            return dependencyKeys;
+        }
+
+        public List<DependencyKind> getDependencyKinds() {
+            return dependencyKinds;
+        }
+
+        public boolean isSingleton() {
+            return singleton;
+        }
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public Factory getFactory() {
+            return factory;
+        }
+
+        @Override
+        public String toString() {
+            return "Provision{" +
+                    "itemKey=" + itemKey +
+                    ", dependencyKeys=" + dependencyKeys +
+                    ", dependencyKinds=" + dependencyKinds +
+                    ", singleton=" + singleton +
+                    ", async=" + async +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.pikosphere.di;
+
+import javax.inject.Scope;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a provider method whose item is built once per {@link PikoDI.Scope}, e.g.
+ * <pre>
+ * try (PikoDI.Scope scope = pikoDI.enterScope()) {
+ *     RequestContext context = scope.getInstanceOf(new ItemKey&lt;&gt;(RequestContext.class));
+ *     ...
+ * }
+ * </pre>
+ * Within a scope every lookup of the item, and of anything depending on it, gets the same instance. The item
+ * cannot be looked up outside of an open scope. A singleton or a pooled item cannot depend on it, as its instance
+ * would outlive the scope, except for a singleton depending on a {@link javax.inject.Provider} or
+ * {@link Lazy} of it.
+ */
+@Scope
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RequestScoped {
+}
@@ -0,0 +1,240 @@
+package com.github.pikosphere.di;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The time spent in each provider of an injector built with {@link PikoDI.Builder#profiling()}, laid out on its
+ * dependency graph, see {@link PikoDI#getStartupProfile()}. It tells apart:
+ * <ul>
+ * <li>the serial cost, the time to build every profiled item once, one after the other</li>
+ * <li>the parallel cost, the time to build them with unlimited threads, e.g. by {@link PikoDI#warmUp()}, which is
+ * the cost of the critical path, the chain of dependencies taking the longest</li>
+ * </ul>
+ * The cost of an item is the average time spent in its provider, without resolving its dependencies. Deferred
+ * dependencies ({@link javax.inject.Provider}, {@link Lazy}) do not hold up their dependents, so they are not
+ * edges of the graph, and neither are the items of a parent injector.
+ */
+public final class StartupProfile {
+
+    private final List<Entry> entries;
+    private final List<ItemKey<?>> criticalPath;
+    private final long serialNanos;
+    private final long parallelNanos;
+
+    StartupProfile(ItemKey<?>[] itemKeys, long[] ownNanos, long[] invocations, int[][] dependencyIds,
+                   int[] topologicalOrder) {
+        int size = itemKeys.length;
+        long[] finishNanos = new long[size];
+        int[] criticalDependency = new int[size];
+
+        //the earliest each item can be done, its dependencies (which come first in the order) being done before it
+        long serial = 0;
+        int last = -1;
+        for (int id : topologicalOrder) {
+            long start = 0;
+            criticalDependency[id] = -1;
+            for (int dependencyId : dependencyIds[id]) {
+                if (criticalDependency[id] < 0 || finishNanos[dependencyId] > start) {
+                    start = finishNanos[dependencyId];
+                    criticalDependency[id] = dependencyId;
+                }
+            }
+            finishNanos[id] = start + ownNanos[id];
+            serial += ownNanos[id];
+            if (last < 0 || finishNanos[id] > finishNanos[last]) {
+                last = id;
+            }
+        }
+
+        boolean[] onCriticalPath = new boolean[size];
+        List<ItemKey<?>> path = new ArrayList<>();
+        for (int id = last; id >= 0; id = criticalDependency[id]) {
+            onCriticalPath[id] = true;
+            path.add(itemKeys[id]);
+        }
+        Collections.reverse(path);
+
+        List<Entry> entryList = new ArrayList<>(size);
+        for (int id : topologicalOrder) {
+            List<ItemKey<?>> dependencies = new ArrayList<>(dependencyIds[id].length);
+            for (int dependencyId : dependencyIds[id]) {
+                dependencies.add(itemKeys[dependencyId]);
+            }
+            ItemKey<?> criticalDependencyKey = criticalDependency[id] < 0 ? null : itemKeys[criticalDependency[id]];
+            entryList.add(new Entry(itemKeys[id], ownNanos[id], invocations[id], finishNanos[id] - ownNanos[id],
+                    finishNanos[id], onCriticalPath[id], Collections.unmodifiableList(dependencies),
+                    criticalDependencyKey));
+        }
+
+        this.entries = Collections.unmodifiableList(entryList);
+        this.criticalPath = Collections.unmodifiableList(path);
+        this.serialNanos = serial;
+        this.parallelNanos = last < 0 ? 0 : finishNanos[last];
+    }
+
+    /**
+     * @return the items, dependencies first
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the chain of dependencies taking the longest to build, from the first one to build to the last one
+     */
+    public List<ItemKey<?>> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getSerialNanos() {
+        return serialNanos;
+    }
+
+    public long getParallelNanos() {
+        return parallelNanos;
+    }
+
+    /**
+     * @return the profile as a JSON object, with the times in nanoseconds
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"serialNanos\": ").append(serialNanos).append(",\n");
+        json.append("  \"parallelNanos\": ").append(parallelNanos).append(",\n");
+        json.append("  \"criticalPath\": [");
+        for (int i = 0; i < criticalPath.size(); i++) {
+            json.append(i == 0 ? "" : ", ").append(quoteJson(criticalPath.get(i).toString()));
+        }
+        json.append("],\n");
+        json.append("  \"items\": [");
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"itemKey\": ").append(quoteJson(entry.itemKey.toString()));
+            json.append(", \"ownNanos\": ").append(entry.ownNanos);
+            json.append(", \"invocations\": ").append(entry.invocations);
+            json.append(", \"startNanos\": ").append(entry.startNanos);
+            json.append(", \"finishNanos\": ").append(entry.finishNanos);
+            json.append(", \"critical\": ").append(entry.onCriticalPath);
+            json.append(", \"dependencies\": [");
+            for (int j = 0; j < entry.dependencies.size(); j++) {
+                json.append(j == 0 ? "" : ", ").append(quoteJson(entry.dependencies.get(j).toString()));
+            }
+            json.append("]}");
+        }
+        json.append(entries.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * @return the profile as a Graphviz digraph, with the edges going from the dependencies to their dependents
+     * (i.e. in build order) and the critical path in red
+     */
+    public String toDot() {
+        StringBuilder dot = new StringBuilder();
+        dot.append("digraph PikoDI {\n");
+        dot.append("  label=").append(quoteDot(String.format(Locale.ROOT, "serial %s, parallel %s",
+                formatNanos(serialNanos), formatNanos(parallelNanos)))).append(";\n");
+        dot.append("  node [shape=box];\n");
+        for (Entry entry : entries) {
+            dot.append("  ").append(quoteDot(entry.itemKey.toString()));
+            dot.append(" [label=").append(quoteDot(entry.itemKey + "\n" + formatNanos(entry.ownNanos)));
+            dot.append(entry.onCriticalPath ? ", color=red" : "").append("];\n");
+        }
+        for (Entry entry : entries) {
+            for (ItemKey<?> dependency : entry.dependencies) {
+                boolean critical = entry.onCriticalPath && dependency.equals(entry.criticalDependency);
+                dot.append("  ").append(quoteDot(dependency.toString())).append(" -> ")
+                        .append(quoteDot(entry.itemKey.toString()));
+                dot.append(critical ? " [color=red]" : "").append(";\n");
+            }
+        }
+        dot.append("}\n");
+        return dot.toString();
+    }
+
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1_000_000.0);
+    }
+
+    private static String quoteJson(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String quoteDot(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+
+    /**
+     * An item of the profile, with its times in nanoseconds. The start and finish are the earliest the item can be
+     * built, relative to the start of a parallel build.
+     */
+    public static final class Entry {
+
+        private final ItemKey<?> itemKey;
+        private final long ownNanos;
+        private final long invocations;
+        private final long startNanos;
+        private final long finishNanos;
+        private final boolean onCriticalPath;
+        private final List<ItemKey<?>> dependencies;
+        //the dependency finishing last, which holds up the item
+        private final ItemKey<?> criticalDependency;
+
+        private Entry(ItemKey<?> itemKey, long ownNanos, long invocations, long startNanos, long finishNanos,
+                      boolean onCriticalPath, List<ItemKey<?>> dependencies, ItemKey<?> criticalDependency) {
+            this.itemKey = itemKey;
+            this.ownNanos = ownNanos;
+            this.invocations = invocations;
+            this.startNanos = startNanos;
+            this.finishNanos = finishNanos;
+            this.onCriticalPath = onCriticalPath;
+            this.dependencies = dependencies;
+            this.criticalDependency = criticalDependency;
+        }
+
+        public ItemKey<?> getItemKey() {
+            return itemKey;
+        }
+
+        public long getOwnNanos() {
+            return ownNanos;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public long getFinishNanos() {
+            return finishNanos;
+        }
+
+        public boolean isOnCriticalPath() {
+            return onCriticalPath;
+        }
+
+        public List<ItemKey<?>> getDependencies() {
+            return dependencies;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.async.AsyncModule;
+import com.github.pikosphere.di.tests.async.SimpleAsyncModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIAsyncTests {
+
+    @Test
+    void testAsyncProviderIsJoinedBySyncLookup() {
+        PikoDI pikoDI = PikoDI.create(SimpleAsyncModule.class);
+        assertEquals("Hello", pikoDI.getInstanceOf(new ItemKey<>(String.class, "greeting")));
+        assertEquals("Hello World", pikoDI.getInstanceOf(new ItemKey<>(String.class, "message")));
+    }
+
+    @Test
+    void testIndependentAsyncProvidersOverlap() throws Exception {
+        PikoDI pikoDI = PikoDI.create(AsyncModule.class);
+        AsyncModule.loadBarrier.reset();
+        int countBefore = AsyncModule.indexCount.get();
+
+        CompletableFuture<String> service = pikoDI.getInstanceAsync(new ItemKey<>(String.class, "service"));
+        CompletableFuture<String> index = pikoDI.getInstanceAsync(new ItemKey<>(String.class, "index"));
+
+        assertEquals("config+index", service.get(10, TimeUnit.SECONDS));
+        assertEquals("index", index.get(10, TimeUnit.SECONDS));
+        assertEquals("index", pikoDI.getInstanceOf(new ItemKey<>(String.class, "index")));
+        assertEquals(countBefore + 1, AsyncModule.indexCount.get(), "Singleton provider was invoked more than once");
+    }
+
+    @Test
+    void testAsyncFailure() {
+        PikoDI pikoDI = PikoDI.create(SimpleAsyncModule.class);
+
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> pikoDI.getInstanceOf(new ItemKey<>(String.class, "brokenMessage")));
+        assertEquals("INSTANTIATION_FAILURE", exception.getErrorCode(), "Exception error codes do not match");
+
+        ExecutionException executionException = assertThrows(ExecutionException.class,
+                () -> pikoDI.getInstanceAsync(new ItemKey<>(String.class, "brokenMessage")).get(10, TimeUnit.SECONDS));
+        log.info("Asynchronous lookup failed with {}", executionException.getCause().getMessage());
+        assertTrue(executionException.getCause() instanceof PikoDI.Exception, "Failure is not a PikoDI.Exception");
+        assertTrue(executionException.getCause().getMessage().contains("broken.properties"), "Failure cause is not reported");
+    }
+
+    @Test
+    void testAsyncLookupWithoutProvider() {
+        PikoDI pikoDI = PikoDI.create(SimpleAsyncModule.class);
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> pikoDI.getInstanceAsync(new ItemKey<>(String.class, "missing")).get());
+        assertEquals("NO_PROVIDERS", ((PikoDI.Exception) exception.getCause()).getErrorCode());
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.children.*;
+import com.github.pikosphere.di.tests.scopes.Client;
+import com.github.pikosphere.di.tests.scopes.Connection;
+import com.github.pikosphere.di.tests.scopes.RequestContext;
+import com.github.pikosphere.di.tests.scopes.RequestModule;
+import com.github.pikosphere.di.tests.scopes.SingletonModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIChildInjectorTests {
+
+    @Test
+    void testChildSharesParentSingletons() {
+        PikoDI parent = PikoDI.create(SingletonModule.class);
+        Connection connection = parent.getInstanceOf(new ItemKey<>(Connection.class));
+
+        PikoDI child = parent.createChild(TenantModule.class);
+        Tenant tenant = child.getInstanceOf(new ItemKey<>(Tenant.class));
+        assertEquals("acme", tenant.getName(), "Child item was not built from the child's modules");
+        assertSame(connection, tenant.getConnection(), "Child did not share the parent's singleton");
+        assertSame(connection, child.getInstanceOf(new ItemKey<>(Client.class)).getConnection(),
+                "Parent items looked up through the child did not share the parent's singleton");
+    }
+
+    @Test
+    void testSiblingsShareParentButNotEachOther() {
+        PikoDI parent = PikoDI.create(SingletonModule.class);
+        Tenant tenant1 = parent.createChild(TenantModule.class).getInstanceOf(new ItemKey<>(Tenant.class));
+        Tenant tenant2 = parent.createChild(TenantModule.class).getInstanceOf(new ItemKey<>(Tenant.class));
+        assertNotSame(tenant1, tenant2, "Singletons of the children must be cached per child");
+        assertSame(tenant1.getConnection(), tenant2.getConnection(), "Children did not share the parent's singleton");
+    }
+
+    @Test
+    void testParentCannotSeeChildItems() {
+        PikoDI parent = PikoDI.create(SingletonModule.class);
+        PikoDI child = parent.createChild(TenantModule.class);
+        assertTrue(child.canProvide(new ItemKey<>(Connection.class)), "Child cannot provide the parent's items");
+        assertFalse(parent.canProvide(new ItemKey<>(Tenant.class)), "Parent can provide the child's items");
+
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> parent.getInstanceOf(new ItemKey<>(Tenant.class)));
+        assertEquals("NO_PROVIDERS", exception.getErrorCode(), "Exception error codes do not match");
+    }
+
+    @Test
+    void testChildOverridesParentKeys() {
+        PikoDI parent = PikoDI.create(SingletonModule.class, TenantModule.class);
+        PikoDI child = parent.createChild(OverrideModule.class);
+        assertEquals("globex", child.getInstanceOf(new ItemKey<>(String.class, "tenantName")),
+                "Child did not override the parent's item");
+        assertEquals("acme", child.getInstanceOf(new ItemKey<>(Tenant.class)).getName(),
+                "Parent items must keep resolving within the parent");
+    }
+
+    @Test
+    void testChildWithMissingProvidersFails() {
+        PikoDI parent = PikoDI.create(SingletonModule.class);
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> parent.createChild(MissingParentModule.class));
+        log.info("Child creation failed with {}", exception.getMessage());
+        assertEquals("NO_PROVIDERS", exception.getErrorCode(), "Exception error codes do not match");
+        assertTrue(exception.getMessage().contains("region"), "The missing key is not reported");
+        assertFalse(exception.getMessage().contains(Connection.class.getName()), "A key of the parent is reported");
+    }
+
+    @Test
+    void testGrandchildResolvesThroughAncestors() {
+        PikoDI parent = PikoDI.create(SingletonModule.class, RequestModule.class);
+        PikoDI grandchild = parent.createChild(OverrideModule.class)
+                .createChild(TenantModule.class, TenantRequestModule.class);
+
+        Tenant tenant = grandchild.getInstanceOf(new ItemKey<>(Tenant.class));
+        assertEquals("acme", tenant.getName(), "Grandchild did not override its ancestor's item");
+        assertSame(parent.getInstanceOf(new ItemKey<>(Connection.class)), tenant.getConnection(),
+                "Grandchild did not share the parent's singleton");
+
+        try (PikoDI.Scope scope = grandchild.enterScope()) {
+            TenantRequest tenantRequest = scope.getInstanceOf(new ItemKey<>(TenantRequest.class));
+            assertSame(scope.getInstanceOf(new ItemKey<>(RequestContext.class)), tenantRequest.getRequestContext(),
+                    "Request scoped items of an ancestor are not shared within the scope");
+            assertSame(scope.get(parent.key(new ItemKey<>(RequestContext.class))), tenantRequest.getRequestContext(),
+                    "Keys compiled by an ancestor are not resolved in the ancestor's part of the scope");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.deferred.*;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIDeferredTests {
+
+    @Test
+    void testProviderDefersAndResolvesEveryTime() {
+        PikoDI pikoDI = PikoDI.create(DeferredModule.class);
+        int countBefore = DeferredModule.engineCount.get();
+
+        Car car = pikoDI.getInstanceOf(new ItemKey<>(Car.class));
+        assertEquals(countBefore, DeferredModule.engineCount.get(), "Engine was built before it was asked for");
+
+        assertNotSame(car.newEngine(), car.newEngine(), "Provider must resolve on every call");
+        assertEquals(countBefore + 2, DeferredModule.engineCount.get());
+    }
+
+    @Test
+    void testLazyDefersAndMemoizes() {
+        PikoDI pikoDI = PikoDI.create(DeferredModule.class);
+        int countBefore = DeferredModule.engineCount.get();
+
+        Garage garage = pikoDI.getInstanceOf(new ItemKey<>(Garage.class));
+        assertEquals(countBefore, DeferredModule.engineCount.get(), "Engine was built before it was asked for");
+
+        assertSame(garage.getEngine(), garage.getEngine(), "Lazy must resolve only once");
+        assertEquals(countBefore + 1, DeferredModule.engineCount.get());
+
+        Garage otherGarage = pikoDI.getInstanceOf(new ItemKey<>(Garage.class));
+        assertNotSame(garage.getEngine(), otherGarage.getEngine(), "Lazy instances must not be shared by injections");
+    }
+
+    @Test
+    void testCycleBrokenByProvider() {
+        PikoDI pikoDI = PikoDI.create(DeferredModule.class);
+
+        Parent parent = pikoDI.getInstanceOf(new ItemKey<>(Parent.class));
+        Child child = parent.newChild();
+        assertSame(parent, child.getParent(), "Child did not get the singleton Parent");
+    }
+
+    @Test
+    void testReentrantSingletonIsReported() {
+        PikoDI pikoDI = PikoDI.create(ReentrantModule.class);
+
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> pikoDI.getInstanceOf(new ItemKey<>(Parent.class)));
+        log.info("Reentrant build failed with {}", exception.getMessage());
+        assertEquals("INSTANTIATION_FAILURE", exception.getErrorCode(), "Exception error codes do not match");
+    }
+
+    @Test
+    void testCrossThreadCycleIsReported() throws InterruptedException {
+        PikoDI pikoDI = PikoDI.create(CrossThreadModule.class);
+        CrossThreadModule.gate = new CountDownLatch(2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Parent> parent = executor.submit(() -> pikoDI.getInstanceOf(new ItemKey<>(Parent.class)));
+            Future<Child> child = executor.submit(() -> pikoDI.getInstanceOf(new ItemKey<>(Child.class)));
+
+            for (Future<?> lookup : new Future<?>[]{parent, child}) {
+                ExecutionException exception = assertThrows(ExecutionException.class, () -> lookup.get(10, TimeUnit.SECONDS),
+                        "Lookups of the opposite ends of the cycle must fail rather than deadlock");
+                assertTrue(exception.getCause() instanceof PikoDI.Exception, "Cycle was not reported");
+                log.info("Cross thread cycle failed with {}", exception.getCause().getMessage());
+                assertEquals("INSTANTIATION_FAILURE", ((PikoDI.Exception) exception.getCause()).getErrorCode(),
+                        "Exception error codes do not match");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCrossThreadCycleIsReportedToAsyncLookups() throws InterruptedException {
+        PikoDI pikoDI = PikoDI.create(CrossThreadModule.class);
+        CrossThreadModule.gate = new CountDownLatch(2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<CompletableFuture<Parent>> parent = executor.submit(() -> pikoDI.getInstanceAsync(new ItemKey<>(Parent.class)));
+            Future<Child> child = executor.submit(() -> pikoDI.getInstanceOf(new ItemKey<>(Child.class)));
+
+            ExecutionException parentException = assertThrows(ExecutionException.class,
+                    () -> parent.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS),
+                    "Asynchronous lookup of one end of the cycle must fail rather than deadlock");
+            ExecutionException childException = assertThrows(ExecutionException.class, () -> child.get(10, TimeUnit.SECONDS),
+                    "Lookup of the other end of the cycle must fail rather than deadlock");
+            for (ExecutionException exception : new ExecutionException[]{parentException, childException}) {
+                assertTrue(exception.getCause() instanceof PikoDI.Exception, "Cycle was not reported");
+                log.info("Cross thread cycle failed with {}", exception.getCause().getMessage());
+                assertEquals("INSTANTIATION_FAILURE", ((PikoDI.Exception) exception.getCause()).getErrorCode(),
+                        "Exception error codes do not match");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDeferredDependencyNeedsProvider() {
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> PikoDI.create(MissingDeferredModule.class));
+        assertEquals("NO_PROVIDERS", exception.getErrorCode(), "Exception error codes do not match");
+    }
+}
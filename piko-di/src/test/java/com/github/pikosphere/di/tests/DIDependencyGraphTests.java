@@ -0,0 +1,78 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.DependencyGraph;
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.children.Tenant;
+import com.github.pikosphere.di.tests.children.TenantModule;
+import com.github.pikosphere.di.tests.deferred.Child;
+import com.github.pikosphere.di.tests.deferred.DeferredModule;
+import com.github.pikosphere.di.tests.deferred.Parent;
+import com.github.pikosphere.di.tests.graphs.DiamondModule;
+import com.github.pikosphere.di.tests.graphs.Node;
+import com.github.pikosphere.di.tests.scopes.Connection;
+import com.github.pikosphere.di.tests.scopes.SingletonModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIDependencyGraphTests {
+
+    private static final ItemKey<Node> TOP = new ItemKey<>(Node.class, "top");
+    private static final ItemKey<Node> LEFT = new ItemKey<>(Node.class, "left");
+    private static final ItemKey<Node> RIGHT = new ItemKey<>(Node.class, "right");
+    private static final ItemKey<Node> BOTTOM = new ItemKey<>(Node.class, "bottom");
+
+    @Test
+    void testDiamondQueries() {
+        DependencyGraph graph = PikoDI.create(DiamondModule.class).getDependencyGraph();
+        log.info("Topological order {}", graph.getTopologicalOrder());
+
+        assertEquals(new HashSet<>(Arrays.asList(LEFT, RIGHT)), graph.getDependencies(TOP));
+        assertEquals(new HashSet<>(Arrays.asList(LEFT, RIGHT)), graph.getDependents(BOTTOM));
+        assertEquals(new HashSet<>(Arrays.asList(LEFT, RIGHT, BOTTOM)), graph.getTransitiveDependencies(TOP));
+        assertEquals(new HashSet<>(Arrays.asList(LEFT, RIGHT, TOP)), graph.getTransitiveDependents(BOTTOM));
+        assertTrue(graph.getTransitiveDependents(TOP).isEmpty(), "Top has no dependents");
+        assertSame(graph.getTransitiveDependencies(TOP), graph.getTransitiveDependencies(TOP), "Closure is not memoized");
+
+        assertEquals(0, graph.getDepth(BOTTOM));
+        assertEquals(1, graph.getDepth(LEFT));
+        assertEquals(2, graph.getDepth(TOP));
+
+        List<ItemKey<?>> order = graph.getTopologicalOrder();
+        assertEquals(4, order.size());
+        assertTrue(order.indexOf(BOTTOM) < order.indexOf(LEFT) && order.indexOf(BOTTOM) < order.indexOf(RIGHT));
+        assertTrue(order.indexOf(LEFT) < order.indexOf(TOP) && order.indexOf(RIGHT) < order.indexOf(TOP));
+    }
+
+    @Test
+    void testDeferredDependenciesAreFollowed() {
+        DependencyGraph graph = PikoDI.create(DeferredModule.class).getDependencyGraph();
+        ItemKey<Parent> parentKey = new ItemKey<>(Parent.class);
+        ItemKey<Child> childKey = new ItemKey<>(Child.class);
+
+        assertTrue(graph.getTransitiveDependencies(parentKey).contains(childKey), "Provider dependency is not followed");
+        assertTrue(graph.getTransitiveDependents(childKey).contains(parentKey), "Provider dependent is not followed");
+        assertEquals(0, graph.getDepth(parentKey), "Provider dependency is counted as built before");
+        assertEquals(1, graph.getDepth(childKey));
+    }
+
+    @Test
+    void testChildGraphFollowsParent() {
+        PikoDI parent = PikoDI.create(SingletonModule.class);
+        DependencyGraph graph = parent.createChild(TenantModule.class).getDependencyGraph();
+        ItemKey<Tenant> tenantKey = new ItemKey<>(Tenant.class);
+        ItemKey<Connection> connectionKey = new ItemKey<>(Connection.class);
+
+        assertTrue(graph.getTransitiveDependencies(tenantKey).contains(connectionKey), "Parent item is not followed");
+        assertFalse(graph.contains(connectionKey), "Parent item is in the child graph");
+        assertThrows(IllegalArgumentException.class, () -> graph.getDependents(connectionKey));
+        assertEquals(1, graph.getDepth(tenantKey));
+    }
+}
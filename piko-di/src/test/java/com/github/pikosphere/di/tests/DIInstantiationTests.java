@@ -5,16 +5,29 @@ import com.github.pikosphere.di.ItemKey;
 import com.github.pikosphere.di.PikoDI;
 import com.github.pikosphere.di.tests.common.Module3;
 import com.github.pikosphere.di.tests.common.Service1;
+import com.github.pikosphere.di.tests.graphs.BrokenChainModule;
+import com.github.pikosphere.di.tests.graphs.ErrorModule;
+import com.github.pikosphere.di.tests.graphs.Node;
+import com.github.pikosphere.di.tests.graphs.NullModule;
+import com.github.pikosphere.di.tests.graphs.PairModule;
 import com.github.pikosphere.di.tests.ins.ComplexModule;
 import com.github.pikosphere.di.tests.ins.Svc1;
+import com.github.pikosphere.di.tests.scopes.Client;
+import com.github.pikosphere.di.tests.scopes.Connection;
+import com.github.pikosphere.di.tests.scopes.SingletonModule;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 @Slf4j
 class DIInstantiationTests {
@@ -37,4 +50,110 @@ class DIInstantiationTests {
         log.info("Generated greeting {}", message);
         assertTrue(messages.contains(message), String.format("The message '%s' is not in the expected list '%s'", message, messages));
     }
+
+    @Test
+    void testCompiledKey() {
+        PikoDI pikoDI = PikoDI.create(SingletonModule.class);
+        PikoDI.Key<Client> clientKey = pikoDI.key(new ItemKey<>(Client.class));
+
+        Client client1 = clientKey.get();
+        Client client2 = clientKey.get();
+        assertNotSame(client1, client2, "Unscoped instances must not be cached");
+        assertSame(client1.getConnection(), pikoDI.getInstanceOf(new ItemKey<>(Connection.class)),
+                "Compiled key resolved a different singleton");
+    }
+
+    @Test
+    void testCompiledKeyWithoutProvider() {
+        PikoDI pikoDI = PikoDI.create(SingletonModule.class);
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> pikoDI.key(new ItemKey<>(Svc1.class)));
+        assertEquals("NO_PROVIDERS", exception.getErrorCode());
+    }
+
+    @Test
+    void testRepeatedParameterKeys() {
+        PikoDI pikoDI = PikoDI.create(PairModule.class);
+
+        Node pair = pikoDI.getInstanceOf(new ItemKey<>(Node.class, "pair"));
+        assertEquals(2, pair.getDependencies().size(), "Repeated parameters were not all passed");
+        assertNotSame(pair.getDependencies().get(0), pair.getDependencies().get(1),
+                "Each parameter must get its own unscoped instance");
+
+        Node triple = pikoDI.getInstanceOf(new ItemKey<>(Node.class, "triple"));
+        assertEquals(3, triple.getDependencies().size(), "Repeated parameters of other kinds were not all passed");
+    }
+
+    @Test
+    void testTryGetInstanceOf() {
+        PikoDI pikoDI = PikoDI.create(SingletonModule.class);
+
+        Optional<Connection> connection = pikoDI.tryGetInstanceOf(new ItemKey<>(Connection.class));
+        assertTrue(connection.isPresent(), "Provided key was not resolved");
+        assertSame(pikoDI.getInstanceOf(new ItemKey<>(Connection.class)), connection.get());
+
+        assertSame(Optional.empty(), pikoDI.tryGetInstanceOf(new ItemKey<>(Svc1.class)),
+                "Missing key must resolve to the shared empty Optional");
+    }
+
+    @Test
+    void testFailureRecordsKeyPathOnce() {
+        PikoDI pikoDI = PikoDI.create(BrokenChainModule.class);
+
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> pikoDI.tryGetInstanceOf(new ItemKey<>(Node.class, "top")));
+        log.info("Broken chain failed with {}", exception.getMessage());
+        assertEquals("INSTANTIATION_FAILURE", exception.getErrorCode(), "Exception error codes do not match");
+        assertTrue(exception.getCause() instanceof IllegalStateException, "Failure is wrapped more than once");
+        assertTrue(exception.getMessage().contains("bottom is broken"), "Failure cause is not reported");
+
+        List<ItemKey<?>> keyPath = (List<ItemKey<?>>) exception.getData().get("KEY_PATH");
+        assertEquals(Arrays.asList(new ItemKey<>(Node.class, "top"), new ItemKey<>(Node.class, "middle"),
+                new ItemKey<>(Node.class, "bottom")), keyPath, "Key path does not match");
+    }
+
+    @Test
+    void testErrorIsNotWrapped() {
+        PikoDI pikoDI = PikoDI.create(ErrorModule.class);
+
+        StackOverflowError error = assertThrows(StackOverflowError.class,
+                () -> pikoDI.getInstanceOf(new ItemKey<>(Node.class, "top")));
+        assertEquals("bottom overflowed", error.getMessage(), "Error was not rethrown as is");
+    }
+
+    @Test
+    void testOtherErrorIsReportedWithKeyPath() {
+        PikoDI pikoDI = PikoDI.create(ErrorModule.class);
+
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> pikoDI.getInstanceOf(new ItemKey<>(Node.class, "assertingTop")));
+        assertEquals("INSTANTIATION_FAILURE", exception.getErrorCode(), "Exception error codes do not match");
+        assertTrue(exception.getCause() instanceof AssertionError, "Error was not reported as the cause");
+        assertEquals(Arrays.asList(new ItemKey<>(Node.class, "assertingTop"), new ItemKey<>(Node.class, "assertingBottom")),
+                exception.getData().get("KEY_PATH"), "Key path does not match");
+    }
+
+    @Test
+    void testNullSingletonIsBuiltOnce() throws Exception {
+        NullModule.invocations.set(0);
+        PikoDI pikoDI = PikoDI.create(NullModule.class);
+        ItemKey<Node> noneKey = new ItemKey<>(Node.class, "none");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Optional<Node>>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> pikoDI.tryGetInstanceOf(noneKey)));
+            }
+            for (Future<Optional<Node>> lookup : lookups) {
+                assertFalse(lookup.get().isPresent(), "Null instance was replaced");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertNull(pikoDI.getInstanceOf(noneKey));
+        CompletableFuture<Node> asyncLookup = pikoDI.getInstanceAsync(noneKey);
+        assertNull(asyncLookup.join());
+
+        assertEquals(1, NullModule.invocations.get(), "Null singleton was built more than once");
+    }
 }
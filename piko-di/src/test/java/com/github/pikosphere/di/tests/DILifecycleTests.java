@@ -0,0 +1,110 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.lifecycle.ChildLifecycleModule;
+import com.github.pikosphere.di.tests.lifecycle.FailingCloseModule;
+import com.github.pikosphere.di.tests.lifecycle.LifecycleModule;
+import com.github.pikosphere.di.tests.lifecycle.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DILifecycleTests {
+
+    @Test
+    void testInstancesCloseAfterTheirDependents() {
+        LifecycleModule.closedNames.clear();
+        PikoDI pikoDI = PikoDI.create(LifecycleModule.class);
+        pikoDI.getInstanceOf(new ItemKey<>(Resource.class, "service"));
+        pikoDI.getInstanceOf(new ItemKey<>(Resource.class, "frontend"));
+
+        pikoDI.close();
+
+        List<String> closedNames = new ArrayList<>(LifecycleModule.closedNames);
+        log.info("Closed in order {}", closedNames);
+        assertEquals(4, closedNames.size(), "Only the singletons are closed, all of them: " + closedNames);
+        assertTrue(closedNames.indexOf("service") < closedNames.indexOf("cache"), "Closed before its dependent");
+        assertTrue(closedNames.indexOf("frontend") < closedNames.indexOf("cache"),
+                "Closed before its dependent through an item which is not cached");
+        assertEquals("pool", closedNames.get(3), "Closed before its dependents");
+
+        pikoDI.close();
+        assertEquals(4, LifecycleModule.closedNames.size(), "Instances were closed twice");
+    }
+
+    @Test
+    void testOnlyBuiltInstancesAreClosed() {
+        LifecycleModule.closedNames.clear();
+        try (PikoDI pikoDI = PikoDI.create(LifecycleModule.class)) {
+            pikoDI.getInstanceOf(new ItemKey<>(Resource.class, "cache"));
+        }
+
+        assertEquals(Arrays.asList("cache", "pool"), new ArrayList<>(LifecycleModule.closedNames));
+    }
+
+    @Test
+    void testChildClosesOnlyItsOwnInstances() {
+        LifecycleModule.closedNames.clear();
+        PikoDI pikoDI = PikoDI.create(LifecycleModule.class);
+        PikoDI child = pikoDI.createChild(ChildLifecycleModule.class);
+        child.getInstanceOf(new ItemKey<>(Resource.class, "reporter"));
+
+        child.close();
+        assertEquals(Arrays.asList("reporter"), new ArrayList<>(LifecycleModule.closedNames),
+                "Child closed the instances of its parent");
+
+        pikoDI.close();
+        assertEquals(Arrays.asList("reporter", "service", "cache", "pool"),
+                new ArrayList<>(LifecycleModule.closedNames), "Parent did not close its instances");
+    }
+
+    @Test
+    void testCloseFailureDoesNotHoldUpOthers() {
+        FailingCloseModule.closedNames.clear();
+        PikoDI pikoDI = PikoDI.create(FailingCloseModule.class);
+        pikoDI.getInstanceOf(new ItemKey<>(AutoCloseable.class));
+
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, pikoDI::close);
+        log.info("Close failed with {}", exception.getMessage());
+        assertEquals("CLOSE_FAILURE", exception.getErrorCode(), "Exception error codes do not match");
+        Map<ItemKey<?>, Throwable> failures = (Map<ItemKey<?>, Throwable>) exception.getData().get("CLOSE_FAILURE");
+        assertEquals(1, failures.size(), "Failures do not match");
+        assertTrue(failures.get(new ItemKey<>(AutoCloseable.class)) instanceof IllegalStateException);
+        assertEquals(Arrays.asList("pool"), new ArrayList<>(FailingCloseModule.closedNames),
+                "Dependency was not closed after the failure");
+    }
+
+    @Test
+    void testCloseTimeout() {
+        FailingCloseModule.closedNames.clear();
+        PikoDI pikoDI = PikoDI.create(FailingCloseModule.class);
+        pikoDI.getInstanceOf(new ItemKey<>(Resource.class, "stuck"));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            long start = System.nanoTime();
+            PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                    () -> pikoDI.close(executorService, Duration.ofMillis(100)));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Close timed out with {} after {}ms", exception.getMessage(), elapsedMillis);
+
+            assertEquals("CLOSE_TIMEOUT", exception.getErrorCode(), "Exception error codes do not match");
+            assertEquals(Arrays.asList(new ItemKey<>(Resource.class, "stuck")),
+                    exception.getData().get("CLOSE_TIMEOUT"), "Instances not closed do not match");
+            assertTrue(elapsedMillis < 2_000, "Close did not return at the timeout");
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
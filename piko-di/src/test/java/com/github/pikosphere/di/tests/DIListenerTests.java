@@ -0,0 +1,130 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.JfrPikoDIListener;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.PikoDIListener;
+import com.github.pikosphere.di.PikoDIMetrics;
+import com.github.pikosphere.di.tests.children.Tenant;
+import com.github.pikosphere.di.tests.children.TenantModule;
+import com.github.pikosphere.di.tests.common.ModuleWithDeps;
+import com.github.pikosphere.di.tests.graphs.ErrorModule;
+import com.github.pikosphere.di.tests.graphs.Node;
+import com.github.pikosphere.di.tests.scopes.*;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIListenerTests {
+
+    @Test
+    void testBuildPhasesAreReported() {
+        List<PikoDIListener.Phase> phases = Collections.synchronizedList(new ArrayList<>());
+        PikoDIListener listener = new PikoDIListener() {
+            @Override
+            public void onPhase(Phase phase, long durationNanos) {
+                assertTrue(durationNanos >= 0, "Phase duration is negative");
+                phases.add(phase);
+            }
+        };
+
+        PikoDI.builder().listener(listener).create(SingletonModule.class);
+        assertEquals(Arrays.asList(PikoDIListener.Phase.values()), phases, "Phases do not match");
+
+        phases.clear();
+        assertThrows(PikoDI.Exception.class, () -> PikoDI.builder().listener(listener).create(ModuleWithDeps.class));
+        assertEquals(Arrays.asList(PikoDIListener.Phase.SCAN, PikoDIListener.Phase.DUPLICATES,
+                PikoDIListener.Phase.IDENTIFIERS, PikoDIListener.Phase.MISSING_PROVIDERS), phases,
+                "Phases up to the failed one do not match");
+    }
+
+    @Test
+    void testInstantiationsAndCacheLookupsAreCounted() {
+        PikoDIMetrics metrics = new PikoDIMetrics();
+        PikoDI pikoDI = PikoDI.builder().listener(metrics).create(SingletonModule.class);
+        ItemKey<Client> clientKey = new ItemKey<>(Client.class);
+        ItemKey<Connection> connectionKey = new ItemKey<>(Connection.class);
+
+        for (int i = 0; i < 3; i++) {
+            pikoDI.getInstanceOf(clientKey);
+        }
+
+        assertEquals(3, metrics.getInstantiationCount(clientKey), "Unscoped instantiations do not match");
+        assertEquals(1, metrics.getInstantiationCount(connectionKey), "Singleton instantiations do not match");
+        assertEquals(3, Arrays.stream(metrics.getLatencyHistogram(clientKey)).sum(), "Histogram counts do not match");
+        assertTrue(metrics.getInstantiationNanos(clientKey) >= metrics.getInstantiationNanos(connectionKey),
+                "Instantiation time does not include the dependencies");
+        assertEquals(1, metrics.getCacheMissCount(connectionKey), "Cache misses do not match");
+        assertEquals(2, metrics.getCacheHitCount(connectionKey), "Cache hits do not match");
+        assertEquals(2.0 / 3, metrics.getCacheHitRatio(), 1e-9, "Cache hit ratio does not match");
+    }
+
+    @Test
+    void testFailuresAreCounted() {
+        PikoDIMetrics metrics = new PikoDIMetrics();
+        PikoDI pikoDI = PikoDI.builder().listener(metrics).create(FailingWarmUpModule.class);
+        assertThrows(PikoDI.Exception.class, () -> pikoDI.getInstanceOf(new ItemKey<>(Connection.class)));
+
+        assertEquals(1, metrics.getFailureCount(new ItemKey<>(String.class, "config")), "Provider failures do not match");
+        assertEquals(1, metrics.getFailureCount(new ItemKey<>(Connection.class)), "Dependent failures do not match");
+        assertEquals(0, metrics.getInstantiationCount(new ItemKey<>(Connection.class)), "Failed instantiation was counted");
+    }
+
+    @Test
+    void testErrorFailuresAreCounted() {
+        PikoDIMetrics metrics = new PikoDIMetrics();
+        PikoDI pikoDI = PikoDI.builder().listener(metrics).create(ErrorModule.class);
+        assertThrows(StackOverflowError.class, () -> pikoDI.getInstanceOf(new ItemKey<>(Node.class, "top")));
+        assertThrows(PikoDI.Exception.class, () -> pikoDI.getInstanceOf(new ItemKey<>(Node.class, "assertingTop")));
+
+        assertEquals(1, metrics.getFailureCount(new ItemKey<>(Node.class, "bottom")), "Provider failures do not match");
+        assertEquals(1, metrics.getFailureCount(new ItemKey<>(Node.class, "top")), "Dependent failures do not match");
+        assertEquals(1, metrics.getFailureCount(new ItemKey<>(Node.class, "assertingBottom")), "Provider failures do not match");
+        assertEquals(1, metrics.getFailureCount(new ItemKey<>(Node.class, "assertingTop")), "Dependent failures do not match");
+    }
+
+    @Test
+    void testChildInheritsListener() {
+        PikoDIMetrics metrics = new PikoDIMetrics();
+        PikoDI child = PikoDI.builder().listener(metrics).create(SingletonModule.class).createChild(TenantModule.class);
+        child.getInstanceOf(new ItemKey<>(Tenant.class));
+
+        assertEquals(1, metrics.getInstantiationCount(new ItemKey<>(Tenant.class)), "Child instantiations are not reported");
+        assertEquals(1, metrics.getInstantiationCount(new ItemKey<>(Connection.class)), "Parent instantiations are not reported");
+    }
+
+    @Test
+    void testJfrEventsAreRecorded() throws Exception {
+        Path recordingFile = Files.createTempFile("pikodi", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.github.pikosphere.di.Instantiation");
+            recording.enable("com.github.pikosphere.di.Phase");
+            recording.start();
+            PikoDI.builder().listener(new JfrPikoDIListener()).create(SingletonModule.class)
+                    .getInstanceOf(new ItemKey<>(Client.class));
+            recording.stop();
+            recording.dump(recordingFile);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+            assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("com.github.pikosphere.di.Phase")),
+                    "No phase events were recorded");
+            assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("com.github.pikosphere.di.Instantiation")
+                            && event.getString("itemKey").contains(Client.class.getName())),
+                    "No instantiation events were recorded");
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+}
@@ -2,12 +2,17 @@ package com.github.pikosphere.di.tests;
 
 import com.github.pikosphere.di.ItemKey;
 import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.graphs.DiamondModule;
+import com.github.pikosphere.di.tests.graphs.DuplicatesModule;
+import com.github.pikosphere.di.tests.graphs.Node;
+import com.github.pikosphere.di.tests.graphs.TwoCyclesModule;
 import com.github.pikosphere.di.tests.multimods.*;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -52,6 +57,40 @@ class DIMultiModTests {
 
     }
 
+    @Test
+    void testCyclePathIsReported() {
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> PikoDI.create(Module3.class, Module4.class));
+
+        List<List<ItemKey>> cycles = (List<List<ItemKey>>) exception.getData().get("CYCLIC_DEPENDENCY_ITEMS");
+        assertEquals(1, cycles.size(), "Expected exactly one cycle");
+
+        List<ItemKey> cycle = cycles.get(0);
+        assertEquals(4, cycle.size(), "Expected a cycle path of 3 items returning to the first one");
+        assertEquals(cycle.get(0), cycle.get(cycle.size() - 1), "Cycle path does not end where it starts");
+        assertTrue(cycle.containsAll(Arrays.asList(new ItemKey<>(Svc1.class), new ItemKey<>(RandomMsgProvider.class))),
+                String.format("Unexpected cycle path %s", cycle));
+    }
+
+    @Test
+    void testAllCyclesAreReported() {
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> PikoDI.create(TwoCyclesModule.class));
+
+        assertEquals("CYCLIC_DEPENDENCY_ITEMS", exception.getErrorCode(), "Exception error codes do not match");
+
+        List<List<ItemKey>> cycles = (List<List<ItemKey>>) exception.getData().get("CYCLIC_DEPENDENCY_ITEMS");
+        List<Integer> cycleLengths = cycles.stream().map(List::size).sorted().collect(Collectors.toList());
+        assertEquals(Arrays.asList(3, 4), cycleLengths, String.format("Unexpected cycles %s", cycles));
+    }
+
+    @Test
+    void testDiamondIsNotACycle() {
+        PikoDI pikoDI = PikoDI.create(DiamondModule.class);
+        Node top = pikoDI.getInstanceOf(new ItemKey<>(Node.class, "top"));
+
+        assertEquals(2, top.getDependencies().size());
+        assertEquals("bottom", top.getDependencies().get(0).getDependencies().get(0).getName());
+    }
+
     @Test
     void testDuplicateProviders() {
         PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> {
@@ -62,4 +101,11 @@ class DIMultiModTests {
         assertEquals("DUPLICATE_ITEMS", exception.getErrorCode(), "Exception error codes do not match");
     }
 
+    @Test
+    void testDuplicateProvidersInOneModule() {
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> PikoDI.create(DuplicatesModule.class));
+
+        assertEquals("DUPLICATE_ITEMS", exception.getErrorCode(), "Exception error codes do not match");
+    }
+
 }
@@ -0,0 +1,69 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.multibindings.*;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIMultibindingTests {
+
+    @Test
+    void testSetContributionsFromModulesAreMerged() {
+        PikoDI pikoDI = PikoDI.create(CoreModule.class, PluginModule.class);
+        Set<Handler> handlers = pikoDI.getInstanceOf(new ItemKey<Set>(Set.class, "handlers"));
+
+        List<String> paths = handlers.stream().map(Handler::getPath).collect(Collectors.toList());
+        assertEquals(Arrays.asList("/health", "/metrics"), paths, "Contributions are missing or out of module order");
+        assertThrows(UnsupportedOperationException.class, () -> handlers.add(new Handler("/admin")),
+                "Contributed set is not immutable");
+        assertSame(handlers, pikoDI.getInstanceOf(new ItemKey<Set>(Set.class, "handlers")),
+                "Contributed set was built more than once");
+        assertSame(handlers, pikoDI.getInstanceOf(new ItemKey<>(Router.class)).getHandlers(),
+                "Dependents did not get the same contributed set");
+    }
+
+    @Test
+    void testMapContributionsFromModulesAreMerged() {
+        PikoDI pikoDI = PikoDI.create(CoreModule.class, PluginModule.class);
+        Map<String, Codec> codecs = pikoDI.getInstanceOf(new ItemKey<Map>(Map.class, "codecs"));
+
+        assertEquals(Arrays.asList("json", "xml"), Arrays.asList(codecs.keySet().toArray()), "Map keys do not match");
+        assertEquals("application/xml", codecs.get("xml").getContentType(), "Map values do not match");
+        assertThrows(UnsupportedOperationException.class, () -> codecs.remove("json"), "Contributed map is not immutable");
+    }
+
+    @Test
+    void testContributionsAreOnlyProvidedThroughTheirCollection() {
+        PikoDI pikoDI = PikoDI.create(CoreModule.class);
+        assertFalse(pikoDI.canProvide(new ItemKey<>(Handler.class)), "Contributed element can be looked up on its own");
+        assertFalse(pikoDI.canProvide(new ItemKey<>(Handler.class, "handlers")), "Contributed element can be looked up on its own");
+        assertEquals(1, pikoDI.getInstanceOf(new ItemKey<Set>(Set.class, "handlers")).size(),
+                "Set of a single module does not match");
+    }
+
+    @Test
+    void testDuplicateMapKeysFail() {
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> PikoDI.create(CoreModule.class, DuplicateCodecModule.class));
+        log.info("Duplicate map keys failed with {}", exception.getMessage());
+        assertEquals("DUPLICATE_ITEMS", exception.getErrorCode(), "Exception error codes do not match");
+        assertTrue(exception.getMessage().contains("provideOtherJsonCodec"), "The duplicate contribution is not reported");
+    }
+
+    @Test
+    void testContributionWithoutQualifierFails() {
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> PikoDI.create(UnqualifiedContributionModule.class));
+        assertEquals("INVALID_IDENTIFIER", exception.getErrorCode(), "Exception error codes do not match");
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.deferred.DeferredModule;
+import com.github.pikosphere.di.tests.graphs.DiamondModule;
+import com.github.pikosphere.di.tests.graphs.PairModule;
+import com.github.pikosphere.di.tests.multimods.Module1;
+import com.github.pikosphere.di.tests.multimods.Module2;
+import com.github.pikosphere.di.tests.multimods.Module5;
+import com.github.pikosphere.di.tests.multimods.Module6;
+import com.github.pikosphere.di.tests.pools.MissingResetModule;
+import com.github.pikosphere.di.tests.pools.PoolModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIParallelScanTests {
+
+    private static ForkJoinPool scanPool;
+
+    @BeforeAll
+    static void startPool() {
+        scanPool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        scanPool.shutdown();
+    }
+
+    @Test
+    void testSameGraphAsSequentialScan() {
+        Class[] modules = {Module1.class, Module2.class, DiamondModule.class, PairModule.class, DeferredModule.class,
+                PoolModule.class};
+        PikoDI parallel = PikoDI.builder().parallelScanning(scanPool).create(modules);
+        PikoDI sequential = PikoDI.create(modules);
+        log.info("Scanned {} in parallel", parallel.getDependencyGraph().getItemKeys());
+
+        assertEquals(sequential.getDependencyGraph().getTopologicalOrder(),
+                parallel.getDependencyGraph().getTopologicalOrder());
+    }
+
+    @Test
+    void testDuplicatesReportedAsInSequentialScan() {
+        PikoDI.Exception parallel = assertThrows(PikoDI.Exception.class,
+                () -> PikoDI.builder().parallelScanning(scanPool).create(Module5.class, DiamondModule.class, Module6.class));
+        PikoDI.Exception sequential = assertThrows(PikoDI.Exception.class,
+                () -> PikoDI.create(Module5.class, DiamondModule.class, Module6.class));
+
+        assertEquals("DUPLICATE_ITEMS", parallel.getErrorCode(), "Exception error codes do not match");
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+
+    @Test
+    void testInvalidIdentifierReportedAsInSequentialScan() {
+        PikoDI.Exception parallel = assertThrows(PikoDI.Exception.class,
+                () -> PikoDI.builder().parallelScanning().create(DiamondModule.class, MissingResetModule.class));
+        PikoDI.Exception sequential = assertThrows(PikoDI.Exception.class,
+                () -> PikoDI.create(DiamondModule.class, MissingResetModule.class));
+
+        assertEquals("INVALID_IDENTIFIER", parallel.getErrorCode(), "Exception error codes do not match");
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+}
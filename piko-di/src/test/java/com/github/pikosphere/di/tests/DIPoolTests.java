@@ -0,0 +1,136 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.PikoDIMetrics;
+import com.github.pikosphere.di.tests.pools.MissingResetModule;
+import com.github.pikosphere.di.tests.pools.Parser;
+import com.github.pikosphere.di.tests.pools.PoolModule;
+import com.github.pikosphere.di.tests.pools.RequestPoolModule;
+import com.github.pikosphere.di.tests.scopes.RequestModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIPoolTests {
+
+    private static final ItemKey<Parser> PARSER_KEY = new ItemKey<>(Parser.class);
+
+    @Test
+    void testReturnedInstanceIsResetAndReused() {
+        PikoDIMetrics metrics = new PikoDIMetrics();
+        PikoDI pikoDI = PikoDI.builder().listener(metrics).create(PoolModule.class);
+
+        Parser first;
+        try (PikoDI.Borrowed<Parser> parser = pikoDI.borrow(PARSER_KEY)) {
+            first = parser.get();
+            assertEquals(5, first.parse("hello"));
+        }
+
+        try (PikoDI.Borrowed<Parser> parser = pikoDI.borrow(PARSER_KEY)) {
+            assertSame(first, parser.get(), "Returned instance was not reused");
+            assertEquals(5, parser.get().parse("world"), "Reset hook was not called");
+        }
+
+        assertEquals(1, metrics.getPoolMissCount(PARSER_KEY), "Pool misses do not match");
+        assertEquals(1, metrics.getPoolHitCount(PARSER_KEY), "Pool hits do not match");
+    }
+
+    @Test
+    void testPoolIsBounded() {
+        PikoDIMetrics metrics = new PikoDIMetrics();
+        PikoDI pikoDI = PikoDI.builder().listener(metrics).create(PoolModule.class);
+        int countBefore = PoolModule.buildCount.get();
+
+        List<PikoDI.Borrowed<Parser>> borrowed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            borrowed.add(pikoDI.borrow(PARSER_KEY));
+        }
+        assertEquals(countBefore + 3, PoolModule.buildCount.get(), "Concurrent borrows must get their own instances");
+        borrowed.forEach(PikoDI.Borrowed::close);
+        assertEquals(1, metrics.getPoolDropCount(PARSER_KEY), "Pool kept more instances than its size");
+
+        PikoDI.Borrowed<Parser> closed = borrowed.get(0);
+        closed.close();
+        assertThrows(IllegalStateException.class, closed::get, "Returned instance is still handed out");
+        assertEquals(1, metrics.getPoolDropCount(PARSER_KEY), "Closing twice returned the instance twice");
+    }
+
+    @Test
+    void testBorrowedInstancesAreExclusive() throws Exception {
+        PikoDI pikoDI = PikoDI.create(PoolModule.class);
+        PikoDI.Key<Parser> parserKey = pikoDI.key(PARSER_KEY);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int task = 0; task < 4; task++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        try (PikoDI.Borrowed<Parser> parser = parserKey.borrow()) {
+                            assertEquals(1, parser.get().parse("x"), "Parser was not reset or is shared");
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void testOtherLookupsLeaveIdleInstances() {
+        PikoDIMetrics metrics = new PikoDIMetrics();
+        PikoDI pikoDI = PikoDI.builder().listener(metrics).create(PoolModule.class);
+
+        Parser idle;
+        try (PikoDI.Borrowed<Parser> parser = pikoDI.borrow(PARSER_KEY)) {
+            idle = parser.get();
+        }
+
+        assertNotSame(idle, pikoDI.getInstanceOf(PARSER_KEY), "Lookup took the idle instance");
+        assertNotSame(idle, pikoDI.getInstanceAsync(PARSER_KEY).join(), "Asynchronous lookup took the idle instance");
+        try (PikoDI.Borrowed<Parser> parser = pikoDI.borrow(PARSER_KEY)) {
+            assertSame(idle, parser.get(), "Idle instance was not left in the pool");
+        }
+        assertEquals(1, metrics.getPoolHitCount(PARSER_KEY), "Only borrows must use the pool");
+    }
+
+    @Test
+    void testPooledItemCannotDependOnRequestScope() {
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> PikoDI.create(RequestModule.class, RequestPoolModule.class));
+        log.info("Pooled item in a request scope failed with {}", exception.getMessage());
+        assertEquals("SCOPE_MISMATCH", exception.getErrorCode(), "Exception error codes do not match");
+
+        PikoDI parent = PikoDI.create(RequestModule.class);
+        exception = assertThrows(PikoDI.Exception.class, () -> parent.createChild(RequestPoolModule.class));
+        assertEquals("SCOPE_MISMATCH", exception.getErrorCode(), "Request scope of the parent was not found");
+    }
+
+    @Test
+    void testBorrowingUnpooledItem() {
+        PikoDI pikoDI = PikoDI.create(PoolModule.class);
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> pikoDI.borrow(new ItemKey<>(String.class, "greeting")));
+        assertEquals("NOT_POOLED", exception.getErrorCode(), "Exception error codes do not match");
+    }
+
+    @Test
+    void testMissingResetHook() {
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> PikoDI.create(MissingResetModule.class));
+        log.info("Missing reset hook failed with {}", exception.getMessage());
+        assertEquals("INVALID_IDENTIFIER", exception.getErrorCode(), "Exception error codes do not match");
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.scopes.*;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Provider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIScopeTests {
+
+    @Test
+    void testSingletonIsCached() {
+        PikoDI pikoDI = PikoDI.create(SingletonModule.class);
+        Connection connection1 = pikoDI.getInstanceOf(new ItemKey<>(Connection.class));
+        Connection connection2 = pikoDI.getInstanceOf(new ItemKey<>(Connection.class));
+        assertSame(connection1, connection2, "Singleton instances are not the same");
+    }
+
+    @Test
+    void testSingletonSharedByUnscopedDependents() {
+        PikoDI pikoDI = PikoDI.create(SingletonModule.class);
+        Client client1 = pikoDI.getInstanceOf(new ItemKey<>(Client.class));
+        Client client2 = pikoDI.getInstanceOf(new ItemKey<>(Client.class));
+        assertNotSame(client1, client2, "Unscoped instances must not be cached");
+        assertSame(client1.getConnection(), client2.getConnection(), "Singleton dependency was built more than once");
+    }
+
+    @Test
+    void testSingletonsAreNotSharedAcrossInjectors() {
+        Connection connection1 = PikoDI.create(SingletonModule.class).getInstanceOf(new ItemKey<>(Connection.class));
+        Connection connection2 = PikoDI.create(SingletonModule.class).getInstanceOf(new ItemKey<>(Connection.class));
+        assertNotSame(connection1, connection2, "Singletons must be cached per injector");
+    }
+
+    @Test
+    void testConcurrentFirstLookupBuildsOnce() throws Exception {
+        PikoDI pikoDI = PikoDI.create(SingletonModule.class);
+        int threads = 16;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch startGate = new CountDownLatch(1);
+        Set<Connection> connections = ConcurrentHashMap.newKeySet();
+        int countBefore = SingletonModule.connectionCount.get();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(() -> {
+                    startGate.await();
+                    connections.add(pikoDI.getInstanceOf(new ItemKey<>(Client.class)).getConnection());
+                    return null;
+                }));
+            }
+            startGate.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(1, connections.size(), "More than one singleton instance was observed");
+        assertEquals(countBefore + 1, SingletonModule.connectionCount.get(), "Singleton provider was invoked more than once");
+    }
+
+    @Test
+    void testWarmUpBuildsIndependentSingletonsConcurrently() {
+        PikoDI pikoDI = PikoDI.create(WarmUpModule.class);
+        WarmUpModule.startBarrier.reset();
+        int countBefore = WarmUpModule.buildCount.get();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            pikoDI.warmUp(executorService);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(countBefore + 3, WarmUpModule.buildCount.get(), "Not all the singletons were built");
+        assertEquals("pool+cache", pikoDI.getInstanceOf(new ItemKey<>(String.class, "client")));
+        assertEquals(countBefore + 3, WarmUpModule.buildCount.get(), "Singletons were built again after the warm up");
+    }
+
+    @Test
+    void testWarmUpFailureReportsKeyPath() {
+        PikoDI pikoDI = PikoDI.create(FailingWarmUpModule.class);
+
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, pikoDI::warmUp);
+        log.info("Warm up failed with {}", exception.getMessage());
+        assertEquals("INSTANTIATION_FAILURE", exception.getErrorCode(), "Exception error codes do not match");
+        assertTrue(exception.getMessage().contains(Connection.class.getName()), "The failed singleton is not reported");
+        assertTrue(exception.getMessage().contains("config"), "The failed dependency is not reported");
+    }
+
+    @Test
+    void testRequestScopedInstanceIsSharedWithinScope() {
+        PikoDI pikoDI = PikoDI.create(RequestModule.class);
+
+        try (PikoDI.Scope scope = pikoDI.enterScope()) {
+            RequestContext requestContext = scope.getInstanceOf(new ItemKey<>(RequestContext.class));
+            UnitOfWork unitOfWork1 = scope.getInstanceOf(new ItemKey<>(UnitOfWork.class));
+            UnitOfWork unitOfWork2 = scope.get(pikoDI.key(new ItemKey<>(UnitOfWork.class)));
+
+            assertNotSame(unitOfWork1, unitOfWork2, "Unscoped instances must not be cached");
+            assertSame(requestContext, unitOfWork1.getRequestContext(), "Request scoped instance was built more than once");
+            assertSame(requestContext, unitOfWork2.getRequestContext(), "Request scoped instance was built more than once");
+
+            Provider<?> requestContextProvider = scope.getInstanceOf(new ItemKey<>(Provider.class));
+            assertSame(requestContext, requestContextProvider.get(), "Provider is not bound to the scope");
+        }
+    }
+
+    @Test
+    void testRequestScopedInstancesAreNotSharedAcrossScopes() {
+        PikoDI pikoDI = PikoDI.create(RequestModule.class);
+        int countBefore = RequestModule.requestContextCount.get();
+
+        RequestContext requestContext1;
+        RequestContext requestContext2;
+        try (PikoDI.Scope scope1 = pikoDI.enterScope(); PikoDI.Scope scope2 = pikoDI.enterScope()) {
+            requestContext1 = scope1.getInstanceOf(new ItemKey<>(UnitOfWork.class)).getRequestContext();
+            requestContext2 = scope2.getInstanceOf(new ItemKey<>(UnitOfWork.class)).getRequestContext();
+        }
+
+        assertNotSame(requestContext1, requestContext2, "Request scoped instances must be cached per scope");
+        assertEquals(countBefore + 2, RequestModule.requestContextCount.get());
+    }
+
+    @Test
+    void testRequestScopedLookupOutOfScope() {
+        PikoDI pikoDI = PikoDI.create(RequestModule.class);
+
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> pikoDI.getInstanceOf(new ItemKey<>(RequestContext.class)));
+        assertEquals("OUT_OF_SCOPE", exception.getErrorCode(), "Exception error codes do not match");
+
+        PikoDI.Scope scope = pikoDI.enterScope();
+        scope.close();
+        exception = assertThrows(PikoDI.Exception.class, () -> scope.getInstanceOf(new ItemKey<>(RequestContext.class)));
+        assertEquals("OUT_OF_SCOPE", exception.getErrorCode(), "Closed scope must not build instances");
+    }
+
+    @Test
+    void testConcurrentFirstScopedLookupsBuildOnce() throws Exception {
+        PikoDI pikoDI = PikoDI.create(SlowRequestModule.class);
+        SlowRequestModule.release = new CountDownLatch(1);
+        int countBefore = SlowRequestModule.slowCount.get();
+        ItemKey<RequestContext> slowKey = new ItemKey<>(RequestContext.class, "slow");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try (PikoDI.Scope scope = pikoDI.enterScope()) {
+            List<Future<RequestContext>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executorService.submit(() -> scope.getInstanceOf(slowKey)));
+            }
+            while (SlowRequestModule.slowCount.get() == countBefore) {
+                Thread.sleep(1);
+            }
+
+            assertNotNull(scope.getInstanceOf(new ItemKey<>(RequestContext.class, "fast")));
+            for (Future<RequestContext> future : futures) {
+                assertFalse(future.isDone(), "Lookup of another item was held up by a slow build");
+            }
+
+            SlowRequestModule.release.countDown();
+            Set<RequestContext> requestContexts = ConcurrentHashMap.newKeySet();
+            for (Future<RequestContext> future : futures) {
+                requestContexts.add(future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, requestContexts.size(), "More than one request scoped instance was observed");
+            assertEquals(countBefore + 1, SlowRequestModule.slowCount.get(), "Request scoped provider was invoked more than once");
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReentrantRequestScopedItemIsReported() {
+        PikoDI pikoDI = PikoDI.create(ReentrantRequestModule.class);
+
+        try (PikoDI.Scope scope = pikoDI.enterScope()) {
+            PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                    () -> scope.getInstanceOf(new ItemKey<>(UnitOfWork.class)));
+            log.info("Reentrant build failed with {}", exception.getMessage());
+            assertEquals("INSTANTIATION_FAILURE", exception.getErrorCode(), "Exception error codes do not match");
+        }
+    }
+
+    @Test
+    void testSingletonCannotDependOnRequestScope() {
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> PikoDI.create(RequestModule.class, RequestSingletonModule.class));
+        log.info("Singleton in a request scope failed with {}", exception.getMessage());
+        assertEquals("SCOPE_MISMATCH", exception.getErrorCode(), "Exception error codes do not match");
+        assertEquals(Set.of(new ItemKey<>(String.class, "report")), exception.getData().get("SCOPE_MISMATCH"));
+
+        PikoDI parent = PikoDI.create(RequestModule.class);
+        exception = assertThrows(PikoDI.Exception.class, () -> parent.createChild(RequestSingletonModule.class));
+        assertEquals("SCOPE_MISMATCH", exception.getErrorCode(), "Request scope of the parent was not found");
+
+        PikoDI pikoDI = PikoDI.create(RequestModule.class, DeferredRequestSingletonModule.class);
+        assertEquals("deferred report", pikoDI.getInstanceOf(new ItemKey<>(String.class, "deferredReport")),
+                "Singleton depending on a Provider of a request scoped item was rejected");
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.PikoDIListener;
+import com.github.pikosphere.di.tests.deferred.Car;
+import com.github.pikosphere.di.tests.deferred.DeferredModule;
+import com.github.pikosphere.di.tests.deferred.Garage;
+import com.github.pikosphere.di.tests.graphs.DiamondModule;
+import com.github.pikosphere.di.tests.graphs.Node;
+import com.github.pikosphere.di.tests.multibindings.Codec;
+import com.github.pikosphere.di.tests.multibindings.CoreModule;
+import com.github.pikosphere.di.tests.multibindings.Handler;
+import com.github.pikosphere.di.tests.multibindings.PluginModule;
+import com.github.pikosphere.di.tests.multibindings.Router;
+import com.github.pikosphere.di.tests.scopes.Client;
+import com.github.pikosphere.di.tests.scopes.SingletonModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DISnapshotTests {
+
+    @TempDir
+    Path snapshotDirectory;
+
+    @Test
+    void testSnapshotIsWrittenAndLoaded() throws Exception {
+        Path snapshotFile = snapshotDirectory.resolve("graph.snapshot");
+        Class[] modules = {SingletonModule.class, DeferredModule.class, DiamondModule.class};
+
+        List<PikoDIListener.Phase> phases = new ArrayList<>();
+        PikoDI.builder().listener(getPhaseListener(phases)).snapshot(snapshotFile).create(modules);
+        assertTrue(Files.size(snapshotFile) > 0, "Snapshot was not written");
+        assertEquals(Arrays.asList(PikoDIListener.Phase.values()), phases, "Graph was not validated");
+
+        phases.clear();
+        PikoDI pikoDI = PikoDI.builder().listener(getPhaseListener(phases)).snapshot(snapshotFile).create(modules);
+        assertEquals(Collections.singletonList(PikoDIListener.Phase.SCAN), phases, "Graph was validated again");
+
+        Client client = pikoDI.getInstanceOf(new ItemKey<>(Client.class));
+        assertSame(client.getConnection(), pikoDI.getInstanceOf(new ItemKey<>(Client.class)).getConnection(),
+                "Singleton is not cached");
+        assertNotSame(pikoDI.getInstanceOf(new ItemKey<>(Car.class)).newEngine(),
+                pikoDI.getInstanceOf(new ItemKey<>(Car.class)).newEngine(), "Provider dependency is not deferred");
+        Garage garage = pikoDI.getInstanceOf(new ItemKey<>(Garage.class));
+        assertSame(garage.getEngine(), garage.getEngine(), "Lazy dependency is not memoized");
+        Node top = pikoDI.getInstanceOf(new ItemKey<>(Node.class, "top"));
+        assertEquals("bottom", top.getDependencies().get(1).getDependencies().get(0).getName(),
+                "Qualified dependencies do not match");
+    }
+
+    @Test
+    void testMultibindingsAreLoaded() {
+        Path snapshotFile = snapshotDirectory.resolve("multibindings.snapshot");
+        PikoDI.builder().snapshot(snapshotFile).create(CoreModule.class, PluginModule.class);
+
+        List<PikoDIListener.Phase> phases = new ArrayList<>();
+        PikoDI pikoDI = PikoDI.builder().listener(getPhaseListener(phases)).snapshot(snapshotFile)
+                .create(CoreModule.class, PluginModule.class);
+        assertEquals(Collections.singletonList(PikoDIListener.Phase.SCAN), phases, "Graph was validated again");
+
+        Set<Handler> handlers = pikoDI.getInstanceOf(new ItemKey<Set>(Set.class, "handlers"));
+        assertEquals(2, handlers.size(), "Contributed set does not match");
+        assertSame(handlers, pikoDI.getInstanceOf(new ItemKey<>(Router.class)).getHandlers(), "Set is not shared");
+        Map<String, Codec> codecs = pikoDI.getInstanceOf(new ItemKey<Map>(Map.class, "codecs"));
+        assertEquals("application/json", codecs.get("json").getContentType(), "Contributed map does not match");
+        assertEquals("application/xml", codecs.get("xml").getContentType(), "Contributed map does not match");
+    }
+
+    @Test
+    void testOtherModulesFallBackToFullBuild() {
+        Path snapshotFile = snapshotDirectory.resolve("graph.snapshot");
+        PikoDI.builder().snapshot(snapshotFile).create(SingletonModule.class);
+
+        List<PikoDIListener.Phase> phases = new ArrayList<>();
+        PikoDI pikoDI = PikoDI.builder().listener(getPhaseListener(phases)).snapshot(snapshotFile)
+                .create(DiamondModule.class);
+        assertEquals(Arrays.asList(PikoDIListener.Phase.values()), phases, "Graph of other modules was not validated");
+        assertTrue(pikoDI.canProvide(new ItemKey<>(Node.class, "top")), "Graph was not built from the given modules");
+        assertFalse(pikoDI.canProvide(new ItemKey<>(Client.class)), "Graph was loaded from the snapshot of other modules");
+
+        //rewritten for the new modules
+        phases.clear();
+        PikoDI.builder().listener(getPhaseListener(phases)).snapshot(snapshotFile).create(DiamondModule.class);
+        assertEquals(Collections.singletonList(PikoDIListener.Phase.SCAN), phases, "Snapshot was not rewritten");
+    }
+
+    @Test
+    void testCorruptSnapshotFallsBackToFullBuild() throws Exception {
+        Path snapshotFile = snapshotDirectory.resolve("graph.snapshot");
+        PikoDI.builder().snapshot(snapshotFile).create(SingletonModule.class);
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length - 8));
+
+        PikoDI pikoDI = PikoDI.builder().snapshot(snapshotFile).create(SingletonModule.class);
+        assertNotNull(pikoDI.getInstanceOf(new ItemKey<>(Client.class)), "Graph was not built");
+        assertArrayEquals(bytes, Files.readAllBytes(snapshotFile), "Snapshot was not rewritten");
+    }
+
+    private static PikoDIListener getPhaseListener(List<PikoDIListener.Phase> phases) {
+        return new PikoDIListener() {
+            @Override
+            public void onPhase(Phase phase, long durationNanos) {
+                phases.add(phase);
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.StartupProfile;
+import com.github.pikosphere.di.tests.graphs.Node;
+import com.github.pikosphere.di.tests.graphs.SlowDiamondModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DIStartupProfileTests {
+
+    private static final ItemKey<Node> TOP = new ItemKey<>(Node.class, "top");
+    private static final ItemKey<Node> LEFT = new ItemKey<>(Node.class, "left");
+    private static final ItemKey<Node> RIGHT = new ItemKey<>(Node.class, "right");
+    private static final ItemKey<Node> BOTTOM = new ItemKey<>(Node.class, "bottom");
+
+    @Test
+    void testCriticalPathOfWarmUp() {
+        PikoDI pikoDI = PikoDI.builder().profiling().create(SlowDiamondModule.class);
+        pikoDI.warmUp();
+
+        StartupProfile profile = pikoDI.getStartupProfile();
+        log.info("Startup profile {}", profile.toJson());
+        assertEquals(Arrays.asList(BOTTOM, LEFT, TOP), profile.getCriticalPath(), "Critical path does not match");
+        assertTrue(profile.getSerialNanos() >= TimeUnit.MILLISECONDS.toNanos(100), "Serial cost is too low");
+        assertTrue(profile.getParallelNanos() <= profile.getSerialNanos(), "Parallel cost exceeds the serial cost");
+
+        StartupProfile.Entry right = profile.getEntries().stream()
+                .filter(entry -> entry.getItemKey().equals(RIGHT))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertFalse(right.isOnCriticalPath(), "Fast item is on the critical path");
+        assertEquals(1, right.getInvocations(), "Singleton was built more than once");
+        assertEquals(Arrays.asList(BOTTOM), right.getDependencies(), "Dependencies do not match");
+        assertTrue(right.getStartNanos() >= TimeUnit.MILLISECONDS.toNanos(40), "Item starts before its dependency");
+    }
+
+    @Test
+    void testReportFormats() {
+        PikoDI pikoDI = PikoDI.builder().profiling().create(SlowDiamondModule.class);
+        pikoDI.getInstanceOf(TOP);
+
+        StartupProfile profile = pikoDI.getStartupProfile();
+        String json = profile.toJson();
+        assertTrue(json.contains("\"criticalPath\": [") && json.contains("\"serialNanos\": " + profile.getSerialNanos()),
+                "JSON report is missing the totals");
+        assertEquals(4, json.split("\"itemKey\"").length - 1, "JSON report does not have all the items");
+
+        String dot = profile.toDot();
+        log.info("Startup profile {}", dot);
+        assertTrue(dot.startsWith("digraph PikoDI {"), "DOT report is not a digraph");
+        assertTrue(dot.contains("\"" + BOTTOM + "\" -> \"" + LEFT + "\" [color=red];"), "Critical edge is not highlighted");
+        assertTrue(dot.contains("\"" + BOTTOM + "\" -> \"" + RIGHT + "\";"), "Other edge is missing or highlighted");
+    }
+
+    @Test
+    void testProfileRequiresProfiling() {
+        PikoDI pikoDI = PikoDI.create(SlowDiamondModule.class);
+        assertThrows(IllegalStateException.class, pikoDI::getStartupProfile);
+    }
+}
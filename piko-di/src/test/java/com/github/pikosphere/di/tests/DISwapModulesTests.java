@@ -0,0 +1,105 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.tests.lifecycle.LifecycleModule;
+import com.github.pikosphere.di.tests.lifecycle.Resource;
+import com.github.pikosphere.di.tests.swap.*;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DISwapModulesTests {
+
+    private static final ItemKey<Greeter> GREETER_KEY = new ItemKey<>(Greeter.class);
+    private static final ItemKey<Clock> CLOCK_KEY = new ItemKey<>(Clock.class);
+    private static final ItemKey<Resource> SERVICE_KEY = new ItemKey<>(Resource.class, "service");
+    private static final ItemKey<Resource> CONNECTION_KEY = new ItemKey<>(Resource.class, "connection");
+
+    @Test
+    void testReplaceModuleKeepsUnaffectedInstances() {
+        PikoDI pikoDI = PikoDI.create(ConfigModule.class, ServiceModule.class);
+        Greeter greeter = pikoDI.getInstanceOf(GREETER_KEY);
+        Clock clock = pikoDI.getInstanceOf(CLOCK_KEY);
+
+        PikoDI swapped = pikoDI.replaceModule(ConfigModule.class, UpdatedConfigModule.class);
+
+        assertEquals("hi", swapped.getInstanceOf(GREETER_KEY).getGreeting(), "Dependent singleton was not rebuilt");
+        assertNotSame(greeter, swapped.getInstanceOf(GREETER_KEY));
+        assertSame(clock, swapped.getInstanceOf(CLOCK_KEY), "Unaffected singleton was rebuilt");
+
+        assertSame(greeter, pikoDI.getInstanceOf(GREETER_KEY), "The swapped injector was modified");
+        assertEquals("hello", pikoDI.getInstanceOf(GREETER_KEY).getGreeting());
+    }
+
+    @Test
+    void testAddModules() {
+        PikoDI pikoDI = PikoDI.create(ConfigModule.class, ServiceModule.class);
+        Clock clock = pikoDI.getInstanceOf(CLOCK_KEY);
+
+        PikoDI extended = pikoDI.addModules(ReportModule.class);
+
+        assertTrue(extended.getInstanceOf(new ItemKey<>(String.class, "report")).startsWith("hello at "));
+        assertSame(clock, extended.getInstanceOf(CLOCK_KEY), "Unaffected singleton was rebuilt");
+        assertFalse(pikoDI.canProvide(new ItemKey<>(String.class, "report")), "The swapped injector was modified");
+    }
+
+    @Test
+    void testSwappedInjectorClosesOnlyInstancesNotShared() {
+        LifecycleModule.closedNames.clear();
+        PikoDI pikoDI = PikoDI.create(LifecycleModule.class, ConnectionModule.class);
+        Resource service = pikoDI.getInstanceOf(SERVICE_KEY);
+        pikoDI.getInstanceOf(CONNECTION_KEY);
+
+        PikoDI swapped = pikoDI.replaceModule(ConnectionModule.class, UpdatedConnectionModule.class);
+        assertSame(service, swapped.getInstanceOf(SERVICE_KEY), "Unaffected singleton was rebuilt");
+
+        pikoDI.close();
+        assertEquals(Arrays.asList("connection"), new ArrayList<>(LifecycleModule.closedNames),
+                "Swapped injector closed the shared instances");
+        assertSame(service, swapped.getInstanceOf(SERVICE_KEY), "Shared singleton was dropped");
+    }
+
+    @Test
+    void testNewInjectorClosesSharedInstances() {
+        LifecycleModule.closedNames.clear();
+        PikoDI pikoDI = PikoDI.create(LifecycleModule.class, ConnectionModule.class);
+        pikoDI.getInstanceOf(SERVICE_KEY);
+        pikoDI.getInstanceOf(CONNECTION_KEY);
+
+        PikoDI swapped = pikoDI.replaceModule(ConnectionModule.class, UpdatedConnectionModule.class);
+        swapped.getInstanceOf(CONNECTION_KEY);
+
+        swapped.close();
+        assertEquals(new HashSet<>(Arrays.asList("updated connection", "service", "cache", "pool")),
+                new HashSet<>(LifecycleModule.closedNames), "New injector did not close the shared instances");
+
+        pikoDI.close();
+        assertEquals(5, LifecycleModule.closedNames.size(), "Shared instances were closed twice");
+        assertEquals("connection", new ArrayList<>(LifecycleModule.closedNames).get(4));
+    }
+
+    @Test
+    void testSwapRevalidatesDependentsOfRemovedKeys() {
+        PikoDI pikoDI = PikoDI.create(ConfigModule.class, ServiceModule.class);
+
+        PikoDI.Exception exception = assertThrows(PikoDI.Exception.class,
+                () -> pikoDI.replaceModule(ConfigModule.class, IncompleteConfigModule.class));
+        log.info("Swap failed with {}", exception.getMessage());
+        assertEquals("NO_PROVIDERS", exception.getErrorCode(), "Exception error codes do not match");
+        assertEquals("hello", pikoDI.getInstanceOf(GREETER_KEY).getGreeting(), "Failed swap modified the injector");
+    }
+
+    @Test
+    void testReplaceUnknownModule() {
+        PikoDI pikoDI = PikoDI.create(ConfigModule.class, ServiceModule.class);
+        assertThrows(IllegalArgumentException.class,
+                () -> pikoDI.replaceModule(ReportModule.class, UpdatedConfigModule.class));
+    }
+}
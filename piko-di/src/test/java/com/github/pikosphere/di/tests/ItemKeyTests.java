@@ -0,0 +1,65 @@
+package com.github.pikosphere.di.tests;
+
+import com.github.pikosphere.di.ItemKey;
+import com.github.pikosphere.di.tests.common.CustomQualifier;
+import com.github.pikosphere.di.tests.common.Service1;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Named;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemKeyTests {
+
+    @Named(" service ")
+    @CustomQualifier
+    private static void qualified() {
+    }
+
+    private static <A extends Annotation> A getAnnotation(Class<A> annotationClass) throws NoSuchMethodException {
+        return ItemKeyTests.class.getDeclaredMethod("qualified").getAnnotation(annotationClass);
+    }
+
+    @Test
+    void testNamedKeysAreEqual() throws NoSuchMethodException {
+        ItemKey<Service1> byName = new ItemKey<>(Service1.class, "service");
+        ItemKey<Service1> byAnnotation = new ItemKey<>(Service1.class, getAnnotation(Named.class));
+
+        assertEquals(byName, byAnnotation, "@Named keys with the same (trimmed) value are not equal");
+        assertEquals(byName.hashCode(), byAnnotation.hashCode(), "Equal keys have different hashes");
+        assertNotEquals(byName, new ItemKey<>(Service1.class, "other"));
+        assertNotEquals(byName, new ItemKey<>(Service1.class));
+    }
+
+    @Test
+    void testQualifierKeysAreEqual() throws NoSuchMethodException {
+        ItemKey<Service1> byClass = new ItemKey<>(Service1.class, CustomQualifier.class);
+        ItemKey<Service1> byAnnotation = new ItemKey<>(Service1.class, getAnnotation(CustomQualifier.class));
+
+        assertEquals(byClass, byAnnotation, "Keys with the same qualifier annotation are not equal");
+        assertEquals(byClass.hashCode(), byAnnotation.hashCode(), "Equal keys have different hashes");
+        assertNotEquals(byClass, new ItemKey<>(Service1.class, Named.class));
+    }
+
+    @Test
+    void testBlankNameIsUnqualified() {
+        assertEquals(new ItemKey<>(Service1.class), new ItemKey<>(Service1.class, " "));
+        assertEquals(new ItemKey<>(Service1.class), new ItemKey<>(Service1.class, (Annotation) null));
+    }
+
+    @Test
+    void testLookupNamesAreNotInterned() throws ReflectiveOperationException {
+        Field namedQualifiersField = ItemKey.class.getDeclaredField("namedQualifiers");
+        namedQualifiersField.setAccessible(true);
+        Map<String, String> namedQualifiers = (Map<String, String>) namedQualifiersField.get(null);
+
+        String name = "lookup-" + System.nanoTime();
+        ItemKey<Service1> key = new ItemKey<>(Service1.class, name);
+        assertFalse(namedQualifiers.containsKey(name), "Name of a lookup key was interned");
+        assertEquals(key, new ItemKey<>(Service1.class, " " + name + " "), "Keys with names not interned are not equal");
+        assertEquals(key.hashCode(), new ItemKey<>(Service1.class, name).hashCode(), "Equal keys have different hashes");
+    }
+}
@@ -3,11 +3,15 @@ package com.github.pikosphere.di.tests;
 
 import com.github.pikosphere.di.ItemKey;
 import com.github.pikosphere.di.PikoDI;
+import com.github.pikosphere.di.PikoDIListener;
 import com.github.pikosphere.di.tests.common.*;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
 import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,6 +43,30 @@ class SimpleDIBuildTests {
         assertEquals("NO_PROVIDERS", exception.getErrorCode(), "Exception error codes do not match");
     }
 
+    @Test
+    void createDI_same_module_repeatedly() {
+        List<Boolean> scansCached = new CopyOnWriteArrayList<>();
+        PikoDI.Builder builder = PikoDI.builder().listener(new PikoDIListener() {
+            @Override
+            public void onModuleScan(Class<?> module, boolean cached) {
+                if (module == Module3.class) {
+                    scansCached.add(cached);
+                }
+            }
+        });
+
+        //the scan of the module is cached, the validation against the other modules is not
+        for (int i = 0; i < 3; i++) {
+            assertTrue(builder.create(Module3.class).canProvide(new ItemKey<Object>(Service2.class, (Annotation) null)));
+            PikoDI.Exception exception = assertThrows(PikoDI.Exception.class, () -> PikoDI.create(ModuleWithDeps.class));
+            assertEquals("NO_PROVIDERS", exception.getErrorCode(), "Exception error codes do not match");
+        }
+
+        //the first one may scan the module, unless another test already did
+        assertEquals(3, scansCached.size(), "Module was not merged into every injector");
+        assertEquals(Arrays.asList(true, true), scansCached.subList(1, 3), "Scan of the module was not reused");
+    }
+
     @Test
     void createDI_module_composite_dep_type() {
         PikoDI di = PikoDI.create(Module3.class);
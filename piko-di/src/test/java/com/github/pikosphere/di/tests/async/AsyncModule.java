@@ -0,0 +1,52 @@
+package com.github.pikosphere.di.tests.async;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The config and the index are loaded on their own threads and each waits for the other one, so they can only be
+ * loaded if they are both requested before waiting on either.
+ */
+public class AsyncModule {
+
+    public static final CyclicBarrier loadBarrier = new CyclicBarrier(2);
+    public static final AtomicInteger indexCount = new AtomicInteger();
+
+    private static final Executor ioExecutor = runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    @Named("config")
+    public static CompletableFuture<String> provideConfig() {
+        return CompletableFuture.supplyAsync(() -> load("config"), ioExecutor);
+    }
+
+    @Singleton
+    @Named("index")
+    public static CompletableFuture<String> provideIndex() {
+        indexCount.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> load("index"), ioExecutor);
+    }
+
+    @Named("service")
+    public static String provideService(@Named("config") String config, @Named("index") String index) {
+        return config + "+" + index;
+    }
+
+    private static String load(String name) {
+        try {
+            loadBarrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.pikosphere.di.tests.async;
+
+import javax.inject.Named;
+import java.io.FileNotFoundException;
+import java.util.concurrent.CompletableFuture;
+
+public class SimpleAsyncModule {
+
+    @Named("greeting")
+    public static CompletableFuture<String> provideGreeting() {
+        return CompletableFuture.completedFuture("Hello");
+    }
+
+    @Named("message")
+    public static String provideMessage(@Named("greeting") String greeting) {
+        return greeting + " World";
+    }
+
+    @Named("broken")
+    public static CompletableFuture<String> provideBroken() {
+        return CompletableFuture.failedFuture(new FileNotFoundException("broken.properties"));
+    }
+
+    @Named("brokenMessage")
+    public static String provideBrokenMessage(@Named("broken") String broken) {
+        return broken;
+    }
+}
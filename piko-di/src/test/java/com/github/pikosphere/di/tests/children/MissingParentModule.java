@@ -0,0 +1,12 @@
+package com.github.pikosphere.di.tests.children;
+
+import com.github.pikosphere.di.tests.scopes.Connection;
+
+import javax.inject.Named;
+
+public class MissingParentModule {
+
+    public static Tenant provideTenant(@Named("region") String region, Connection connection) {
+        return new Tenant(region, connection);
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.pikosphere.di.tests.children;
+
+import javax.inject.Named;
+
+public class OverrideModule {
+
+    @Named("tenantName")
+    public static String provideTenantName() {
+        return "globex";
+    }
+}
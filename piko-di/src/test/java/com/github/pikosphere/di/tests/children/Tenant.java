@@ -0,0 +1,22 @@
+package com.github.pikosphere.di.tests.children;
+
+import com.github.pikosphere.di.tests.scopes.Connection;
+
+public class Tenant {
+
+    private final String name;
+    private final Connection connection;
+
+    public Tenant(String name, Connection connection) {
+        this.name = name;
+        this.connection = connection;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.pikosphere.di.tests.children;
+
+import com.github.pikosphere.di.tests.scopes.Connection;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+public class TenantModule {
+
+    @Named("tenantName")
+    public static String provideTenantName() {
+        return "acme";
+    }
+
+    @Singleton
+    public static Tenant provideTenant(@Named("tenantName") String name, Connection connection) {
+        return new Tenant(name, connection);
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.pikosphere.di.tests.children;
+
+import com.github.pikosphere.di.tests.scopes.RequestContext;
+
+public class TenantRequest {
+
+    private final Tenant tenant;
+    private final RequestContext requestContext;
+
+    public TenantRequest(Tenant tenant, RequestContext requestContext) {
+        this.tenant = tenant;
+        this.requestContext = requestContext;
+    }
+
+    public Tenant getTenant() {
+        return tenant;
+    }
+
+    public RequestContext getRequestContext() {
+        return requestContext;
+    }
+}
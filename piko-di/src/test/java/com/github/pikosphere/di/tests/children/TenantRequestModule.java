@@ -0,0 +1,12 @@
+package com.github.pikosphere.di.tests.children;
+
+import com.github.pikosphere.di.tests.scopes.RequestContext;
+
+import javax.inject.Provider;
+
+public class TenantRequestModule {
+
+    public static TenantRequest provideTenantRequest(Tenant tenant, Provider<RequestContext> requestContextProvider) {
+        return new TenantRequest(tenant, requestContextProvider.get());
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.pikosphere.di.tests.deferred;
+
+import javax.inject.Provider;
+
+public class Car {
+
+    private Provider<Engine> engineProvider;
+
+    public Car(Provider<Engine> engineProvider) {
+        this.engineProvider = engineProvider;
+    }
+
+    public Engine newEngine() {
+        return engineProvider.get();
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.pikosphere.di.tests.deferred;
+
+public class Child {
+
+    private Parent parent;
+
+    public Child(Parent parent) {
+        this.parent = parent;
+    }
+
+    public Parent getParent() {
+        return parent;
+    }
+}
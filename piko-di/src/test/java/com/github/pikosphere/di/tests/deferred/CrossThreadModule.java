@@ -0,0 +1,35 @@
+package com.github.pikosphere.di.tests.deferred;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cycle broken by a Provider, which is called while the Parent is being built. Looked up from both ends at once,
+ * each thread builds one end and then needs the other.
+ */
+public class CrossThreadModule {
+
+    //reached by the builds of both ends, so that neither goes on before the other one is being built
+    public static volatile CountDownLatch gate = new CountDownLatch(0);
+
+    @Singleton
+    public static Parent provideParent(@Named("gate") String gate, Provider<Child> childProvider) {
+        childProvider.get();
+        return new Parent(childProvider);
+    }
+
+    @Singleton
+    public static Child provideChild(@Named("gate") String gate, Parent parent) {
+        return new Child(parent);
+    }
+
+    @Named("gate")
+    public static String provideGate() throws InterruptedException {
+        gate.countDown();
+        gate.await(5, TimeUnit.SECONDS);
+        return "open";
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.pikosphere.di.tests.deferred;
+
+import com.github.pikosphere.di.Lazy;
+
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeferredModule {
+
+    public static final AtomicInteger engineCount = new AtomicInteger();
+
+    public static Engine provideEngine() {
+        engineCount.incrementAndGet();
+        return new Engine();
+    }
+
+    public static Car provideCar(Provider<Engine> engineProvider) {
+        return new Car(engineProvider);
+    }
+
+    public static Garage provideGarage(Lazy<Engine> engine) {
+        return new Garage(engine);
+    }
+
+    //Parent and Child depend on each other, the cycle is broken by the Provider
+    @Singleton
+    public static Parent provideParent(Provider<Child> childProvider) {
+        return new Parent(childProvider);
+    }
+
+    public static Child provideChild(Parent parent) {
+        return new Child(parent);
+    }
+}
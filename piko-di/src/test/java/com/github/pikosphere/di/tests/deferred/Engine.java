@@ -0,0 +1,4 @@
+package com.github.pikosphere.di.tests.deferred;
+
+public class Engine {
+}
@@ -0,0 +1,16 @@
+package com.github.pikosphere.di.tests.deferred;
+
+import com.github.pikosphere.di.Lazy;
+
+public class Garage {
+
+    private Lazy<Engine> engine;
+
+    public Garage(Lazy<Engine> engine) {
+        this.engine = engine;
+    }
+
+    public Engine getEngine() {
+        return engine.get();
+    }
+}
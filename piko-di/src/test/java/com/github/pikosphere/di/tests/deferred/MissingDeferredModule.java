@@ -0,0 +1,10 @@
+package com.github.pikosphere.di.tests.deferred;
+
+import com.github.pikosphere.di.Lazy;
+
+public class MissingDeferredModule {
+
+    public static Garage provideGarage(Lazy<Engine> engine) {
+        return new Garage(engine);
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.pikosphere.di.tests.deferred;
+
+import javax.inject.Provider;
+
+public class Parent {
+
+    private Provider<Child> childProvider;
+
+    public Parent(Provider<Child> childProvider) {
+        this.childProvider = childProvider;
+    }
+
+    public Child newChild() {
+        return childProvider.get();
+    }
+}
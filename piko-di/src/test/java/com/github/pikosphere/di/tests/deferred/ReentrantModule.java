@@ -0,0 +1,18 @@
+package com.github.pikosphere.di.tests.deferred;
+
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+public class ReentrantModule {
+
+    //calls the Provider while the Parent is being built, which needs the Parent again
+    @Singleton
+    public static Parent provideParent(Provider<Child> childProvider) {
+        childProvider.get();
+        return new Parent(childProvider);
+    }
+
+    public static Child provideChild(Parent parent) {
+        return new Child(parent);
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.pikosphere.di.tests.graphs;
+
+import javax.inject.Named;
+
+/**
+ * A chain of providers whose last one always fails
+ */
+public class BrokenChainModule {
+
+    @Named("top")
+    public static Node provideTop(@Named("middle") Node middle) {
+        return new Node("top", middle);
+    }
+
+    @Named("middle")
+    public static Node provideMiddle(@Named("bottom") Node bottom) {
+        return new Node("middle", bottom);
+    }
+
+    @Named("bottom")
+    public static Node provideBottom() {
+        throw new IllegalStateException("bottom is broken");
+    }
+}
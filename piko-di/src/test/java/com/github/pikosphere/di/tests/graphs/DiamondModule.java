@@ -0,0 +1,30 @@
+package com.github.pikosphere.di.tests.graphs;
+
+import javax.inject.Named;
+
+/**
+ * top -> left -> bottom
+ * top -> right -> bottom
+ */
+public class DiamondModule {
+
+    @Named("top")
+    public static Node provideTop(@Named("left") Node left, @Named("right") Node right) {
+        return new Node("top", left, right);
+    }
+
+    @Named("left")
+    public static Node provideLeft(@Named("bottom") Node bottom) {
+        return new Node("left", bottom);
+    }
+
+    @Named("right")
+    public static Node provideRight(@Named("bottom") Node bottom) {
+        return new Node("right", bottom);
+    }
+
+    @Named("bottom")
+    public static Node provideBottom() {
+        return new Node("bottom");
+    }
+}
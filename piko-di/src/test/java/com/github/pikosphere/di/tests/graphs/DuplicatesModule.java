@@ -0,0 +1,16 @@
+package com.github.pikosphere.di.tests.graphs;
+
+import javax.inject.Named;
+
+public class DuplicatesModule {
+
+    @Named("node")
+    public static Node provideNode() {
+        return new Node("node");
+    }
+
+    @Named("node")
+    public static Node provideSameNode() {
+        return new Node("same.node");
+    }
+}
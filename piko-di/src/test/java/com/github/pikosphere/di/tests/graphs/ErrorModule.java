@@ -0,0 +1,30 @@
+package com.github.pikosphere.di.tests.graphs;
+
+import javax.inject.Named;
+
+/**
+ * Providers which fail with an Error rather than an exception, one the virtual machine cannot go on after and one
+ * it can
+ */
+public class ErrorModule {
+
+    @Named("top")
+    public static Node provideTop(@Named("bottom") Node bottom) {
+        return new Node("top", bottom);
+    }
+
+    @Named("bottom")
+    public static Node provideBottom() {
+        throw new StackOverflowError("bottom overflowed");
+    }
+
+    @Named("assertingTop")
+    public static Node provideAssertingTop(@Named("assertingBottom") Node bottom) {
+        return new Node("assertingTop", bottom);
+    }
+
+    @Named("assertingBottom")
+    public static Node provideAssertingBottom() {
+        throw new AssertionError("bottom asserted");
+    }
+}
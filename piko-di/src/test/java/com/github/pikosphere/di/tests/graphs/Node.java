@@ -0,0 +1,23 @@
+package com.github.pikosphere.di.tests.graphs;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class Node {
+
+    private final String name;
+    private final List<Node> dependencies;
+
+    public Node(String name, Node... dependencies) {
+        this.name = name;
+        this.dependencies = Arrays.asList(dependencies);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Node> getDependencies() {
+        return dependencies;
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.pikosphere.di.tests.graphs;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A singleton provider which returns null
+ */
+public class NullModule {
+
+    public static final AtomicInteger invocations = new AtomicInteger();
+
+    @Singleton
+    @Named("none")
+    public static Node provideNone() {
+        invocations.incrementAndGet();
+        return null;
+    }
+}
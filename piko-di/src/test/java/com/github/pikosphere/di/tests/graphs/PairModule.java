@@ -0,0 +1,26 @@
+package com.github.pikosphere.di.tests.graphs;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+/**
+ * Providers taking the same key more than once
+ */
+public class PairModule {
+
+    @Named("pair")
+    public static Node providePair(@Named("leaf") Node first, @Named("leaf") Node second) {
+        return new Node("pair", first, second);
+    }
+
+    @Named("triple")
+    public static Node provideTriple(@Named("leaf") Node first, @Named("leaf") Provider<Node> others,
+                                     @Named("leaf") Node last) {
+        return new Node("triple", first, others.get(), last);
+    }
+
+    @Named("leaf")
+    public static Node provideLeaf() {
+        return new Node("leaf");
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.pikosphere.di.tests.graphs;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * top -> left (slow) -> bottom (slow)
+ * top -> right -> bottom (slow)
+ */
+public class SlowDiamondModule {
+
+    @Singleton
+    @Named("top")
+    public static Node provideTop(@Named("left") Node left, @Named("right") Node right) {
+        return new Node("top", left, right);
+    }
+
+    @Singleton
+    @Named("left")
+    public static Node provideLeft(@Named("bottom") Node bottom) {
+        sleep(60);
+        return new Node("left", bottom);
+    }
+
+    @Singleton
+    @Named("right")
+    public static Node provideRight(@Named("bottom") Node bottom) {
+        return new Node("right", bottom);
+    }
+
+    @Singleton
+    @Named("bottom")
+    public static Node provideBottom() {
+        sleep(40);
+        return new Node("bottom");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.pikosphere.di.tests.graphs;
+
+import javax.inject.Named;
+
+/**
+ * a -> b -> c -> a and x -> y -> x, where root depends on both the cycles
+ */
+public class TwoCyclesModule {
+
+    @Named("root")
+    public static Node provideRoot(@Named("a") Node a, @Named("x") Node x) {
+        return new Node("root", a, x);
+    }
+
+    @Named("a")
+    public static Node provideA(@Named("b") Node b) {
+        return new Node("a", b);
+    }
+
+    @Named("b")
+    public static Node provideB(@Named("c") Node c) {
+        return new Node("b", c);
+    }
+
+    @Named("c")
+    public static Node provideC(@Named("a") Node a) {
+        return new Node("c", a);
+    }
+
+    @Named("x")
+    public static Node provideX(@Named("y") Node y) {
+        return new Node("x", y);
+    }
+
+    @Named("y")
+    public static Node provideY(@Named("x") Node x) {
+        return new Node("y", x);
+    }
+}
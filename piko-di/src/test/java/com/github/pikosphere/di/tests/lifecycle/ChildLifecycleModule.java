@@ -0,0 +1,16 @@
+package com.github.pikosphere.di.tests.lifecycle;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * service (of the parent LifecycleModule) <- reporter
+ */
+public class ChildLifecycleModule {
+
+    @Singleton
+    @Named("reporter")
+    public static Resource provideReporter(@Named("service") Resource service) {
+        return new Resource("reporter", LifecycleModule.closedNames);
+    }
+}
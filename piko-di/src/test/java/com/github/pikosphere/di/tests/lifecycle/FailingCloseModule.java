@@ -0,0 +1,30 @@
+package com.github.pikosphere.di.tests.lifecycle;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class FailingCloseModule {
+
+    public static final Queue<String> closedNames = new ConcurrentLinkedQueue<>();
+
+    @Singleton
+    @Named("pool")
+    public static Resource providePool() {
+        return new Resource("pool", closedNames);
+    }
+
+    @Singleton
+    public static AutoCloseable provideBroken(@Named("pool") Resource pool) {
+        return () -> {
+            throw new IllegalStateException("already closed");
+        };
+    }
+
+    @Singleton
+    @Named("stuck")
+    public static Resource provideStuck() {
+        return new Resource("stuck", closedNames, 5_000);
+    }
+}
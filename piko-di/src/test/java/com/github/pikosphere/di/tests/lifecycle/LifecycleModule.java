@@ -0,0 +1,43 @@
+package com.github.pikosphere.di.tests.lifecycle;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * pool <- cache <- service, and cache <- client (not cached) <- frontend
+ */
+public class LifecycleModule {
+
+    public static final Queue<String> closedNames = new ConcurrentLinkedQueue<>();
+
+    @Singleton
+    @Named("pool")
+    public static Resource providePool() {
+        return new Resource("pool", closedNames, 50);
+    }
+
+    @Singleton
+    @Named("cache")
+    public static Resource provideCache(@Named("pool") Resource pool) {
+        return new Resource("cache", closedNames);
+    }
+
+    @Singleton
+    @Named("service")
+    public static Resource provideService(@Named("pool") Resource pool, @Named("cache") Resource cache) {
+        return new Resource("service", closedNames, 50);
+    }
+
+    @Named("client")
+    public static Resource provideClient(@Named("cache") Resource cache) {
+        return new Resource("client", closedNames);
+    }
+
+    @Singleton
+    @Named("frontend")
+    public static Resource provideFrontend(@Named("client") Resource client) {
+        return new Resource("frontend", closedNames, 50);
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.pikosphere.di.tests.lifecycle;
+
+import java.util.Queue;
+
+/**
+ * Records its name once closed, after waiting for the given time
+ */
+public class Resource implements AutoCloseable {
+
+    private final String name;
+    private final Queue<String> closedNames;
+    private final long closeMillis;
+
+    public Resource(String name, Queue<String> closedNames, long closeMillis) {
+        this.name = name;
+        this.closedNames = closedNames;
+        this.closeMillis = closeMillis;
+    }
+
+    public Resource(String name, Queue<String> closedNames) {
+        this(name, closedNames, 0);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (closeMillis > 0) {
+            Thread.sleep(closeMillis);
+        }
+        closedNames.add(name);
+    }
+}
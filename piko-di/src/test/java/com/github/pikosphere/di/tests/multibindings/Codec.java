@@ -0,0 +1,14 @@
+package com.github.pikosphere.di.tests.multibindings;
+
+public class Codec {
+
+    private final String contentType;
+
+    public Codec(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
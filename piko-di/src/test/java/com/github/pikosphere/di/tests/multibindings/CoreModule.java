@@ -0,0 +1,26 @@
+package com.github.pikosphere.di.tests.multibindings;
+
+import com.github.pikosphere.di.IntoMap;
+import com.github.pikosphere.di.IntoSet;
+
+import javax.inject.Named;
+import java.util.Set;
+
+public class CoreModule {
+
+    @IntoSet
+    @Named("handlers")
+    public static Handler provideHealthHandler() {
+        return new Handler("/health");
+    }
+
+    @IntoMap("json")
+    @Named("codecs")
+    public static Codec provideJsonCodec() {
+        return new Codec("application/json");
+    }
+
+    public static Router provideRouter(@Named("handlers") Set<Handler> handlers) {
+        return new Router(handlers);
+    }
+}
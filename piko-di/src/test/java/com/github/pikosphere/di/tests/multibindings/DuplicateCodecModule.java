@@ -0,0 +1,14 @@
+package com.github.pikosphere.di.tests.multibindings;
+
+import com.github.pikosphere.di.IntoMap;
+
+import javax.inject.Named;
+
+public class DuplicateCodecModule {
+
+    @IntoMap("json")
+    @Named("codecs")
+    public static Codec provideOtherJsonCodec() {
+        return new Codec("text/json");
+    }
+}
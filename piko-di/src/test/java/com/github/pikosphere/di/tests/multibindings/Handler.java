@@ -0,0 +1,14 @@
+package com.github.pikosphere.di.tests.multibindings;
+
+public class Handler {
+
+    private final String path;
+
+    public Handler(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.pikosphere.di.tests.multibindings;
+
+import com.github.pikosphere.di.IntoMap;
+import com.github.pikosphere.di.IntoSet;
+
+import javax.inject.Named;
+
+public class PluginModule {
+
+    @IntoSet
+    @Named("handlers")
+    public static Handler provideMetricsHandler(@Named("metricsPath") String path) {
+        return new Handler(path);
+    }
+
+    @Named("metricsPath")
+    public static String provideMetricsPath() {
+        return "/metrics";
+    }
+
+    @IntoMap("xml")
+    @Named("codecs")
+    public static Codec provideXmlCodec() {
+        return new Codec("application/xml");
+    }
+}
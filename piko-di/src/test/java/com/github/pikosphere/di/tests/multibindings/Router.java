@@ -0,0 +1,16 @@
+package com.github.pikosphere.di.tests.multibindings;
+
+import java.util.Set;
+
+public class Router {
+
+    private final Set<Handler> handlers;
+
+    public Router(Set<Handler> handlers) {
+        this.handlers = handlers;
+    }
+
+    public Set<Handler> getHandlers() {
+        return handlers;
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.pikosphere.di.tests.multibindings;
+
+import com.github.pikosphere.di.IntoSet;
+
+public class UnqualifiedContributionModule {
+
+    @IntoSet
+    public static Handler provideHandler() {
+        return new Handler("/");
+    }
+}
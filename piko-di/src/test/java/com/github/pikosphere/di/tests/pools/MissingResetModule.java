@@ -0,0 +1,11 @@
+package com.github.pikosphere.di.tests.pools;
+
+import com.github.pikosphere.di.Pooled;
+
+public class MissingResetModule {
+
+    @Pooled(reset = "clearParser")
+    public static Parser provideParser() {
+        return new Parser();
+    }
+}
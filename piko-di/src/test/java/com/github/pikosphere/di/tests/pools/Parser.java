@@ -0,0 +1,28 @@
+package com.github.pikosphere.di.tests.pools;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A costly, stateful object which must not be used by two threads at once
+ */
+public class Parser {
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final AtomicBoolean inUse = new AtomicBoolean();
+
+    public int parse(String input) {
+        if (!inUse.compareAndSet(false, true)) {
+            throw new IllegalStateException("Parser is used by two threads at once");
+        }
+        try {
+            buffer.append(input);
+            return buffer.length();
+        } finally {
+            inUse.set(false);
+        }
+    }
+
+    public void reset() {
+        buffer.setLength(0);
+    }
+}
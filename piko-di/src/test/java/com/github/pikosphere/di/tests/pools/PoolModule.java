@@ -0,0 +1,26 @@
+package com.github.pikosphere.di.tests.pools;
+
+import com.github.pikosphere.di.Pooled;
+
+import javax.inject.Named;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PoolModule {
+
+    public static final AtomicInteger buildCount = new AtomicInteger();
+
+    @Pooled(size = 2, reset = "resetParser")
+    public static Parser provideParser() {
+        buildCount.incrementAndGet();
+        return new Parser();
+    }
+
+    public static void resetParser(Parser parser) {
+        parser.reset();
+    }
+
+    @Named("greeting")
+    public static String provideGreeting() {
+        return "hello";
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.pikosphere.di.tests.pools;
+
+import com.github.pikosphere.di.Pooled;
+import com.github.pikosphere.di.tests.scopes.UnitOfWork;
+
+/**
+ * A pooled item which depends (through the UnitOfWork) on the request scoped RequestContext of the RequestModule
+ */
+public class RequestPoolModule {
+
+    @Pooled(size = 2)
+    public static Parser provideParser(UnitOfWork unitOfWork) {
+        return new Parser();
+    }
+}
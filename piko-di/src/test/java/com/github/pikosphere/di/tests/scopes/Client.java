@@ -0,0 +1,14 @@
+package com.github.pikosphere.di.tests.scopes;
+
+public class Client {
+
+    private Connection connection;
+
+    public Client(Connection connection) {
+        this.connection = connection;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.pikosphere.di.tests.scopes;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * A singleton which resolves the UnitOfWork of the RequestModule only when it calls the Provider
+ */
+public class DeferredRequestSingletonModule {
+
+    @Singleton
+    @Named("deferredReport")
+    public static String provideDeferredReport(Provider<UnitOfWork> unitOfWorkProvider) {
+        return "deferred report";
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.pikosphere.di.tests.scopes;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+public class FailingWarmUpModule {
+
+    @Named("config")
+    public static String provideConfig() {
+        throw new IllegalStateException("config file not found");
+    }
+
+    @Singleton
+    public static Connection provideConnection(@Named("config") String config) {
+        return new Connection();
+    }
+}
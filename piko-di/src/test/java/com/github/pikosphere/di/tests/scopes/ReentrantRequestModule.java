@@ -0,0 +1,18 @@
+package com.github.pikosphere.di.tests.scopes;
+
+import com.github.pikosphere.di.RequestScoped;
+
+import javax.inject.Provider;
+
+public class ReentrantRequestModule {
+
+    //calls the Provider while the UnitOfWork is being built, which needs the UnitOfWork again
+    @RequestScoped
+    public static UnitOfWork provideUnitOfWork(Provider<RequestContext> requestContextProvider) {
+        return new UnitOfWork(requestContextProvider.get());
+    }
+
+    public static RequestContext provideRequestContext(UnitOfWork unitOfWork) {
+        return new RequestContext();
+    }
+}
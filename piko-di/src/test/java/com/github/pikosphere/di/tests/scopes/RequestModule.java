@@ -0,0 +1,25 @@
+package com.github.pikosphere.di.tests.scopes;
+
+import com.github.pikosphere.di.RequestScoped;
+
+import javax.inject.Provider;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestModule {
+
+    public static final AtomicInteger requestContextCount = new AtomicInteger();
+
+    @RequestScoped
+    public static RequestContext provideRequestContext() {
+        requestContextCount.incrementAndGet();
+        return new RequestContext();
+    }
+
+    public static UnitOfWork provideUnitOfWork(RequestContext requestContext) {
+        return new UnitOfWork(requestContext);
+    }
+
+    public static Provider<RequestContext> provideContextProvider(Provider<RequestContext> requestContextProvider) {
+        return requestContextProvider;
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.pikosphere.di.tests.scopes;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * A singleton which depends (through the UnitOfWork) on the request scoped RequestContext of the RequestModule
+ */
+public class RequestSingletonModule {
+
+    @Singleton
+    @Named("report")
+    public static String provideReport(UnitOfWork unitOfWork) {
+        return "report";
+    }
+}
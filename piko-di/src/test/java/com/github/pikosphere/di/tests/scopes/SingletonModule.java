@@ -0,0 +1,19 @@
+package com.github.pikosphere.di.tests.scopes;
+
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingletonModule {
+
+    public static final AtomicInteger connectionCount = new AtomicInteger();
+
+    @Singleton
+    public static Connection provideConnection() {
+        connectionCount.incrementAndGet();
+        return new Connection();
+    }
+
+    public static Client provideClient(Connection connection) {
+        return new Client(connection);
+    }
+}
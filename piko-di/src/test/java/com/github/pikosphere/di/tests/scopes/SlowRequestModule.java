@@ -0,0 +1,31 @@
+package com.github.pikosphere.di.tests.scopes;
+
+import com.github.pikosphere.di.RequestScoped;
+
+import javax.inject.Named;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A request scoped item which is built only once the release gate opens, next to one which is built right away
+ */
+public class SlowRequestModule {
+
+    public static volatile CountDownLatch release = new CountDownLatch(0);
+    public static final AtomicInteger slowCount = new AtomicInteger();
+
+    @RequestScoped
+    @Named("slow")
+    public static RequestContext provideSlow() throws InterruptedException {
+        slowCount.incrementAndGet();
+        release.await(5, TimeUnit.SECONDS);
+        return new RequestContext();
+    }
+
+    @RequestScoped
+    @Named("fast")
+    public static RequestContext provideFast() {
+        return new RequestContext();
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.pikosphere.di.tests.scopes;
+
+public class UnitOfWork {
+
+    private RequestContext requestContext;
+
+    public UnitOfWork(RequestContext requestContext) {
+        this.requestContext = requestContext;
+    }
+
+    public RequestContext getRequestContext() {
+        return requestContext;
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.pikosphere.di.tests.scopes;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pool and the cache are independent and can only be built together, since each waits for the other one.
+ */
+public class WarmUpModule {
+
+    public static final CyclicBarrier startBarrier = new CyclicBarrier(2);
+    public static final AtomicInteger buildCount = new AtomicInteger();
+
+    @Singleton
+    @Named("pool")
+    public static String providePool() throws Exception {
+        startBarrier.await(10, TimeUnit.SECONDS);
+        buildCount.incrementAndGet();
+        return "pool";
+    }
+
+    @Singleton
+    @Named("cache")
+    public static String provideCache() throws Exception {
+        startBarrier.await(10, TimeUnit.SECONDS);
+        buildCount.incrementAndGet();
+        return "cache";
+    }
+
+    @Singleton
+    @Named("client")
+    public static String provideClient(@Named("pool") String pool, @Named("cache") String cache) {
+        buildCount.incrementAndGet();
+        return pool + "+" + cache;
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.pikosphere.di.tests.swap;
+
+import javax.inject.Named;
+
+public class ConfigModule {
+
+    @Named("greeting")
+    public static String provideGreeting() {
+        return "hello";
+    }
+}
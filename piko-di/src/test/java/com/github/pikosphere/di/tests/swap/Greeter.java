@@ -0,0 +1,14 @@
+package com.github.pikosphere.di.tests.swap;
+
+public class Greeter {
+
+    private final String greeting;
+
+    public Greeter(String greeting) {
+        this.greeting = greeting;
+    }
+
+    public String getGreeting() {
+        return greeting;
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.pikosphere.di.tests.swap;
+
+import javax.inject.Named;
+
+/**
+ * Does not provide the greeting the Greeter needs
+ */
+public class IncompleteConfigModule {
+
+    @Named("farewell")
+    public static String provideFarewell() {
+        return "bye";
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.pikosphere.di.tests.swap;
+
+import javax.inject.Named;
+
+public class ReportModule {
+
+    @Named("report")
+    public static String provideReport(Clock clock, Greeter greeter) {
+        return greeter.getGreeting() + " at " + clock;
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.pikosphere.di.tests.swap;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+public class ServiceModule {
+
+    @Singleton
+    public static Greeter provideGreeter(@Named("greeting") String greeting) {
+        return new Greeter(greeting);
+    }
+
+    @Singleton
+    public static Clock provideClock() {
+        return new Clock();
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.pikosphere.di.tests.swap;
+
+import com.github.pikosphere.di.tests.lifecycle.LifecycleModule;
+import com.github.pikosphere.di.tests.lifecycle.Resource;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+public class UpdatedConnectionModule {
+
+    @Singleton
+    @Named("connection")
+    public static Resource provideConnection() {
+        return new Resource("updated connection", LifecycleModule.closedNames);
+    }
+}